@@ -3,6 +3,7 @@ package com.dang.inventoryservice.domain.model.aggregates;
 import com.dang.inventoryservice.domain.model.valueobjects.ReservationId;
 import com.dang.inventoryservice.domain.model.valueobjects.ReservationLine;
 import com.dang.inventoryservice.domain.model.valueobjects.ReservationStatus;
+import com.dang.sagamessages.id.TimeOrderedIds;
 import jakarta.persistence.*;
 import lombok.Getter;
 
@@ -47,7 +48,7 @@ public class InventoryReservation {
     }
 
     private InventoryReservation(String sagaId, String orderId, List<ReservationLine> lines) {
-        this.id = ReservationId.of(java.util.UUID.randomUUID().toString());
+        this.id = ReservationId.of(TimeOrderedIds.nextString());
         this.sagaId = sagaId;
         this.orderId = orderId;
         this.status = ReservationStatus.RESERVED;
@@ -1,9 +1,13 @@
 package com.dang.inventoryservice.infrastructure.messaging;
 
 import com.dang.inventoryservice.application.service.InventorySagaCommandHandler;
+import com.dang.sagakafka.KeyOrderedDispatcher;
+import com.dang.sagakafka.SagaRetryRouter;
+import com.dang.sagamessages.message.SagaMessage;
 import com.dang.sagamessages.message.inventory.InventoryCommands;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -11,55 +15,96 @@ import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+
 @Component
 public class InventorySagaCommandListener {
 
     private static final Logger log = LoggerFactory.getLogger(InventorySagaCommandListener.class);
 
+    private static final String RETRY_LISTENER_ID = "inventory-commands-retry";
+
     private final InventorySagaCommandHandler handler;
+    private final KeyOrderedDispatcher dispatcher;
+    private final SagaRetryRouter retryRouter;
+    private final SagaPayloadCodec codec;
     private final ObjectMapper objectMapper;
+    private final SagaCommandMetrics metrics;
 
-    public InventorySagaCommandListener(InventorySagaCommandHandler handler, ObjectMapper objectMapper) {
+    public InventorySagaCommandListener(InventorySagaCommandHandler handler,
+                                        KeyOrderedDispatcher dispatcher,
+                                        SagaRetryRouter retryRouter,
+                                        SagaPayloadCodec codec,
+                                        ObjectMapper objectMapper,
+                                        SagaCommandMetrics metrics) {
         this.handler = handler;
+        this.dispatcher = dispatcher;
+        this.retryRouter = retryRouter;
+        this.codec = codec;
         this.objectMapper = objectMapper;
+        this.metrics = metrics;
     }
 
     // groupId lấy theo spring.kafka.consumer.group-id để tránh lệch config
     @KafkaListener(
             topics = "${app.saga.topics.inventory-commands}",
+            groupId = "${spring.kafka.consumer.group-id}",
+            containerFactory = KafkaConsumerConfig.KEY_ORDERED_CONTAINER_FACTORY
+    )
+    public void listen(List<ConsumerRecord<String, byte[]>> records, Acknowledgment ack) {
+        // song song theo orderId, tuần tự trong cùng orderId; record lỗi sang retry topic, không chặn partition
+        int failed = dispatcher.dispatch(records, this::handle);
+        if (failed < 0) {
+            ack.acknowledge();
+        } else {
+            ack.nack(failed, dispatcher.retryBackoff());
+        }
+    }
+
+    // retry tier: tới hạn mới xử lý lại, lỗi tiếp thì sang tier sau / parking lot
+    @KafkaListener(
+            id = RETRY_LISTENER_ID,
+            topics = "#{@sagaRetryRouter.retryTopics('${app.saga.topics.inventory-commands}')}",
             groupId = "${spring.kafka.consumer.group-id}"
     )
-    public void listen(ConsumerRecord<String, String> record, Acknowledgment ack) {
-        String json = record.value();
+    public void listenRetry(ConsumerRecord<String, byte[]> record, Acknowledgment ack, Consumer<?, ?> consumer) {
+        retryRouter.onRetry(RETRY_LISTENER_ID, record, ack, consumer, this::handle);
+    }
 
-        try {
-            log.info("Inventory received command topic={} partition={} offset={} key={}",
-                    record.topic(), record.partition(), record.offset(), record.key());
+    private void handle(ConsumerRecord<String, byte[]> record) throws IOException {
+        byte[] value = record.value();
 
-            if (json == null || json.isBlank()) {
-                ack.acknowledge();
-                return;
-            }
+        log.info("Inventory received command topic={} partition={} offset={} key={}",
+                record.topic(), record.partition(), record.offset(), record.key());
 
-            JsonNode root = objectMapper.readTree(json);
+        if (value == null || value.length == 0) return;
 
-            // ReserveInventoryCommand có field "items"
-            if (root.has("items")) {
-                var cmd = objectMapper.treeToValue(root, InventoryCommands.ReserveInventoryCommand.class);
-                handler.handleReserve(cmd);
-                ack.acknowledge();
-                return;
+        // binary hoặc có header type => deserialize thẳng ra record, không cần parse JsonNode rồi convert lần 2
+        Optional<SagaMessage> typed = codec.decodeTyped(value, record.headers());
+        if (typed.isPresent()) {
+            switch (typed.get()) {
+                case InventoryCommands.ReserveInventoryCommand cmd -> metrics.record(cmd, () -> handler.handleReserve(cmd));
+                case InventoryCommands.ReleaseInventoryCommand cmd -> metrics.record(cmd, () -> handler.handleRelease(cmd));
+                default -> log.warn("Inventory ignored unexpected message type={} key={}",
+                        typed.get().getClass().getSimpleName(), record.key());
             }
+            return;
+        }
 
-            // ReleaseInventoryCommand
-            var cmd = objectMapper.treeToValue(root, InventoryCommands.ReleaseInventoryCommand.class);
-            handler.handleRelease(cmd);
-            ack.acknowledge();
+        // legacy: JSON không có header => đoán theo field (không đo: occurredAt không tin cậy)
+        JsonNode root = objectMapper.readTree(value);
 
-        } catch (Exception ex) {
-            log.error("Failed to process inventory command JSON topic={} partition={} offset={} value={}",
-                    record.topic(), record.partition(), record.offset(), json, ex);
-            // don't ack -> retry
+        // ReserveInventoryCommand có field "items"
+        if (root.has("items")) {
+            var cmd = objectMapper.treeToValue(root, InventoryCommands.ReserveInventoryCommand.class);
+            handler.handleReserve(cmd);
+            return;
         }
+
+        // ReleaseInventoryCommand
+        var cmd = objectMapper.treeToValue(root, InventoryCommands.ReleaseInventoryCommand.class);
+        handler.handleRelease(cmd);
     }
 }
@@ -0,0 +1,26 @@
+package com.dang.inventoryservice.infrastructure.messaging;
+
+import com.dang.sagakafka.KeyOrderedDispatcher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+
+@Configuration
+public class KafkaConsumerConfig {
+
+    public static final String KEY_ORDERED_CONTAINER_FACTORY = "keyOrderedListenerContainerFactory";
+
+    // batch listener: cả poll giao cho KeyOrderedDispatcher, ack/nack 1 lần theo poll
+    @Bean(name = KEY_ORDERED_CONTAINER_FACTORY)
+    public ConcurrentKafkaListenerContainerFactory<String, Object> keyOrderedListenerContainerFactory(
+            ConsumerFactory<String, Object> consumerFactory
+    ) {
+        var factory = new ConcurrentKafkaListenerContainerFactory<String, Object>();
+        factory.setConsumerFactory(consumerFactory);
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        return factory;
+    }
+}
@@ -1,6 +1,8 @@
 package com.dang.inventoryservice.infrastructure.messaging;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.dang.sagakafka.SagaKafkaHeaders;
+import com.dang.sagamessages.envelope.SagaEnvelope;
+import com.dang.sagamessages.message.SagaMessage;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Component;
@@ -9,22 +11,22 @@ import org.springframework.stereotype.Component;
 @ConditionalOnProperty(prefix = "app.messaging.kafka", name = "enabled", havingValue = "true")
 public class KafkaSagaEventProducer {
 
-    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
     private final KafkaSagaTopicsProperties topics;
-    private final ObjectMapper objectMapper;
+    private final SagaPayloadCodec codec;
 
-    public KafkaSagaEventProducer(KafkaTemplate<String, String> kafkaTemplate,
+    public KafkaSagaEventProducer(KafkaTemplate<String, byte[]> kafkaTemplate,
                                   KafkaSagaTopicsProperties topics,
-                                  ObjectMapper objectMapper) {
+                                  SagaPayloadCodec codec) {
         this.kafkaTemplate = kafkaTemplate;
         this.topics = topics;
-        this.objectMapper = objectMapper;
+        this.codec = codec;
     }
 
-    public void publish(String key, Object event) {
+    public void publish(String key, SagaMessage event) {
         try {
-            String json = objectMapper.writeValueAsString(event);
-            kafkaTemplate.send(topics.getInventoryEvents(), key, json);
+            kafkaTemplate.send(SagaKafkaHeaders.record(topics.getInventoryEvents(), key, codec.encode(event),
+                    SagaEnvelope.of(event), codec.contentType()));
         } catch (Exception e) {
             throw new RuntimeException("Failed to publish saga event to topic=" + topics.getInventoryEvents()
                     + " key=" + key, e);
@@ -4,12 +4,12 @@ import com.dang.inventoryservice.infrastructure.persistence.jpa.OutboxMessage;
 import com.dang.inventoryservice.infrastructure.persistence.jpa.OutboxStatus;
 import com.dang.inventoryservice.infrastructure.persistence.jpa.JpaOutboxRepository;
 import com.dang.inventoryservice.infrastructure.persistence.jpa.impl.OutboxPollingRepository;
+import com.dang.sagakafka.SagaKafkaHeaders;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -24,8 +24,9 @@ public class OutboxKafkaPublisher {
 
     private final OutboxPollingRepository pollingRepo;
     private final JpaOutboxRepository outboxRepo;
-    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
     private final KafkaSagaTopicsProperties topics;
+    private final OutboxMetrics metrics;
 
     @Value("${app.outbox.batch-size:100}") private int batchSize;
     @Value("${app.outbox.max-retry:50}") private int maxRetry;
@@ -33,42 +34,54 @@ public class OutboxKafkaPublisher {
 
     public OutboxKafkaPublisher(OutboxPollingRepository pollingRepo,
                                 JpaOutboxRepository outboxRepo,
-                                KafkaTemplate<String, String> kafkaTemplate,
-                                KafkaSagaTopicsProperties topics) {
+                                KafkaTemplate<String, byte[]> kafkaTemplate,
+                                KafkaSagaTopicsProperties topics,
+                                OutboxMetrics metrics) {
         this.pollingRepo = pollingRepo;
         this.outboxRepo = outboxRepo;
         this.kafkaTemplate = kafkaTemplate;
         this.topics = topics;
+        this.metrics = metrics;
     }
 
-    @Scheduled(fixedDelayString = "${app.outbox.poll-ms:1000}")
+    /**
+     * @return số row đã gửi thành công (không phải số row đã claim): row fail quay lại NEW không có backoff,
+     * {@link OutboxDrainer} dựa vào số này để dừng thay vì claim lại ngay => lần thử sau đợi poll kế tiếp.
+     */
     @Transactional
-    public void publishBatch() {
+    public int publishBatch() {
         List<OutboxMessage> batch = useSkipLocked
                 ? pollingRepo.fetchNewWithSkipLocked(batchSize)
                 : outboxRepo.findTop100ByStatusOrderByCreatedAtAsc(OutboxStatus.NEW)
                 .stream().limit(batchSize).toList();
 
-        if (batch.isEmpty()) return;
+        if (batch.isEmpty()) return 0;
 
+        int published = 0;
         for (OutboxMessage msg : batch) {
             try {
-                kafkaTemplate.send(topics.getInventoryEvents(), msg.getAggregateId(), msg.getPayload())
+                kafkaTemplate.send(SagaKafkaHeaders.record(topics.getInventoryEvents(), msg.getAggregateId(), msg.payloadBytes(),
+                                msg.envelope().orElse(null), msg.contentType()))
                         .get(10, TimeUnit.SECONDS);
 
                 msg.markPublished();
+                metrics.recordPublished(msg);
+                published++;
             } catch (Exception ex) {
                 String err = ex.getMessage();
                 if (msg.getRetryCount() >= maxRetry) {
                     msg.markFailed(err);
+                    metrics.recordPermanentFailure();
                     log.error("Inventory outbox permanently failed id={} aggregateId={} retryCount={} err={}",
                             msg.getId(), msg.getAggregateId(), msg.getRetryCount(), err, ex);
                 } else {
                     msg.backToNew(err);
+                    metrics.recordRetry();
                     log.warn("Inventory outbox retry id={} aggregateId={} retryCount={} err={}",
                             msg.getId(), msg.getAggregateId(), msg.getRetryCount(), err);
                 }
             }
         }
+        return published;
     }
 }
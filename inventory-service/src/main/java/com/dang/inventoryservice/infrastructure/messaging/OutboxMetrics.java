@@ -0,0 +1,73 @@
+package com.dang.inventoryservice.infrastructure.messaging;
+
+import com.dang.inventoryservice.infrastructure.persistence.jpa.JpaOutboxRepository;
+import com.dang.inventoryservice.infrastructure.persistence.jpa.OutboxMessage;
+import com.dang.inventoryservice.infrastructure.persistence.jpa.OutboxStatus;
+import com.dang.sagamessages.metrics.SagaMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Metric của outbox relay: outbox.pending, outbox.oldest.pending.age, outbox.publish.latency,
+ * outbox.retries, outbox.failures.permanent. Gauge backlog refresh theo lịch, scrape không chạm DB.
+ */
+@Component
+public class OutboxMetrics {
+
+    private final JpaOutboxRepository outboxRepo;
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong oldestPendingAgeMs = new AtomicLong();
+    private final Timer publishLatency;
+    private final Counter retries;
+    private final Counter permanentFailures;
+
+    public OutboxMetrics(JpaOutboxRepository outboxRepo, MeterRegistry meterRegistry) {
+        this.outboxRepo = outboxRepo;
+
+        Gauge.builder("outbox.pending", pending, AtomicLong::get)
+                .description("Số row NEW chưa publish")
+                .register(meterRegistry);
+        Gauge.builder("outbox.oldest.pending.age", oldestPendingAgeMs, v -> v.get() / 1000.0)
+                .description("Tuổi của row NEW cũ nhất")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        this.publishLatency = Timer.builder("outbox.publish.latency")
+                .description("Từ lúc insert outbox tới lúc broker ack")
+                // cùng bucket với saga.hop => broker/poll = saga.hop - outbox.publish.latency
+                .serviceLevelObjectives(SagaMetrics.HOP_SLO)
+                .register(meterRegistry);
+        this.retries = Counter.builder("outbox.retries")
+                .description("Số lần publish lỗi và quay lại NEW")
+                .register(meterRegistry);
+        this.permanentFailures = Counter.builder("outbox.failures.permanent")
+                .description("Số row chuyển FAILED sau max-retry")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.metrics.refresh-ms:5000}")
+    public void refreshBacklog() {
+        pending.set(outboxRepo.countByStatus(OutboxStatus.NEW));
+        Instant oldest = outboxRepo.findOldestCreatedAt(OutboxStatus.NEW);
+        oldestPendingAgeMs.set(oldest == null ? 0 : Math.max(0, Duration.between(oldest, Instant.now()).toMillis()));
+    }
+
+    public void recordPublished(OutboxMessage msg) {
+        publishLatency.record(Duration.between(msg.getCreatedAt(), msg.getPublishedAt()));
+    }
+
+    public void recordRetry() {
+        retries.increment();
+    }
+
+    public void recordPermanentFailure() {
+        permanentFailures.increment();
+    }
+}
@@ -0,0 +1,102 @@
+package com.dang.inventoryservice.infrastructure.messaging;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+
+/**
+ * LISTEN trên connection riêng (không giữ connection của Hikari pool),
+ * có notification thì drain outbox ngay; @Scheduled poll chỉ còn là fallback.
+ */
+@Component
+@ConditionalOnExpression("${app.outbox.enabled:false} and ${app.outbox.notify.enabled:false}")
+public class OutboxNotificationListener implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxNotificationListener.class);
+
+    private final OutboxDrainer drainer;
+
+    @Value("${spring.datasource.url}") private String url;
+    @Value("${spring.datasource.username}") private String username;
+    @Value("${spring.datasource.password}") private String password;
+
+    @Value("${app.outbox.notify.channel:outbox_messages}") private String channel;
+    @Value("${app.outbox.notify.listen-timeout-ms:5000}") private int listenTimeoutMs;
+    @Value("${app.outbox.notify.reconnect-delay-ms:2000}") private long reconnectDelayMs;
+
+    private volatile boolean running;
+    private Thread thread;
+
+    public OutboxNotificationListener(OutboxDrainer drainer) {
+        this.drainer = drainer;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        thread = Thread.ofPlatform().daemon().name("outbox-listen").start(this::loop);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (thread != null) thread.interrupt();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void loop() {
+        while (running) {
+            try (Connection conn = DriverManager.getConnection(url, username, password)) {
+                try (Statement st = conn.createStatement()) {
+                    st.execute("LISTEN " + channel);
+                }
+                PGConnection pg = conn.unwrap(PGConnection.class);
+                log.info("Inventory outbox LISTEN started channel={}", channel);
+
+                // vừa (re)connect: có thể đã lỡ notification => drain 1 lần
+                drainSafely();
+
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications(listenTimeoutMs);
+                    if (notifications != null && notifications.length > 0) {
+                        drainSafely();
+                    }
+                }
+            } catch (Exception ex) {
+                if (!running) return;
+                log.warn("Inventory outbox LISTEN connection lost, reconnect in {}ms: {}", reconnectDelayMs, ex.getMessage());
+                sleep(reconnectDelayMs);
+            }
+        }
+    }
+
+    private void drainSafely() {
+        try {
+            // scheduler đang drain thì chỉ báo cho nó, không drain song song
+            drainer.drain();
+        } catch (Exception ex) {
+            log.error("Inventory outbox drain after NOTIFY failed", ex);
+        }
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
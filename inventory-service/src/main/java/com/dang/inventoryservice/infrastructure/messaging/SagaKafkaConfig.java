@@ -0,0 +1,33 @@
+package com.dang.inventoryservice.infrastructure.messaging;
+
+import com.dang.sagakafka.SagaKafkaConfiguration;
+import com.dang.sagakafka.SagaParkingLotEndpoint;
+import com.dang.sagakafka.SagaRetryRouter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.util.List;
+
+/**
+ * Dispatcher/retry router dùng chung từ saga-kafka; parking lot của các topic service này consume.
+ */
+@Configuration
+@Import(SagaKafkaConfiguration.class)
+public class SagaKafkaConfig {
+
+    @Bean
+    public SagaParkingLotEndpoint sagaParkingLotEndpoint(
+            ConsumerFactory<String, byte[]> consumerFactory,
+            KafkaTemplate<String, byte[]> kafkaTemplate,
+            SagaRetryRouter retryRouter,
+            KafkaSagaTopicsProperties topics,
+            @Value("${spring.kafka.consumer.group-id:inventory-service}") String groupId
+    ) {
+        return new SagaParkingLotEndpoint(consumerFactory, kafkaTemplate, retryRouter,
+                List.of(topics.getInventoryCommands()), groupId + "-parking-lot-replay");
+    }
+}
@@ -1,9 +1,41 @@
 package com.dang.inventoryservice.infrastructure.persistence.jpa;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
+import java.time.Instant;
 import java.util.List;
 
 public interface JpaOutboxRepository extends JpaRepository<OutboxMessage, String> {
     List<OutboxMessage> findTop100ByStatusOrderByCreatedAtAsc(OutboxStatus status);
+
+    long countByStatus(OutboxStatus status);
+
+    @Query("select min(m.createdAt) from OutboxMessage m where m.status = ?1")
+    Instant findOldestCreatedAt(OutboxStatus status);
+
+    /**
+     * Xoá tối đa ?2 row PUBLISHED tạo trước ?1 (row đang bị lock thì bỏ qua, lần sau xoá).
+     */
+    @Modifying
+    @Query(
+            value = """
+                    DELETE FROM outbox_messages
+                    WHERE id IN (
+                        SELECT id
+                        FROM outbox_messages
+                        WHERE status = 'PUBLISHED'
+                          AND created_at < ?1
+                        ORDER BY created_at
+                        LIMIT ?2
+                        FOR UPDATE SKIP LOCKED
+                    )
+                    """,
+            nativeQuery = true
+    )
+    int purgePublishedBefore(Instant cutoff, int limit);
+
+    @Query(value = "SELECT pg_total_relation_size('outbox_messages')", nativeQuery = true)
+    long tableSizeBytes();
 }
@@ -1,10 +1,16 @@
 package com.dang.inventoryservice.infrastructure.persistence.jpa;
 
+import com.dang.sagamessages.codec.SagaBinaryCodec;
+import com.dang.sagamessages.envelope.SagaEnvelope;
+import com.dang.sagamessages.envelope.SagaHeaders;
+import com.dang.sagamessages.envelope.SagaMessageType;
+import com.dang.sagamessages.id.TimeOrderedIds;
 import jakarta.persistence.*;
 import lombok.Getter;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
-import java.util.UUID;
+import java.util.Optional;
 
 @Getter
 @Entity
@@ -29,9 +35,13 @@ public class OutboxMessage {
     @Column(name = "event_type", nullable = false, length = 120)
     private String eventType;
 
+    // JSON; với row binary thì rỗng, dữ liệu nằm ở payload_bin
     @Column(name = "payload", nullable = false, columnDefinition = "TEXT")
     private String payload;
 
+    @Column(name = "payload_bin")
+    private byte[] payloadBin;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false, length = 16)
     private OutboxStatus status;
@@ -48,11 +58,18 @@ public class OutboxMessage {
     @Column(name = "published_at")
     private Instant publishedAt;
 
+    // metadata envelope (gửi qua Kafka header); type = event_type, null với row cũ
+    @Column(name = "message_id", length = 36)
+    private String messageId;
+
+    @Column(name = "saga_id", length = 80)
+    private String sagaId;
+
     protected OutboxMessage() {
     }
 
     private OutboxMessage(String aggregateType, String aggregateId, String eventType, String payload) {
-        this.id = UUID.randomUUID().toString();
+        this.id = TimeOrderedIds.nextString();
         this.aggregateType = aggregateType;
         this.aggregateId = aggregateId;
         this.eventType = eventType;
@@ -66,6 +83,36 @@ public class OutboxMessage {
         return new OutboxMessage(aggregateType, aggregateId, eventType, payload);
     }
 
+    public static OutboxMessage newMessage(String aggregateType, String aggregateId, String payload, SagaEnvelope envelope) {
+        OutboxMessage msg = new OutboxMessage(aggregateType, aggregateId, envelope.type().typeName(), payload);
+        msg.messageId = envelope.messageId();
+        msg.sagaId = envelope.sagaId();
+        return msg;
+    }
+
+    public static OutboxMessage newBinaryMessage(String aggregateType, String aggregateId, byte[] payload, SagaEnvelope envelope) {
+        OutboxMessage msg = newMessage(aggregateType, aggregateId, "", envelope);
+        msg.payloadBin = payload;
+        return msg;
+    }
+
+    public byte[] payloadBytes() {
+        return payloadBin != null ? payloadBin : payload.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public String contentType() {
+        return payloadBin != null ? SagaBinaryCodec.CONTENT_TYPE : SagaHeaders.JSON_CONTENT_TYPE;
+    }
+
+    /**
+     * Dựng lại envelope từ cột đã lưu; occurredAt lấy theo created_at của row.
+     */
+    public Optional<SagaEnvelope> envelope() {
+        if (messageId == null) return Optional.empty();
+        return SagaMessageType.fromTypeName(eventType)
+                .map(type -> new SagaEnvelope(messageId, type, type.schemaVersion(), sagaId, aggregateId, createdAt));
+    }
+
     public void markPublished() {
         this.status = OutboxStatus.PUBLISHED;
         this.publishedAt = Instant.now();
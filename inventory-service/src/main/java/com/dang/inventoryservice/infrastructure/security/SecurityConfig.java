@@ -33,6 +33,11 @@ public class SecurityConfig {
 
         http.authorizeHttpRequests(reg -> reg
                 .requestMatchers("/actuator/health", "/actuator/info", "/error").permitAll()
+                // Prometheus scrape trong cluster, không mang JWT
+                .requestMatchers("/actuator/prometheus").permitAll()
+                // parking lot replay publish lại lên topic thật, metrics lộ số liệu nội bộ => chỉ admin
+                .requestMatchers("/actuator/parkinglot", "/actuator/parkinglot/**",
+                        "/actuator/metrics", "/actuator/metrics/**").hasRole("ADMIN")
                 .requestMatchers("/swagger-ui/**", "/v3/api-docs/**").permitAll()
                 .anyRequest().authenticated()
         );
@@ -14,7 +14,7 @@ public record CreateOrderCommand(
     public record Item(
             @NotBlank String sku,
             @Positive int quantity,
-            @PositiveOrZero BigDecimal unitPrice
+            @PositiveOrZero @Digits(integer = 17, fraction = 2) BigDecimal unitPrice
     ) {}
 
     public record ShippingAddress(
@@ -0,0 +1,26 @@
+package com.dang.orderservice.application.dtos;
+
+import java.util.List;
+
+/**
+ * Kết quả từng item của POST /api/orders/batch (1 dòng NDJSON), index = vị trí trong input.
+ * status: CREATED | INVALID | FAILED
+ */
+public record OrderBatchItemResult(
+        int index,
+        String status,
+        String orderId,
+        List<String> errors
+) {
+    public static OrderBatchItemResult created(int index, String orderId) {
+        return new OrderBatchItemResult(index, "CREATED", orderId, List.of());
+    }
+
+    public static OrderBatchItemResult invalid(int index, List<String> errors) {
+        return new OrderBatchItemResult(index, "INVALID", null, errors);
+    }
+
+    public static OrderBatchItemResult failed(int index, String error) {
+        return new OrderBatchItemResult(index, "FAILED", null, List.of(error == null ? "Order creation failed" : error));
+    }
+}
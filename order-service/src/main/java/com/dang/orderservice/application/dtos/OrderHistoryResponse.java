@@ -0,0 +1,11 @@
+package com.dang.orderservice.application.dtos;
+
+import java.util.List;
+
+/**
+ * nextBefore = null => hết trang; client truyền lại vào ?before= để lấy trang kế tiếp.
+ */
+public record OrderHistoryResponse(
+        List<OrderSummaryResponse> items,
+        String nextBefore
+) {}
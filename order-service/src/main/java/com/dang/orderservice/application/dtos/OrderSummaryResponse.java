@@ -0,0 +1,23 @@
+package com.dang.orderservice.application.dtos;
+
+import com.dang.orderservice.domain.model.valueobjects.Money;
+import com.dang.orderservice.domain.model.valueobjects.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * 1 dòng lịch sử order: chỉ cột của bảng orders, không kèm lines / shipping address.
+ */
+public record OrderSummaryResponse(
+        String orderId,
+        String status,
+        BigDecimal totalAmount,
+        String currency,
+        Instant createdAt
+) {
+    // JPQL constructor expression (status là enum, total là minor unit trong entity)
+    public OrderSummaryResponse(String orderId, OrderStatus status, long totalMinor, String currency, Instant createdAt) {
+        this(orderId, status.name(), Money.fromMinor(totalMinor), currency, createdAt);
+    }
+}
@@ -0,0 +1,11 @@
+package com.dang.orderservice.application.exceptions;
+
+/**
+ * Event saga tới trước state cần có để xử lý (vd. kết quả bù trừ khi saga còn ở create).
+ * Listener để nó fail => record đi retry tier, xử lý lại khi state đã đi tiếp.
+ */
+public class SagaEventTooEarlyException extends RuntimeException {
+    public SagaEventTooEarlyException(String message) {
+        super(message);
+    }
+}
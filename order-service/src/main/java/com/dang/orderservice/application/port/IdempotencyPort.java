@@ -0,0 +1,20 @@
+package com.dang.orderservice.application.port;
+
+import java.util.Optional;
+
+public interface IdempotencyPort {
+
+    record Entry(String orderId, String requestHash) {}
+
+    String requestHash(Object request);
+
+    /**
+     * Key đã dùng (cache recent-keys trước, rồi tới DB).
+     */
+    Optional<Entry> find(String scopeKey);
+
+    /**
+     * Giữ key cho orderId trong transaction hiện tại; false = key đã thuộc về order khác.
+     */
+    boolean claim(String scopeKey, String orderId, String requestHash);
+}
@@ -0,0 +1,10 @@
+package com.dang.orderservice.application.port;
+
+import com.dang.orderservice.domain.model.aggregates.Order;
+
+public interface OrderOutcomePort {
+    /**
+     * Order vừa tới trạng thái cuối (CONFIRMED / CANCELLED); client đang chờ được đánh thức sau khi commit.
+     */
+    void settled(Order order);
+}
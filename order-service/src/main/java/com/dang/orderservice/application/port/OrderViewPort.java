@@ -0,0 +1,26 @@
+package com.dang.orderservice.application.port;
+
+import com.dang.orderservice.application.dtos.OrderResponse;
+import com.dang.orderservice.application.dtos.OrderSummaryResponse;
+import com.dang.orderservice.domain.model.aggregates.Order;
+import com.dang.orderservice.domain.model.valueobjects.OrderStatus;
+import org.jspecify.annotations.Nullable;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+public interface OrderViewPort {
+    /**
+     * Ghi lại projection của order trong transaction hiện tại (gọi mỗi lần lưu Order).
+     */
+    void project(Order order);
+
+    Optional<OrderResponse> find(String orderId);
+
+    /**
+     * Lịch sử order mới nhất trước; before = (createdAt, orderId) của dòng cuối trang trước, null = trang đầu.
+     */
+    List<OrderSummaryResponse> history(String customerId, @Nullable OrderStatus status,
+                                       @Nullable Instant beforeCreatedAt, @Nullable String beforeOrderId, int limit);
+}
@@ -0,0 +1,12 @@
+package com.dang.orderservice.application.port;
+
+import java.time.Instant;
+
+public interface SagaDeadlinePort {
+    /**
+     * Đặt (hoặc dời) deadline của saga; mỗi saga chỉ có 1 deadline cho bước đang chờ.
+     */
+    void schedule(String sagaId, Instant dueAt, int attempt);
+
+    void cancel(String sagaId);
+}
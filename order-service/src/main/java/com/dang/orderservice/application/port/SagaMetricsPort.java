@@ -0,0 +1,14 @@
+package com.dang.orderservice.application.port;
+
+import com.dang.orderservice.domain.model.aggregates.OrderSaga;
+import com.dang.orderservice.domain.model.valueobjects.OrderStatus;
+import org.jspecify.annotations.Nullable;
+
+public interface SagaMetricsPort {
+    /**
+     * Saga vừa kết thúc (COMPLETED / FAILED): ghi thời gian từ lúc start saga, chỉ tính khi transaction commit.
+     *
+     * @param orderStatus trạng thái order nếu bước cuối có đụng tới order, null nếu không
+     */
+    void sagaFinished(OrderSaga saga, @Nullable OrderStatus orderStatus);
+}
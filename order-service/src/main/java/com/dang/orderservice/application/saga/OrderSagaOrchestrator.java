@@ -1,7 +1,11 @@
 package com.dang.orderservice.application.saga;
 
+import com.dang.orderservice.application.exceptions.SagaEventTooEarlyException;
 import com.dang.orderservice.application.port.InventoryCommandPort;
+import com.dang.orderservice.application.port.OrderOutcomePort;
 import com.dang.orderservice.application.port.PaymentCommandPort;
+import com.dang.orderservice.application.port.SagaDeadlinePort;
+import com.dang.orderservice.application.port.SagaMetricsPort;
 import com.dang.orderservice.domain.model.aggregates.Order;
 import com.dang.orderservice.domain.model.aggregates.OrderSaga;
 import com.dang.orderservice.domain.model.valueobjects.OrderId;
@@ -9,34 +13,61 @@ import com.dang.orderservice.domain.model.valueobjects.OrderStatus;
 import com.dang.orderservice.domain.model.valueobjects.SagaStatus;
 import com.dang.orderservice.domain.repository.OrderRepository;
 import com.dang.orderservice.domain.repository.OrderSagaRepository;
+import com.dang.sagamessages.id.TimeOrderedIds;
 import com.dang.sagamessages.message.inventory.InventoryCommands;
 import com.dang.sagamessages.message.inventory.InventoryEvents;
 import com.dang.sagamessages.message.payment.PaymentCommands;
 import com.dang.sagamessages.message.payment.PaymentEvents;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.Instant;
-import java.util.UUID;
+import java.util.List;
+import java.util.function.Predicate;
 
 @Component
+@RetryOnConflict
 public class OrderSagaOrchestrator {
 
     private final OrderRepository orderRepository;
     private final OrderSagaRepository sagaRepository;
     private final InventoryCommandPort inventoryCommandPort;
     private final PaymentCommandPort paymentCommandPort;
+    private final SagaDeadlinePort deadlinePort;
+    private final OrderOutcomePort outcomePort;
+    private final SagaMetricsPort metricsPort;
+    private final SagaTransitionTable<SagaPhase, SagaEventType, SagaContext> transitions;
+
+    // true => reserve + capture gửi cùng lúc, saga xong khi đủ 2 kết quả (thay vì reserve rồi mới capture)
+    @Value("${app.saga.parallel-create:false}")
+    private boolean parallelCreate;
+
+    // saga chờ phản hồi quá lâu: gửi lại command tối đa max-retries lần (timeout giãn dần), sau đó bù trừ / FAILED
+    @Value("${app.saga.deadline.step-timeout-ms:30000}")
+    private long stepTimeoutMs;
+
+    @Value("${app.saga.deadline.max-retries:2}")
+    private int maxTimeoutRetries;
 
     public OrderSagaOrchestrator(
             OrderRepository orderRepository,
             OrderSagaRepository sagaRepository,
             InventoryCommandPort inventoryCommandPort,
-            PaymentCommandPort paymentCommandPort
+            PaymentCommandPort paymentCommandPort,
+            SagaDeadlinePort deadlinePort,
+            OrderOutcomePort outcomePort,
+            SagaMetricsPort metricsPort
     ) {
         this.orderRepository = orderRepository;
         this.sagaRepository = sagaRepository;
         this.inventoryCommandPort = inventoryCommandPort;
         this.paymentCommandPort = paymentCommandPort;
+        this.deadlinePort = deadlinePort;
+        this.outcomePort = outcomePort;
+        this.metricsPort = metricsPort;
+        this.transitions = buildTransitions();
     }
 
     /**
@@ -44,33 +75,36 @@ public class OrderSagaOrchestrator {
      * 1) Reserve inventory
      * 2) Capture payment
      * 3) Confirm order
+     * Parallel mode: 1) và 2) gửi cùng lúc; bước nào fail thì bù trừ bước còn lại (kể cả khi nó xong muộn).
      */
     @Transactional
     public void startCreateOrderSaga(String orderIdRaw) {
-        Order order = orderRepository.getRequired(OrderId.of(orderIdRaw));
+        startCreateOrderSaga(orderRepository.getRequired(OrderId.of(orderIdRaw)));
+    }
 
+    /**
+     * Dùng aggregate đang có trong tay (vừa tạo cùng transaction) => không load lại order + order_lines.
+     */
+    @Transactional
+    public void startCreateOrderSaga(Order order) {
         // chỉ start create saga khi order ở PENDING
         if (order.getStatus() != OrderStatus.PENDING) {
             return;
         }
 
-        String sagaId = UUID.randomUUID().toString();
-        OrderSaga saga = OrderSaga.startCreate(sagaId, orderIdRaw);
-        sagaRepository.save(saga);
+        String orderIdRaw = order.getId().value();
+        String sagaId = TimeOrderedIds.nextString();
+        OrderSaga saga = parallelCreate
+                ? OrderSaga.startCreateParallel(sagaId, orderIdRaw)
+                : OrderSaga.startCreate(sagaId, orderIdRaw);
+        save(saga);
 
-        inventoryCommandPort.sendReserveInventory(new InventoryCommands.ReserveInventoryCommand(
-                sagaId,
-                orderIdRaw,
-                order.getCustomerId().value(),
-                order.getLines().stream()
-                        .map(l -> new InventoryCommands.ReserveInventoryCommand.Item(
-                                l.getSku(),
-                                l.getQuantity(),
-                                l.getUnitPrice()
-                        ))
-                        .toList(),
-                Instant.now()
-        ));
+        inventoryCommandPort.sendReserveInventory(reserveInventoryCommand(sagaId, order));
+
+        // parallel: capture luôn, không chờ InventoryReserved
+        if (saga.isParallel()) {
+            paymentCommandPort.sendCapturePayment(capturePaymentCommand(sagaId, order));
+        }
     }
 
     /**
@@ -94,20 +128,21 @@ public class OrderSagaOrchestrator {
             return; // idempotent
         }
 
-        String sagaId = UUID.randomUUID().toString();
+        String sagaId = TimeOrderedIds.nextString();
         OrderSaga saga = OrderSaga.startCancel(sagaId, orderIdRaw);
 
         // snapshot flags hiện tại của order (đã được cập nhật theo events)
         saga.planCompensation(order);
-        sagaRepository.save(saga);
+        save(saga);
 
         // không cần bù trừ gì => cancel ngay
         if (!saga.isInventoryCompensationRequired() && !saga.isPaymentCompensationRequired()) {
             order.cancel("Cancel completed (no compensation required)");
-            orderRepository.save(order);
+            save(order);
 
             saga.complete();
-            sagaRepository.save(saga);
+            save(saga);
+            metricsPort.sagaFinished(saga, order.getStatus());
             return;
         }
 
@@ -132,274 +167,430 @@ public class OrderSagaOrchestrator {
     }
 
     // =========================================================
-    //  Generic event handlers (listener chỉ gọi 2 method này)
+    //  Event handlers: 1 lần load saga -> tra bảng -> action -> persist
     // =========================================================
 
     @Transactional
-    public void onInventorySuccess(String sagaId, String orderId) {
-        OrderSaga saga = sagaRepository.getRequired(sagaId);
-        if (saga.isCompleted() || saga.isFailed()) return;
-
-        if (saga.getStatus() == SagaStatus.CREATE_FLOW) {
-            onInventoryReserved(new InventoryEvents.InventoryReservedEvent(sagaId, orderId, Instant.now()));
-            return;
-        }
+    public void onInventoryReserved(InventoryEvents.InventoryReservedEvent evt) {
+        fire(SagaEventType.INVENTORY_RESERVED, evt.sagaId(), evt.orderId(), null);
+    }
 
-        if (saga.getStatus() == SagaStatus.CANCEL_FLOW) {
-            onInventoryReleased(new InventoryEvents.InventoryReleasedEvent(sagaId, orderId, Instant.now()));
-        }
+    @Transactional
+    public void onInventoryReserveFailed(InventoryEvents.InventoryReserveFailedEvent evt) {
+        fire(SagaEventType.INVENTORY_RESERVE_FAILED, evt.sagaId(), evt.orderId(), evt.reason());
     }
 
     @Transactional
-    public void onInventoryFailed(String sagaId, String orderId, String reason) {
-        OrderSaga saga = sagaRepository.getRequired(sagaId);
-        if (saga.isCompleted() || saga.isFailed()) return;
+    public void onInventoryReleased(InventoryEvents.InventoryReleasedEvent evt) {
+        fire(SagaEventType.INVENTORY_RELEASED, evt.sagaId(), evt.orderId(), null);
+    }
 
-        if (saga.getStatus() == SagaStatus.CREATE_FLOW) {
-            onInventoryReserveFailed(new InventoryEvents.InventoryReserveFailedEvent(sagaId, orderId, reason, Instant.now()));
-            return;
-        }
+    @Transactional
+    public void onInventoryReleaseFailed(InventoryEvents.InventoryReleaseFailedEvent evt) {
+        fire(SagaEventType.INVENTORY_RELEASE_FAILED, evt.sagaId(), evt.orderId(), evt.reason());
+    }
 
-        if (saga.getStatus() == SagaStatus.CANCEL_FLOW) {
-            onInventoryReleaseFailed(new InventoryEvents.InventoryReleaseFailedEvent(sagaId, orderId, reason, Instant.now()));
-        }
+    @Transactional
+    public void onPaymentCaptured(PaymentEvents.PaymentCapturedEvent evt) {
+        fire(SagaEventType.PAYMENT_CAPTURED, evt.sagaId(), evt.orderId(), null);
     }
 
     @Transactional
-    public void onPaymentSuccess(String sagaId, String orderId) {
-        OrderSaga saga = sagaRepository.getRequired(sagaId);
-        if (saga.isCompleted() || saga.isFailed()) return;
+    public void onPaymentCaptureFailed(PaymentEvents.PaymentCaptureFailedEvent evt) {
+        fire(SagaEventType.PAYMENT_CAPTURE_FAILED, evt.sagaId(), evt.orderId(), evt.reason());
+    }
 
-        if (saga.getStatus() == SagaStatus.CREATE_FLOW) {
-            onPaymentCaptured(new PaymentEvents.PaymentCapturedEvent(sagaId, orderId, Instant.now()));
-            return;
-        }
+    @Transactional
+    public void onPaymentRefunded(PaymentEvents.PaymentRefundedEvent evt) {
+        fire(SagaEventType.PAYMENT_REFUNDED, evt.sagaId(), evt.orderId(), null);
+    }
 
-        if (saga.getStatus() == SagaStatus.CANCEL_FLOW) {
-            onPaymentRefunded(new PaymentEvents.PaymentRefundedEvent(sagaId, orderId, Instant.now()));
-        }
+    @Transactional
+    public void onPaymentRefundFailed(PaymentEvents.PaymentRefundFailedEvent evt) {
+        fire(SagaEventType.PAYMENT_REFUND_FAILED, evt.sagaId(), evt.orderId(), evt.reason());
     }
 
+    /**
+     * Deadline của bước đang chờ đã tới: gửi lại command còn thiếu (tối đa maxTimeoutRetries lần),
+     * hết lượt thì create flow chuyển sang bù trừ, cancel flow thì FAILED để xử lý tay.
+     */
     @Transactional
-    public void onPaymentFailed(String sagaId, String orderId, String reason) {
+    public void onSagaTimeout(String sagaId, int attempt) {
         OrderSaga saga = sagaRepository.getRequired(sagaId);
-        if (saga.isCompleted() || saga.isFailed()) return;
-
-        if (saga.getStatus() == SagaStatus.CREATE_FLOW) {
-            onPaymentCaptureFailed(new PaymentEvents.PaymentCaptureFailedEvent(sagaId, orderId, reason, Instant.now()));
-            return;
-        }
-
-        if (saga.getStatus() == SagaStatus.CANCEL_FLOW) {
-            onPaymentRefundFailed(new PaymentEvents.PaymentRefundFailedEvent(sagaId, orderId, reason, Instant.now()));
-        }
+        dispatch(saga, SagaEventType.TIMEOUT, saga.getOrderId(), null, attempt);
     }
 
     // =========================================================
-    //  Inventory events (create/cancel)
+    //  Event JSON cũ (không có type): đoán event theo flow hiện tại của saga
     // =========================================================
 
     @Transactional
-    public void onInventoryReserved(InventoryEvents.InventoryReservedEvent evt) {
-        OrderSaga saga = sagaRepository.getRequired(evt.sagaId());
-        if (saga.getStatus() != SagaStatus.CREATE_FLOW) return;
-        if (saga.isCompleted() || saga.isFailed()) return;
-
-        if (saga.isInventoryReservedDone()) return;
-
-        saga.onInventoryReserved();
-        sagaRepository.save(saga);
-
-        // update order snapshot flags ASAP để cancel saga không bị sai
-        Order order = orderRepository.getRequired(OrderId.of(evt.orderId()));
-        order.markInventoryReserved();
-        orderRepository.save(order);
+    public void onInventorySuccess(String sagaId, String orderId) {
+        OrderSaga saga = sagaRepository.getRequired(sagaId);
+        dispatch(saga, createStepPending(saga, saga.isInventoryOutcomeKnown())
+                ? SagaEventType.INVENTORY_RESERVED : SagaEventType.INVENTORY_RELEASED, orderId, null, 0);
+    }
 
-        // bước tiếp theo
-        paymentCommandPort.sendCapturePayment(
-                new PaymentCommands.CapturePaymentCommand(
-                        evt.sagaId(),
-                        evt.orderId(),
-                        order.getCustomerId().value(),
-                        order.getTotal().amount(),
-                        order.getTotal().currency(),
-                        Instant.now()
-                )
-        );
+    @Transactional
+    public void onInventoryFailed(String sagaId, String orderId, String reason) {
+        OrderSaga saga = sagaRepository.getRequired(sagaId);
+        dispatch(saga, createStepPending(saga, saga.isInventoryOutcomeKnown())
+                ? SagaEventType.INVENTORY_RESERVE_FAILED : SagaEventType.INVENTORY_RELEASE_FAILED, orderId, reason, 0);
     }
 
     @Transactional
-    public void onInventoryReserveFailed(InventoryEvents.InventoryReserveFailedEvent evt) {
-        OrderSaga saga = sagaRepository.getRequired(evt.sagaId());
-        if (saga.getStatus() != SagaStatus.CREATE_FLOW) return;
-        if (saga.isCompleted() || saga.isFailed()) return;
+    public void onPaymentSuccess(String sagaId, String orderId) {
+        OrderSaga saga = sagaRepository.getRequired(sagaId);
+        dispatch(saga, createStepPending(saga, saga.isPaymentOutcomeKnown())
+                ? SagaEventType.PAYMENT_CAPTURED : SagaEventType.PAYMENT_REFUNDED, orderId, null, 0);
+    }
 
-        saga.onInventoryReserveFailed("Inventory reserve failed: " + evt.reason());
-        sagaRepository.save(saga);
+    @Transactional
+    public void onPaymentFailed(String sagaId, String orderId, String reason) {
+        OrderSaga saga = sagaRepository.getRequired(sagaId);
+        dispatch(saga, createStepPending(saga, saga.isPaymentOutcomeKnown())
+                ? SagaEventType.PAYMENT_CAPTURE_FAILED : SagaEventType.PAYMENT_REFUND_FAILED, orderId, reason, 0);
+    }
 
-        // business: reserve fail => cancel order
-        Order order = orderRepository.getRequired(OrderId.of(evt.orderId()));
-        order.cancel("Inventory reserve failed: " + evt.reason());
-        orderRepository.save(order);
+    /**
+     * Create flow => kết quả của bước create; parallel cancel flow mà bước chưa có kết quả
+     * => vẫn là kết quả create tới muộn; còn lại là kết quả bù trừ.
+     */
+    private static boolean createStepPending(OrderSaga saga, boolean outcomeKnown) {
+        SagaPhase phase = SagaPhase.of(saga);
+        return phase == SagaPhase.CREATE || phase == SagaPhase.CREATE_PARALLEL
+                || (phase == SagaPhase.CANCEL_PARALLEL && !outcomeKnown);
+    }
 
-        // KHÔNG throw để tránh poison pill
+    private void fire(SagaEventType event, String sagaId, String orderId, String reason) {
+        dispatch(sagaRepository.getRequired(sagaId), event, orderId, reason, 0);
     }
 
-    @Transactional
-    public void onInventoryReleased(InventoryEvents.InventoryReleasedEvent evt) {
-        OrderSaga saga = sagaRepository.getRequired(evt.sagaId());
-        if (saga.getStatus() != SagaStatus.CANCEL_FLOW) return;
-        if (saga.isCompleted() || saga.isFailed()) return;
+    private void dispatch(OrderSaga saga, SagaEventType event, String orderId, String reason, int attempt) {
+        SagaContext ctx = new SagaContext(saga, orderId, reason, attempt, orderRepository);
+        SagaPhase phase = SagaPhase.of(saga);
+        var transition = transitions.find(phase, event, ctx);
+        if (transition == null) {
+            // kết quả bù trừ tới khi saga còn ở create (state chưa kịp đi tiếp) => fail để đi retry tier
+            if (transitions.isDeferred(phase, event)) {
+                throw new SagaEventTooEarlyException("Saga " + saga.getId() + " in " + phase + " not ready for " + event);
+            }
+            return; // trùng / tới muộn / không áp dụng cho flow này => bỏ qua, KHÔNG throw
+        }
 
-        if (saga.isInventoryCompensationDone()) return;
+        transition.action().accept(ctx);
 
-        saga.onInventoryReleased();
-        sagaRepository.save(saga);
+        if (transition.persist()) save(saga);
+        Order changed = ctx.changedOrder();
+        if (changed != null) save(changed);
 
-        maybeCompleteCancelSaga(evt.orderId(), saga);
+        // phase kết thúc không còn transition nào => tới đây và đã kết thúc nghĩa là bước này vừa kết thúc saga
+        if (SagaPhase.of(saga).isTerminal()) {
+            Order order = ctx.loadedOrder();
+            metricsPort.sagaFinished(saga, order == null ? null : order.getStatus());
+        }
     }
 
-    @Transactional
-    public void onInventoryReleaseFailed(InventoryEvents.InventoryReleaseFailedEvent evt) {
-        OrderSaga saga = sagaRepository.getRequired(evt.sagaId());
-        if (saga.getStatus() != SagaStatus.CANCEL_FLOW) return;
-        if (saga.isCompleted() || saga.isFailed()) return;
+    // =========================================================
+    //  Bảng chuyển trạng thái
+    // =========================================================
 
-        saga.onInventoryReleaseFailed("Inventory release failed: " + evt.reason());
-        sagaRepository.save(saga);
+    // test coverage / benchmark dispatch đọc thẳng bảng
+    public SagaTransitionTable<SagaPhase, SagaEventType, SagaContext> transitions() {
+        return transitions;
+    }
+
+    private SagaTransitionTable<SagaPhase, SagaEventType, SagaContext> buildTransitions() {
+        var b = SagaTransitionTable.<SagaPhase, SagaEventType, SagaContext>builder(SagaPhase.class, SagaEventType.class);
+
+        Predicate<SagaContext> inventoryNotReserved = ctx -> !ctx.saga().isInventoryReservedDone();
+        Predicate<SagaContext> paymentNotCaptured = ctx -> !ctx.saga().isPaymentCapturedDone();
+        Predicate<SagaContext> inventoryOutcomePending = ctx -> !ctx.saga().isInventoryOutcomeKnown();
+        Predicate<SagaContext> paymentOutcomePending = ctx -> !ctx.saga().isPaymentOutcomeKnown();
+        Predicate<SagaContext> canRetry = ctx -> ctx.attempt() < maxTimeoutRetries;
+
+        // ----- create (tuần tự): reserve -> capture -> confirm
+        b.on(SagaPhase.CREATE, SagaEventType.INVENTORY_RESERVED, "reserved-then-capture", inventoryNotReserved, ctx -> {
+                    markInventoryReserved(ctx);
+                    paymentCommandPort.sendCapturePayment(capturePaymentCommand(ctx.sagaId(), ctx.order()));
+                })
+                .on(SagaPhase.CREATE, SagaEventType.INVENTORY_RESERVE_FAILED, "reserve-failed", ctx -> {
+                    // business: reserve fail => cancel order, saga kết thúc (không có gì để bù trừ)
+                    String reason = "Inventory reserve failed: " + ctx.reason();
+                    ctx.saga().onInventoryReserveFailed(reason);
+                    ctx.changeOrder().cancel(reason);
+                })
+                .defer(SagaPhase.CREATE, SagaEventType.INVENTORY_RELEASED)
+                .defer(SagaPhase.CREATE, SagaEventType.INVENTORY_RELEASE_FAILED)
+                .on(SagaPhase.CREATE, SagaEventType.PAYMENT_CAPTURED, "captured", paymentNotCaptured, this::paymentCaptured)
+                .on(SagaPhase.CREATE, SagaEventType.PAYMENT_CAPTURE_FAILED, "capture-failed", this::createCaptureFailed)
+                .defer(SagaPhase.CREATE, SagaEventType.PAYMENT_REFUNDED)
+                .defer(SagaPhase.CREATE, SagaEventType.PAYMENT_REFUND_FAILED);
+
+        // ----- create (song song): reserve + capture cùng lúc, đủ 2 kết quả mới kết thúc
+        b.on(SagaPhase.CREATE_PARALLEL, SagaEventType.INVENTORY_RESERVED, "reserved", inventoryNotReserved, ctx -> {
+                    markInventoryReserved(ctx);
+                    finishCreateStep(ctx);
+                })
+                .on(SagaPhase.CREATE_PARALLEL, SagaEventType.INVENTORY_RESERVE_FAILED, "reserve-failed-compensate",
+                        inventoryOutcomePending, this::parallelReserveFailed)
+                .defer(SagaPhase.CREATE_PARALLEL, SagaEventType.INVENTORY_RELEASED)
+                .defer(SagaPhase.CREATE_PARALLEL, SagaEventType.INVENTORY_RELEASE_FAILED)
+                .on(SagaPhase.CREATE_PARALLEL, SagaEventType.PAYMENT_CAPTURED, "captured", paymentNotCaptured, this::paymentCaptured)
+                .on(SagaPhase.CREATE_PARALLEL, SagaEventType.PAYMENT_CAPTURE_FAILED, "capture-failed", this::createCaptureFailed)
+                .defer(SagaPhase.CREATE_PARALLEL, SagaEventType.PAYMENT_REFUNDED)
+                .defer(SagaPhase.CREATE_PARALLEL, SagaEventType.PAYMENT_REFUND_FAILED);
+
+        // ----- cancel: chỉ nhận kết quả bù trừ
+        b.ignore(SagaPhase.CANCEL, SagaEventType.INVENTORY_RESERVED)
+                .ignore(SagaPhase.CANCEL, SagaEventType.INVENTORY_RESERVE_FAILED)
+                .ignore(SagaPhase.CANCEL, SagaEventType.PAYMENT_CAPTURED)
+                .ignore(SagaPhase.CANCEL, SagaEventType.PAYMENT_CAPTURE_FAILED);
+
+        // ----- cancel sau parallel create fail: kết quả create tới muộn vẫn phải xử lý (bù trừ thêm / chốt)
+        b.on(SagaPhase.CANCEL_PARALLEL, SagaEventType.INVENTORY_RESERVED, "late-reserved-release", inventoryNotReserved, ctx -> {
+                    ctx.saga().onLateInventoryReserved();
+                    ctx.changeOrder().markInventoryReserved();
+                    inventoryCommandPort.sendReleaseInventory(new InventoryCommands.ReleaseInventoryCommand(
+                            ctx.sagaId(), ctx.orderId(), "Compensation: inventory reserved after create failed", Instant.now()));
+                })
+                .on(SagaPhase.CANCEL_PARALLEL, SagaEventType.INVENTORY_RESERVE_FAILED, "late-reserve-failed",
+                        inventoryOutcomePending, ctx -> {
+                            ctx.saga().onParallelInventoryReserveFailed("Inventory reserve failed: " + ctx.reason());
+                            maybeCompleteCancelSaga(ctx);
+                        })
+                .on(SagaPhase.CANCEL_PARALLEL, SagaEventType.PAYMENT_CAPTURED, "late-captured-refund", paymentNotCaptured, ctx -> {
+                    ctx.saga().onLatePaymentCaptured();
+                    ctx.changeOrder().markPaid();
+                    paymentCommandPort.sendRefundPayment(new PaymentCommands.RefundPaymentCommand(
+                            ctx.sagaId(), ctx.orderId(), "Compensation: payment captured after create failed", Instant.now()));
+                })
+                .on(SagaPhase.CANCEL_PARALLEL, SagaEventType.PAYMENT_CAPTURE_FAILED, "late-capture-failed",
+                        paymentOutcomePending, ctx -> {
+                            ctx.saga().onPaymentCaptureFailed("Payment capture failed: " + ctx.reason());
+                            maybeCompleteCancelSaga(ctx);
+                        });
+
+        for (SagaPhase cancel : List.of(SagaPhase.CANCEL, SagaPhase.CANCEL_PARALLEL)) {
+            b.on(cancel, SagaEventType.INVENTORY_RELEASED, "released",
+                            ctx -> !ctx.saga().isInventoryCompensationDone(), ctx -> {
+                                ctx.saga().onInventoryReleased();
+                                maybeCompleteCancelSaga(ctx);
+                            })
+                    .on(cancel, SagaEventType.INVENTORY_RELEASE_FAILED, "release-failed",
+                            ctx -> ctx.saga().onInventoryReleaseFailed("Inventory release failed: " + ctx.reason()))
+                    .on(cancel, SagaEventType.PAYMENT_REFUNDED, "refunded",
+                            ctx -> !ctx.saga().isPaymentCompensationDone(), ctx -> {
+                                ctx.saga().onPaymentRefunded();
+                                maybeCompleteCancelSaga(ctx);
+                            })
+                    .on(cancel, SagaEventType.PAYMENT_REFUND_FAILED, "refund-failed",
+                            ctx -> ctx.saga().onPaymentRefundFailed("Payment refund failed: " + ctx.reason()))
+                    // retry chỉ dời deadline (attempt + 1), save saga sẽ reset attempt về 0
+                    .onWithoutPersist(cancel, SagaEventType.TIMEOUT, "timeout-retry", canRetry, this::resendPendingCommands)
+                    .on(cancel, SagaEventType.TIMEOUT, "timeout-fail", ctx -> ctx.saga().fail("Compensation timed out"));
+        }
 
-        // KHÔNG throw
+        for (SagaPhase create : List.of(SagaPhase.CREATE, SagaPhase.CREATE_PARALLEL)) {
+            b.onWithoutPersist(create, SagaEventType.TIMEOUT, "timeout-retry", canRetry, this::resendPendingCommands)
+                    .on(create, SagaEventType.TIMEOUT, "timeout-compensate", this::createTimedOut);
+        }
+
+        // ----- kết thúc: mọi event đều bỏ qua, deadline còn sót thì huỷ
+        for (SagaPhase terminal : List.of(SagaPhase.COMPLETED, SagaPhase.FAILED)) {
+            for (SagaEventType event : SagaEventType.values()) {
+                if (event != SagaEventType.TIMEOUT) b.ignore(terminal, event);
+            }
+            b.onWithoutPersist(terminal, SagaEventType.TIMEOUT, "cancel-deadline", ctx -> true,
+                    ctx -> deadlinePort.cancel(ctx.sagaId()));
+        }
+
+        return b.build();
     }
 
     // =========================================================
-    //  Payment events (create/cancel)
+    //  Actions
     // =========================================================
 
-    @Transactional
-    public void onPaymentCaptured(PaymentEvents.PaymentCapturedEvent evt) {
-        OrderSaga saga = sagaRepository.getRequired(evt.sagaId());
-        if (saga.getStatus() != SagaStatus.CREATE_FLOW) return;
-        if (saga.isCompleted() || saga.isFailed()) return;
-
-        if (saga.isPaymentCapturedDone()) return;
+    private void markInventoryReserved(SagaContext ctx) {
+        ctx.saga().onInventoryReserved();
+        // update order snapshot flags ASAP để cancel saga không bị sai
+        ctx.changeOrder().markInventoryReserved();
+    }
 
-        saga.onPaymentCaptured();
-        sagaRepository.save(saga);
+    private void paymentCaptured(SagaContext ctx) {
+        ctx.saga().onPaymentCaptured();
+        ctx.changeOrder().markPaid();
+        finishCreateStep(ctx);
+    }
 
-        Order order = orderRepository.getRequired(OrderId.of(evt.orderId()));
-        order.markPaid();
-        orderRepository.save(order);
+    /**
+     * Sau mỗi bước create thành công: cancel đã được yêu cầu => bù trừ; đủ 2 bước => confirm.
+     */
+    private void finishCreateStep(SagaContext ctx) {
+        OrderSaga saga = ctx.saga();
+        Order order = ctx.order();
 
-        // nếu cancel requested trong lúc create flow đang chạy -> chuyển sang cancel flow & bù trừ
-        if (order.getStatus() == OrderStatus.CANCEL_REQUESTED) {
+        // nếu cancel requested (hoặc cancel saga riêng đã chạy xong) trong lúc create flow đang chạy
+        // -> chuyển sang cancel flow & bù trừ
+        if (order.getStatus() == OrderStatus.CANCEL_REQUESTED || order.getStatus() == OrderStatus.CANCELLED) {
             saga.switchToCancelFlow("Cancel requested while create-flow in progress", order);
-            sagaRepository.save(saga);
-
-            if (saga.isPaymentCompensationRequired()) {
-                paymentCommandPort.sendRefundPayment(new PaymentCommands.RefundPaymentCommand(
-                        evt.sagaId(),
-                        evt.orderId(),
-                        "Compensation: cancel requested during create",
-                        Instant.now()
-                ));
-            }
-            if (saga.isInventoryCompensationRequired()) {
-                inventoryCommandPort.sendReleaseInventory(new InventoryCommands.ReleaseInventoryCommand(
-                        evt.sagaId(),
-                        evt.orderId(),
-                        "Compensation: cancel requested during create",
-                        Instant.now()
-                ));
-            }
+            sendCompensation(ctx, "Compensation: cancel requested during create", "Compensation: cancel requested during create");
             return;
         }
 
         // bình thường: đủ bước -> confirm + complete saga
         if (saga.isCreateFlowDone()) {
-            order.confirm();
-            orderRepository.save(order);
-
+            ctx.changeOrder().confirm();
             saga.complete();
-            sagaRepository.save(saga);
         }
     }
 
-    @Transactional
-    public void onPaymentCaptureFailed(PaymentEvents.PaymentCaptureFailedEvent evt) {
-        OrderSaga saga = sagaRepository.getRequired(evt.sagaId());
-        if (saga.getStatus() != SagaStatus.CREATE_FLOW) return;
-        if (saga.isCompleted() || saga.isFailed()) return;
+    /**
+     * Parallel: capture có thể đã xong (=> refund) hoặc vẫn đang chạy (=> chờ, xong muộn thì refund ở late-captured).
+     */
+    private void parallelReserveFailed(SagaContext ctx) {
+        OrderSaga saga = ctx.saga();
+        String reason = "Inventory reserve failed: " + ctx.reason();
+        saga.onParallelInventoryReserveFailed(reason);
+
+        Order order = ctx.changeOrder();
+        order.cancel(reason);
+
+        saga.switchToCancelFlow(reason, order);
+        if (saga.isPaymentCompensationRequired()) {
+            paymentCommandPort.sendRefundPayment(new PaymentCommands.RefundPaymentCommand(
+                    ctx.sagaId(), ctx.orderId(), "Compensation: inventory reserve failed", Instant.now()));
+        }
+        maybeCompleteCancelSaga(ctx);
+    }
 
-        Order order = orderRepository.getRequired(OrderId.of(evt.orderId()));
-        String reason = "Payment capture failed: " + evt.reason();
+    private void createCaptureFailed(SagaContext ctx) {
+        OrderSaga saga = ctx.saga();
+        String reason = "Payment capture failed: " + ctx.reason();
 
+        Order order = ctx.changeOrder();
         order.cancel(reason);
-        orderRepository.save(order);
 
         // chuyển sang cancel flow để chạy compensation có track state
+        saga.onPaymentCaptureFailed(reason);
         saga.switchToCancelFlow(reason, order);
-        sagaRepository.save(saga);
 
         if (!saga.isInventoryCompensationRequired() && !saga.isPaymentCompensationRequired()) {
-            saga.complete();
-            sagaRepository.save(saga);
+            // parallel: reserve còn đang chạy => chờ kết quả (xong muộn thì release ở late-reserved)
+            if (saga.isCompensationFullyDone()) {
+                saga.complete();
+            }
             return;
         }
+        sendCompensation(ctx, "Compensation: create failed", "Compensation: payment capture failed");
+    }
+
+    private void createTimedOut(SagaContext ctx) {
+        OrderSaga saga = ctx.saga();
+        String reason = "Saga timed out waiting for " + (saga.isInventoryOutcomeKnown() ? "payment" : "inventory");
 
+        Order order = ctx.changeOrder();
+        order.cancel(reason);
+
+        saga.switchToCancelFlow(reason, order);
+        saga.requireCompensationForPendingSteps(reason);
+        sendCompensation(ctx, "Compensation: saga timed out", "Compensation: saga timed out");
+    }
+
+    private void sendCompensation(SagaContext ctx, String refundReason, String releaseReason) {
+        OrderSaga saga = ctx.saga();
         if (saga.isPaymentCompensationRequired()) {
             paymentCommandPort.sendRefundPayment(new PaymentCommands.RefundPaymentCommand(
-                    evt.sagaId(),
-                    evt.orderId(),
-                    "Compensation: create failed",
-                    Instant.now()
-            ));
+                    ctx.sagaId(), ctx.orderId(), refundReason, Instant.now()));
         }
-
         if (saga.isInventoryCompensationRequired()) {
             inventoryCommandPort.sendReleaseInventory(new InventoryCommands.ReleaseInventoryCommand(
-                    evt.sagaId(),
-                    evt.orderId(),
-                    "Compensation: payment capture failed",
-                    Instant.now()
-            ));
+                    ctx.sagaId(), ctx.orderId(), releaseReason, Instant.now()));
         }
     }
 
-    @Transactional
-    public void onPaymentRefunded(PaymentEvents.PaymentRefundedEvent evt) {
-        OrderSaga saga = sagaRepository.getRequired(evt.sagaId());
-        if (saga.getStatus() != SagaStatus.CANCEL_FLOW) return;
-        if (saga.isCompleted() || saga.isFailed()) return;
+    private void resendPendingCommands(SagaContext ctx) {
+        OrderSaga saga = ctx.saga();
+        String sagaId = saga.getId();
+        String orderId = saga.getOrderId();
 
-        if (saga.isPaymentCompensationDone()) return;
-
-        saga.onPaymentRefunded();
-        sagaRepository.save(saga);
+        if (saga.getStatus() == SagaStatus.CREATE_FLOW) {
+            if (!saga.isInventoryOutcomeKnown()) {
+                inventoryCommandPort.sendReserveInventory(reserveInventoryCommand(sagaId, ctx.order()));
+            }
+            // tuần tự: capture chỉ được gửi sau khi reserve xong
+            if ((saga.isParallel() || saga.isInventoryReservedDone()) && !saga.isPaymentOutcomeKnown()) {
+                paymentCommandPort.sendCapturePayment(capturePaymentCommand(sagaId, ctx.order()));
+            }
+        } else {
+            // parallel cancel flow còn chờ bước create chưa có kết quả => không có gì để gửi lại, chờ lần timeout cuối
+            if (saga.isPaymentCompensationRequired() && !saga.isPaymentCompensationDone()) {
+                paymentCommandPort.sendRefundPayment(new PaymentCommands.RefundPaymentCommand(
+                        sagaId, orderId, "Compensation retry: no response", Instant.now()));
+            }
+            if (saga.isInventoryCompensationRequired() && !saga.isInventoryCompensationDone()) {
+                inventoryCommandPort.sendReleaseInventory(new InventoryCommands.ReleaseInventoryCommand(
+                        sagaId, orderId, "Compensation retry: no response", Instant.now()));
+            }
+        }
 
-        maybeCompleteCancelSaga(evt.orderId(), saga);
+        int attempt = ctx.attempt();
+        deadlinePort.schedule(sagaId, Instant.now().plus(Duration.ofMillis(stepTimeoutMs * (attempt + 2))), attempt + 1);
     }
 
-    @Transactional
-    public void onPaymentRefundFailed(PaymentEvents.PaymentRefundFailedEvent evt) {
-        OrderSaga saga = sagaRepository.getRequired(evt.sagaId());
+    private void maybeCompleteCancelSaga(SagaContext ctx) {
+        OrderSaga saga = ctx.saga();
         if (saga.getStatus() != SagaStatus.CANCEL_FLOW) return;
-        if (saga.isCompleted() || saga.isFailed()) return;
-
-        saga.onPaymentRefundFailed("Payment refund failed: " + evt.reason());
-        sagaRepository.save(saga);
+        if (!saga.isCompensationFullyDone()) return;
 
-        // KHÔNG throw
+        ctx.changeOrder().cancel("Cancel completed");
+        saga.complete();
     }
 
-    private void maybeCompleteCancelSaga(String orderIdRaw, OrderSaga saga) {
-        if (saga.getStatus() != SagaStatus.CANCEL_FLOW) return;
-        if (!saga.isCompensationFullyDone()) return;
+    /**
+     * Mọi thay đổi saga đi qua đây: còn chờ phản hồi => (re)arm deadline của bước hiện tại, kết thúc => huỷ deadline.
+     */
+    private void save(OrderSaga saga) {
+        sagaRepository.save(saga);
+        if (saga.isCompleted() || saga.isFailed()) {
+            deadlinePort.cancel(saga.getId());
+        } else {
+            deadlinePort.schedule(saga.getId(), Instant.now().plus(Duration.ofMillis(stepTimeoutMs)), 0);
+        }
+    }
 
-        Order order = orderRepository.getRequired(OrderId.of(orderIdRaw));
-        order.cancel("Cancel completed");
+    private void save(Order order) {
         orderRepository.save(order);
+        if (order.getStatus() == OrderStatus.CONFIRMED || order.getStatus() == OrderStatus.CANCELLED) {
+            outcomePort.settled(order);
+        }
+    }
 
-        saga.complete();
-        sagaRepository.save(saga);
+    private InventoryCommands.ReserveInventoryCommand reserveInventoryCommand(String sagaId, Order order) {
+        return new InventoryCommands.ReserveInventoryCommand(
+                sagaId,
+                order.getId().value(),
+                order.getCustomerId().value(),
+                order.getLines().stream()
+                        .map(l -> new InventoryCommands.ReserveInventoryCommand.Item(
+                                l.getSku(),
+                                l.getQuantity(),
+                                l.getUnitPrice()
+                        ))
+                        .toList(),
+                Instant.now()
+        );
+    }
+
+    private PaymentCommands.CapturePaymentCommand capturePaymentCommand(String sagaId, Order order) {
+        return new PaymentCommands.CapturePaymentCommand(
+                sagaId,
+                order.getId().value(),
+                order.getCustomerId().value(),
+                order.getTotal().amount(),
+                order.getTotal().currency(),
+                Instant.now()
+        );
     }
 }
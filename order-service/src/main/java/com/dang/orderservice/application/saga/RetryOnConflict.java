@@ -0,0 +1,18 @@
+package com.dang.orderservice.application.saga;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Method (hoặc mọi method public của class) chạy lại cả transaction khi gặp xung đột ghi
+ * (version lệch, trùng seq event, deadlock...), backoff có jitter và giới hạn số lần.
+ * Chỉ có tác dụng ở transaction ngoài cùng: gọi từ trong transaction khác thì lỗi để transaction ngoài xử lý.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RetryOnConflict {
+}
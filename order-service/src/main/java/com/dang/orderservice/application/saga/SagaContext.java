@@ -0,0 +1,58 @@
+package com.dang.orderservice.application.saga;
+
+import com.dang.orderservice.domain.model.aggregates.Order;
+import com.dang.orderservice.domain.model.aggregates.OrderSaga;
+import com.dang.orderservice.domain.model.valueobjects.OrderId;
+import com.dang.orderservice.domain.repository.OrderRepository;
+
+/**
+ * Trạng thái của 1 lần xử lý event: saga đã load, order load lười (chỉ khi transition cần),
+ * đánh dấu order đã đổi để engine save đúng 1 lần ở cuối.
+ */
+public final class SagaContext {
+
+    private final OrderSaga saga;
+    private final String orderId;
+    private final String reason;
+    private final int attempt;
+    private final OrderRepository orderRepository;
+
+    private Order order;
+    private boolean orderChanged;
+
+    public SagaContext(OrderSaga saga, String orderId, String reason, int attempt, OrderRepository orderRepository) {
+        this.saga = saga;
+        this.orderId = orderId;
+        this.reason = reason;
+        this.attempt = attempt;
+        this.orderRepository = orderRepository;
+    }
+
+    public OrderSaga saga() { return saga; }
+    public String sagaId() { return saga.getId(); }
+    public String orderId() { return orderId; }
+    public String reason() { return reason; }
+    public int attempt() { return attempt; }
+
+    /** Chỉ đọc (vd. dựng lại command); sửa order thì dùng {@link #changeOrder()}. */
+    public Order order() {
+        if (order == null) {
+            order = orderRepository.getRequired(OrderId.of(orderId));
+        }
+        return order;
+    }
+
+    public Order changeOrder() {
+        orderChanged = true;
+        return order();
+    }
+
+    Order changedOrder() {
+        return orderChanged ? order : null;
+    }
+
+    // order nếu transition đã load (không tự load thêm)
+    Order loadedOrder() {
+        return order;
+    }
+}
@@ -0,0 +1,16 @@
+package com.dang.orderservice.application.saga;
+
+/**
+ * Event cột của bảng chuyển saga: kết quả của từng bước từ inventory/payment + deadline.
+ */
+public enum SagaEventType {
+    INVENTORY_RESERVED,
+    INVENTORY_RESERVE_FAILED,
+    INVENTORY_RELEASED,
+    INVENTORY_RELEASE_FAILED,
+    PAYMENT_CAPTURED,
+    PAYMENT_CAPTURE_FAILED,
+    PAYMENT_REFUNDED,
+    PAYMENT_REFUND_FAILED,
+    TIMEOUT
+}
@@ -0,0 +1,29 @@
+package com.dang.orderservice.application.saga;
+
+import com.dang.orderservice.domain.model.aggregates.OrderSaga;
+
+/**
+ * State của bảng chuyển: SagaStatus tách thêm theo chế độ tuần tự / song song,
+ * để nhánh "parallel" nằm ở key của bảng thay vì if trong từng handler.
+ */
+public enum SagaPhase {
+    CREATE,
+    CREATE_PARALLEL,
+    CANCEL,
+    CANCEL_PARALLEL,
+    COMPLETED,
+    FAILED;
+
+    public static SagaPhase of(OrderSaga saga) {
+        return switch (saga.getStatus()) {
+            case CREATE_FLOW -> saga.isParallel() ? CREATE_PARALLEL : CREATE;
+            case CANCEL_FLOW -> saga.isParallel() ? CANCEL_PARALLEL : CANCEL;
+            case COMPLETED -> COMPLETED;
+            case FAILED -> FAILED;
+        };
+    }
+
+    public boolean isTerminal() {
+        return this == COMPLETED || this == FAILED;
+    }
+}
@@ -0,0 +1,122 @@
+package com.dang.orderservice.application.saga;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Bảng chuyển trạng thái đặc: mảng [state.ordinal][event.ordinal], mỗi ô là danh sách transition có guard
+ * (transition đầu tiên có guard đúng được chạy). Dispatch = 2 lần index mảng + guard, không rẽ nhánh theo flow.
+ *
+ * Ô phải được khai báo rõ (transition, {@link Builder#ignore} hoặc {@link Builder#defer}) để test coverage bắt được
+ * cặp bị quên; ô khai báo ignore hoặc không guard nào khớp => event bị bỏ qua (idempotent);
+ * ô defer => event tới sớm hơn state, caller cho fail để đi retry tier.
+ */
+public final class SagaTransitionTable<S extends Enum<S>, E extends Enum<E>, C> {
+
+    private static final Transition<?>[] NONE = new Transition<?>[0];
+
+    private final Transition<C>[][][] cells;
+    private final boolean[][] declared;
+    private final boolean[][] deferred;
+
+    private SagaTransitionTable(Transition<C>[][][] cells, boolean[][] declared, boolean[][] deferred) {
+        this.cells = cells;
+        this.declared = declared;
+        this.deferred = deferred;
+    }
+
+    public static <S extends Enum<S>, E extends Enum<E>, C> Builder<S, E, C> builder(Class<S> states, Class<E> events) {
+        return new Builder<>(states, events);
+    }
+
+    /** Transition chạy cho (state, event), null nếu event bị bỏ qua. */
+    public Transition<C> find(S state, E event, C ctx) {
+        for (Transition<C> t : cells[state.ordinal()][event.ordinal()]) {
+            if (t.guard.test(ctx)) return t;
+        }
+        return null;
+    }
+
+    public boolean isDeclared(S state, E event) {
+        return declared[state.ordinal()][event.ordinal()];
+    }
+
+    /** Event chưa áp dụng được ở state này nhưng có thể áp dụng khi state đi tiếp. */
+    public boolean isDeferred(S state, E event) {
+        return deferred[state.ordinal()][event.ordinal()];
+    }
+
+    public int transitionCount(S state, E event) {
+        return cells[state.ordinal()][event.ordinal()].length;
+    }
+
+    /**
+     * @param persist false => action tự lo phần ghi (vd. timeout retry chỉ dời deadline, không save saga)
+     */
+    public record Transition<C>(String name, Predicate<C> guard, Consumer<C> action, boolean persist) {
+    }
+
+    public static final class Builder<S extends Enum<S>, E extends Enum<E>, C> {
+
+        private final List<List<Transition<C>>> cells = new ArrayList<>();
+        private final boolean[][] declared;
+        private final boolean[][] deferred;
+        private final int eventCount;
+
+        private Builder(Class<S> states, Class<E> events) {
+            int stateCount = states.getEnumConstants().length;
+            this.eventCount = events.getEnumConstants().length;
+            this.declared = new boolean[stateCount][eventCount];
+            this.deferred = new boolean[stateCount][eventCount];
+            for (int i = 0; i < stateCount * eventCount; i++) cells.add(new ArrayList<>());
+        }
+
+        public Builder<S, E, C> on(S state, E event, String name, Predicate<C> guard, Consumer<C> action) {
+            return add(state, event, new Transition<>(name, guard, action, true));
+        }
+
+        public Builder<S, E, C> on(S state, E event, String name, Consumer<C> action) {
+            return on(state, event, name, ctx -> true, action);
+        }
+
+        public Builder<S, E, C> onWithoutPersist(S state, E event, String name, Predicate<C> guard, Consumer<C> action) {
+            return add(state, event, new Transition<>(name, guard, action, false));
+        }
+
+        public Builder<S, E, C> ignore(S state, E event) {
+            declared[state.ordinal()][event.ordinal()] = true;
+            return this;
+        }
+
+        public Builder<S, E, C> defer(S state, E event) {
+            declared[state.ordinal()][event.ordinal()] = true;
+            deferred[state.ordinal()][event.ordinal()] = true;
+            return this;
+        }
+
+        private Builder<S, E, C> add(S state, E event, Transition<C> transition) {
+            cells.get(state.ordinal() * eventCount + event.ordinal()).add(transition);
+            declared[state.ordinal()][event.ordinal()] = true;
+            return this;
+        }
+
+        @SuppressWarnings("unchecked")
+        public SagaTransitionTable<S, E, C> build() {
+            Transition<C>[][][] dense = new Transition[declared.length][eventCount][];
+            for (int s = 0; s < declared.length; s++) {
+                for (int e = 0; e < eventCount; e++) {
+                    List<Transition<C>> list = cells.get(s * eventCount + e);
+                    dense[s][e] = list.isEmpty() ? (Transition<C>[]) NONE : list.toArray(new Transition[0]);
+                }
+            }
+            return new SagaTransitionTable<>(dense, copy(declared), copy(deferred));
+        }
+
+        private static boolean[][] copy(boolean[][] flags) {
+            return Arrays.stream(flags).map(boolean[]::clone).toArray(boolean[][]::new);
+        }
+    }
+}
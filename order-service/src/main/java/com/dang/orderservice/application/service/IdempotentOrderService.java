@@ -0,0 +1,81 @@
+package com.dang.orderservice.application.service;
+
+import com.dang.orderservice.application.commands.CreateOrderCommand;
+import com.dang.orderservice.application.dtos.OrderResponse;
+import com.dang.orderservice.application.exceptions.BadRequestException;
+import com.dang.orderservice.application.port.CurrentUserPort;
+import com.dang.orderservice.application.port.IdempotencyPort;
+import com.dang.orderservice.domain.model.valueobjects.OrderId;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * POST /api/orders có Idempotency-Key: retry của client trả lại order cũ, không tạo order/saga mới.
+ * - key đã dùng: cache recent-keys / bảng idempotency_keys
+ * - duplicate tới cùng lúc trên 1 instance: single-flight, chỉ request đầu chạy, các request sau chờ kết quả của nó
+ * - duplicate trên instance khác: claim trong DB xếp hàng sau transaction đầu tiên
+ */
+@Service
+public class IdempotentOrderService {
+
+    private record InFlight(String requestHash, CompletableFuture<OrderResponse> result) {}
+
+    private final OrderApplicationService orderApp;
+    private final IdempotencyPort idempotency;
+    private final CurrentUserPort currentUser;
+    private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotentOrderService(OrderApplicationService orderApp, IdempotencyPort idempotency, CurrentUserPort currentUser) {
+        this.orderApp = orderApp;
+        this.idempotency = idempotency;
+        this.currentUser = currentUser;
+    }
+
+    public OrderResponse create(OrderId orderId, CreateOrderCommand command, String idempotencyKey) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > 128) {
+            throw new BadRequestException("Invalid Idempotency-Key");
+        }
+        // key theo từng customer: 2 user trùng key không đụng nhau
+        String scopeKey = currentUser.currentUserId() + ":" + idempotencyKey;
+        String requestHash = idempotency.requestHash(command);
+
+        Optional<IdempotencyPort.Entry> existing = idempotency.find(scopeKey);
+        if (existing.isPresent()) {
+            return orderApp.existingOrder(existing.get(), requestHash);
+        }
+
+        InFlight mine = new InFlight(requestHash, new CompletableFuture<>());
+        InFlight leader = inFlight.putIfAbsent(scopeKey, mine);
+        if (leader != null) {
+            if (!leader.requestHash().equals(requestHash)) {
+                throw new BadRequestException("Idempotency-Key was already used with a different request");
+            }
+            return await(leader.result());
+        }
+
+        try {
+            OrderResponse response = orderApp.createAndStartSaga(orderId, command, scopeKey, requestHash);
+            mine.result().complete(response);
+            return response;
+        } catch (RuntimeException ex) {
+            mine.result().completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(scopeKey, mine);
+        }
+    }
+
+    private static OrderResponse await(CompletableFuture<OrderResponse> result) {
+        try {
+            return result.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) throw cause;
+            throw ex;
+        }
+    }
+}
@@ -2,32 +2,108 @@ package com.dang.orderservice.application.service;
 
 import com.dang.orderservice.application.commands.CancelOrderCommand;
 import com.dang.orderservice.application.commands.CreateOrderCommand;
+import com.dang.orderservice.application.dtos.OrderHistoryResponse;
 import com.dang.orderservice.application.dtos.OrderResponse;
+import com.dang.orderservice.application.dtos.OrderSummaryResponse;
 import com.dang.orderservice.application.exceptions.BadRequestException;
 import com.dang.orderservice.application.port.CurrentUserPort;
+import com.dang.orderservice.application.port.IdempotencyPort;
+import com.dang.orderservice.application.port.OrderViewPort;
+import com.dang.orderservice.application.saga.OrderSagaOrchestrator;
 import com.dang.orderservice.domain.model.aggregates.Order;
+import com.dang.orderservice.domain.model.exception.NotFoundException;
 import com.dang.orderservice.domain.model.valueobjects.*;
 import com.dang.orderservice.domain.repository.OrderRepository;
+import org.jspecify.annotations.Nullable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
 @Service
 public class OrderApplicationService {
 
+    private static final int MAX_HISTORY_PAGE = 100;
+
     private final OrderRepository orderRepository;
     private final CurrentUserPort currentUser;
-
-    public OrderApplicationService(OrderRepository orderRepository, CurrentUserPort currentUser) {
+    private final OrderSagaOrchestrator saga;
+    private final OrderViewPort orderViews;
+    private final IdempotencyPort idempotency;
+
+    public OrderApplicationService(OrderRepository orderRepository,
+                                   CurrentUserPort currentUser,
+                                   OrderSagaOrchestrator saga,
+                                   OrderViewPort orderViews,
+                                   IdempotencyPort idempotency) {
         this.orderRepository = orderRepository;
         this.currentUser = currentUser;
+        this.saga = saga;
+        this.orderViews = orderViews;
+        this.idempotency = idempotency;
+    }
+
+    /**
+     * Tạo order + start create saga trong 1 transaction: order, order_lines (JDBC batch), saga, deadline
+     * và outbox command commit cùng lúc, command dựng từ aggregate trong bộ nhớ (không SELECT lại).
+     * Không còn khoảng hở "order đã lưu nhưng saga chưa start" giữa 2 transaction.
+     */
+    @Transactional
+    public OrderResponse createAndStartSaga(OrderId orderId, CreateOrderCommand command) {
+        Order order = newOrder(orderId, command);
+        orderRepository.save(order);
+        saga.startCreateOrderSaga(order);
+        return OrderResponseMapper.toResponse(order);
+    }
+
+    /**
+     * 1 chunk của batch API: mọi order trong chunk commit cùng nhau, insert orders / order_lines / order_sagas /
+     * outbox_messages được Hibernate gom thành JDBC batch lúc flush (upsert native không ép flush giữa chừng).
+     */
+    @Transactional
+    public List<OrderResponse> createAndStartSagaBatch(List<CreateOrderCommand> commands) {
+        List<OrderResponse> out = new ArrayList<>(commands.size());
+        for (CreateOrderCommand command : commands) {
+            out.add(createAndStartSaga(OrderId.generate(), command));
+        }
+        return out;
     }
 
+    /**
+     * Như trên nhưng giữ Idempotency-Key trong cùng transaction: key đã thuộc về order khác
+     * (kể cả request song song ở instance khác, claim chờ nó commit) => trả order đó, không tạo saga mới.
+     */
     @Transactional
-    public OrderResponse create(CreateOrderCommand command) {
+    public OrderResponse createAndStartSaga(OrderId orderId, CreateOrderCommand command, String scopeKey, String requestHash) {
+        if (!idempotency.claim(scopeKey, orderId.value(), requestHash)) {
+            IdempotencyPort.Entry existing = idempotency.find(scopeKey)
+                    .orElseThrow(() -> new IllegalStateException("Idempotency key vanished: " + scopeKey));
+            return existingOrder(existing, requestHash);
+        }
+        return createAndStartSaga(orderId, command);
+    }
+
+    /**
+     * Key đã dùng => order đã tạo cho key đó (đọc từ read model); key dùng lại cho request khác => 400.
+     */
+    public OrderResponse existingOrder(IdempotencyPort.Entry entry, String requestHash) {
+        if (!entry.requestHash().equals(requestHash)) {
+            throw new BadRequestException("Idempotency-Key was already used with a different request");
+        }
+        return orderViews.find(entry.orderId())
+                .orElseThrow(() -> new NotFoundException("Order not found: " + entry.orderId()));
+    }
+
+    private Order newOrder(OrderId orderId, CreateOrderCommand command) {
         var sa = command.shippingAddress();
 
         Order order = Order.create(
-                OrderId.generate(),
+                orderId,
                 CustomerId.of(currentUser.currentUserId()),
                 ShippingAddress.of(
                         sa.fullName(),
@@ -45,9 +121,7 @@ public class OrderApplicationService {
         for (var i : command.items()) {
             order.addLine(i.sku(), i.quantity(), i.unitPrice());
         }
-
-        orderRepository.save(order);
-        return OrderResponseMapper.toResponse(order);
+        return order;
     }
 
     @Transactional
@@ -81,17 +155,86 @@ public class OrderApplicationService {
         return OrderResponseMapper.toResponse(order);
     }
 
-    @Transactional(readOnly = true)
+    /**
+     * Đọc từ read model (cache / order_views), không load aggregate + order_lines.
+     */
     public OrderResponse getOrder(String orderIdRaw) {
-        Order order = orderRepository.getRequired(OrderId.of(orderIdRaw));
+        OrderResponse order = orderViews.find(OrderId.of(orderIdRaw).value())
+                .orElseThrow(() -> new NotFoundException("Order not found: " + orderIdRaw));
 
         if (!currentUser.isAdmin()) {
             CustomerId currentCustomer = CustomerId.of(currentUser.currentUserId());
-            if (!order.getCustomerId().equals(currentCustomer)) {
+            if (!CustomerId.of(order.customerId()).equals(currentCustomer)) {
                 throw new BadRequestException("You are not allowed to view this order");
             }
         }
 
-        return OrderResponseMapper.toResponse(order);
+        return order;
+    }
+
+    /**
+     * Trạng thái mới nhất của order vừa tạo trong chính request này (đã là chủ đơn lúc tạo => không check authZ,
+     * gọi được từ thread không có SecurityContext, vd. timeout của DeferredResult). Read model chưa có => bản lúc tạo.
+     */
+    public OrderResponse latestOf(OrderResponse created) {
+        return orderViews.find(created.orderId()).orElse(created);
+    }
+
+    /**
+     * Lịch sử order (keyset, không COUNT). customerId null => của user hiện tại; xem của người khác cần admin.
+     * before là cursor opaque lấy từ nextBefore của trang trước.
+     */
+    @Transactional(readOnly = true)
+    public OrderHistoryResponse history(@Nullable String customerId, @Nullable String status, @Nullable String before, int limit) {
+        String customer = (customerId == null || customerId.isBlank()) ? currentUser.currentUserId() : customerId;
+        if (!currentUser.isAdmin() && !customer.equals(currentUser.currentUserId())) {
+            throw new BadRequestException("You are not allowed to view orders of this customer");
+        }
+
+        OrderStatus statusFilter = parseStatus(status);
+        int size = Math.clamp(limit, 1, MAX_HISTORY_PAGE);
+
+        Instant beforeCreatedAt = null;
+        String beforeOrderId = null;
+        if (before != null && !before.isBlank()) {
+            String[] cursor = decodeCursor(before);
+            beforeCreatedAt = Instant.parse(cursor[0]);
+            beforeOrderId = cursor[1];
+        }
+
+        // lấy dư 1 dòng để biết còn trang sau mà không cần COUNT
+        List<OrderSummaryResponse> rows = orderViews.history(customer, statusFilter, beforeCreatedAt, beforeOrderId, size + 1);
+        if (rows.size() <= size) {
+            return new OrderHistoryResponse(rows, null);
+        }
+        List<OrderSummaryResponse> page = rows.subList(0, size);
+        OrderSummaryResponse last = page.get(size - 1);
+        return new OrderHistoryResponse(List.copyOf(page), encodeCursor(last.createdAt(), last.orderId()));
+    }
+
+    private static OrderStatus parseStatus(@Nullable String status) {
+        if (status == null || status.isBlank()) return null;
+        try {
+            return OrderStatus.valueOf(status.trim().toUpperCase());
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException("Invalid status: " + status);
+        }
+    }
+
+    private static String encodeCursor(Instant createdAt, String orderId) {
+        String raw = createdAt + "|" + orderId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 2);
+            if (parts.length != 2) throw new IllegalArgumentException(raw);
+            Instant.parse(parts[0]);
+            return parts;
+        } catch (IllegalArgumentException | DateTimeParseException ex) {
+            throw new BadRequestException("Invalid cursor: " + cursor);
+        }
     }
 }
@@ -0,0 +1,153 @@
+package com.dang.orderservice.application.service;
+
+import com.dang.orderservice.application.commands.CreateOrderCommand;
+import com.dang.orderservice.application.dtos.OrderBatchItemResult;
+import com.dang.orderservice.application.dtos.OrderResponse;
+import com.dang.orderservice.application.exceptions.BadRequestException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Nhận order hàng loạt (B2B / marketplace): đọc input theo chunk, validate song song trên virtual thread,
+ * mỗi chunk hợp lệ tạo order + saga + outbox trong 1 transaction (insert gom JDBC batch khi flush),
+ * trả kết quả từng chunk ngay cho caller stream về client.
+ */
+@Service
+public class OrderBatchService {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderBatchService.class);
+
+    private final OrderApplicationService orderApp;
+    private final Validator validator;
+
+    @Value("${app.orders.batch.chunk-size:200}")
+    private int chunkSize;
+
+    @Value("${app.orders.batch.max-items:10000}")
+    private int maxItems;
+
+    public OrderBatchService(OrderApplicationService orderApp, Validator validator) {
+        this.orderApp = orderApp;
+        this.validator = validator;
+    }
+
+    /**
+     * @param commands input đọc dần (iterator có thể ném lỗi parse giữa chừng; các chunk trước đó đã commit)
+     * @param sink     nhận kết quả theo chunk, đúng thứ tự index
+     * @return số item đã xử lý
+     * @throws RuntimeException input hỏng / vượt maxItems: mọi item đọc được trước đó đã có kết quả trong sink,
+     *                          nên item bị bỏ đầu tiên là item thứ (số kết quả đã nhận)
+     */
+    public int ingest(Iterator<CreateOrderCommand> commands, Consumer<List<OrderBatchItemResult>> sink) {
+        int index = 0;
+        List<CreateOrderCommand> chunk = new ArrayList<>(chunkSize);
+        RuntimeException stopped = null;
+        try (ExecutorService validators = Executors.newVirtualThreadPerTaskExecutor()) {
+            while (true) {
+                try {
+                    if (!commands.hasNext()) break;
+                    if (index + chunk.size() >= maxItems) {
+                        throw new BadRequestException("Batch exceeds " + maxItems + " orders");
+                    }
+                    chunk.add(commands.next());
+                } catch (RuntimeException ex) {
+                    // dừng đọc nhưng vẫn xử lý chunk đang dở bên dưới, không để item đã đọc mất kết quả
+                    stopped = ex;
+                    break;
+                }
+                if (chunk.size() == chunkSize) {
+                    sink.accept(processChunk(index, chunk, validators));
+                    index += chunk.size();
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                sink.accept(processChunk(index, chunk, validators));
+                index += chunk.size();
+            }
+        }
+        if (stopped != null) throw stopped;
+        return index;
+    }
+
+    private List<OrderBatchItemResult> processChunk(int baseIndex, List<CreateOrderCommand> chunk, ExecutorService validators) {
+        List<List<String>> violations = validateAll(chunk, validators);
+
+        List<OrderBatchItemResult> results = new ArrayList<>(chunk.size());
+        List<Integer> validIdx = new ArrayList<>(chunk.size());
+        List<CreateOrderCommand> valid = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            if (violations.get(i).isEmpty()) {
+                validIdx.add(baseIndex + i);
+                valid.add(chunk.get(i));
+            } else {
+                results.add(OrderBatchItemResult.invalid(baseIndex + i, violations.get(i)));
+            }
+        }
+
+        if (!valid.isEmpty()) {
+            try {
+                List<OrderResponse> created = orderApp.createAndStartSagaBatch(valid);
+                for (int i = 0; i < created.size(); i++) {
+                    results.add(OrderBatchItemResult.created(validIdx.get(i), created.get(i).orderId()));
+                }
+            } catch (Exception ex) {
+                // 1 order hỏng không kéo cả chunk: chạy lại từng order, mỗi order 1 transaction
+                log.warn("Order batch chunk of {} failed, falling back to per-order creation", valid.size(), ex);
+                for (int i = 0; i < valid.size(); i++) {
+                    try {
+                        String orderId = orderApp.createAndStartSagaBatch(List.of(valid.get(i))).getFirst().orderId();
+                        results.add(OrderBatchItemResult.created(validIdx.get(i), orderId));
+                    } catch (Exception e) {
+                        results.add(OrderBatchItemResult.failed(validIdx.get(i), e.getMessage()));
+                    }
+                }
+            }
+        }
+
+        results.sort(Comparator.comparingInt(OrderBatchItemResult::index));
+        return results;
+    }
+
+    private List<List<String>> validateAll(List<CreateOrderCommand> chunk, ExecutorService validators) {
+        List<Future<List<String>>> futures = new ArrayList<>(chunk.size());
+        for (CreateOrderCommand cmd : chunk) {
+            futures.add(validators.submit(() -> validate(cmd)));
+        }
+        List<List<String>> out = new ArrayList<>(chunk.size());
+        for (Future<List<String>> f : futures) {
+            try {
+                out.add(f.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while validating order batch", e);
+            } catch (Exception e) {
+                out.add(List.of("Validation error: " + e.getMessage()));
+            }
+        }
+        return out;
+    }
+
+    private List<String> validate(CreateOrderCommand cmd) {
+        if (cmd == null) return List.of("Order is null");
+        Set<ConstraintViolation<CreateOrderCommand>> violations = validator.validate(cmd);
+        return violations.stream()
+                .map(v -> v.getPropertyPath() + " " + v.getMessage())
+                .sorted()
+                .toList();
+    }
+}
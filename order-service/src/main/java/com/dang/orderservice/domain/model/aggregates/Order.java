@@ -7,7 +7,9 @@ import com.dang.orderservice.domain.model.valueobjects.OrderLine;
 import com.dang.orderservice.domain.model.valueobjects.OrderStatus;
 import com.dang.orderservice.domain.model.valueobjects.ShippingAddress;
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.Getter;
+import org.springframework.data.domain.Persistable;
 
 import java.math.BigDecimal;
 import java.time.Instant;
@@ -15,9 +17,13 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(
+        name = "orders",
+        // lịch sử order theo customer: seek (created_at, order_id) trên index, không OFFSET
+        indexes = @Index(name = "idx_orders_customer_created", columnList = "customer_id, created_at desc, order_id")
+)
 @Getter
-public class Order {
+public class Order implements Persistable<OrderId> {
 
     @EmbeddedId
     private OrderId id;
@@ -50,6 +56,16 @@ public class Order {
 
     private String cancelReason;
 
+    // event inventory/payment của cùng order xử lý song song: bản ghi sau thấy version lệch => retry thay vì ghi đè cờ
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private long version;
+
+    // id do app sinh => save() của Spring Data mặc định merge (SELECT trước); order mới thì persist thẳng
+    @Transient
+    @Getter(AccessLevel.NONE)
+    private boolean newAggregate;
+
     protected Order() {
     }
 
@@ -62,6 +78,17 @@ public class Order {
         this.total = Money.zero(currency);
         this.inventoryReserved = false;
         this.paid = false;
+        this.newAggregate = true;
+    }
+
+    @Override
+    public boolean isNew() {
+        return newAggregate;
+    }
+
+    @PostPersist
+    void markPersisted() {
+        this.newAggregate = false;
     }
 
     public static Order create(OrderId id, CustomerId customerId, ShippingAddress shippingAddress, String currency) {
@@ -72,16 +99,37 @@ public class Order {
         return new Order(id, customerId, shippingAddress, currency);
     }
 
+    /**
+     * Dựng lại order đã lưu từ bản sao trong RAM (cache saga theo partition), không đi qua JPA.
+     */
+    public static Order restore(OrderId id, CustomerId customerId, OrderStatus status, ShippingAddress shippingAddress,
+                                Money total, Instant createdAt, List<OrderLine> lines,
+                                boolean inventoryReserved, boolean paid, String cancelReason) {
+        Order order = new Order();
+        order.id = id;
+        order.customerId = customerId;
+        order.status = status;
+        order.shippingAddress = shippingAddress;
+        order.total = total;
+        order.createdAt = createdAt;
+        order.lines = new ArrayList<>(lines);
+        order.inventoryReserved = inventoryReserved;
+        order.paid = paid;
+        order.cancelReason = cancelReason;
+        return order;
+    }
+
     public void addLine(String sku, int quantity, BigDecimal unitPrice) {
         if (sku == null || sku.isBlank()) throw new IllegalArgumentException("sku is required");
         if (quantity <= 0) throw new IllegalArgumentException("quantity must be > 0");
         if (unitPrice == null) throw new IllegalArgumentException("unitPrice is required");
         if (unitPrice.signum() < 0) throw new IllegalArgumentException("unitPrice must be >= 0");
 
+        // đổi giá sang minor unit trước: giá lẻ hơn 0.01 bị từ chối ở đây, không lưu dở line
+        long unitMinor = Money.toMinor(unitPrice);
         this.lines.add(new OrderLine(sku.strip(), quantity, unitPrice));
-        // update total (Money is VO)
-        Money lineTotal = Money.of(unitPrice, total.currency()).multiply(quantity);
-        this.total = this.total.add(lineTotal);
+        // update total (Money is VO): cộng thẳng minor unit, không tạo Money cho từng dòng
+        this.total = this.total.addTimes(unitMinor, quantity);
     }
 
     public Money total() {
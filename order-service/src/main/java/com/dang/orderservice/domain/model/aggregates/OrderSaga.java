@@ -2,14 +2,29 @@ package com.dang.orderservice.domain.model.aggregates;
 
 import com.dang.orderservice.domain.model.valueobjects.SagaStatus;
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.Getter;
+import org.springframework.data.domain.Persistable;
 
 import java.time.Instant;
 
 @Entity
 @Table(name = "order_sagas")
 @Getter
-public class OrderSaga {
+public class OrderSaga implements Persistable<String> {
+
+    // bit của stateFlags(): event store lưu các cờ boolean dưới dạng 1 int (set/cleared theo từng bước)
+    public static final int INVENTORY_RESERVED = 1;
+    public static final int PAYMENT_CAPTURED = 1 << 1;
+    public static final int PARALLEL = 1 << 2;
+    public static final int INVENTORY_RESERVE_FAILED = 1 << 3;
+    public static final int PAYMENT_CAPTURE_FAILED = 1 << 4;
+    public static final int TIMED_OUT = 1 << 5;
+    public static final int INVENTORY_COMPENSATION_REQUIRED = 1 << 6;
+    public static final int PAYMENT_COMPENSATION_REQUIRED = 1 << 7;
+    public static final int INVENTORY_COMPENSATION_DONE = 1 << 8;
+    public static final int PAYMENT_COMPENSATION_DONE = 1 << 9;
+    public static final int CANCEL_SAGA = 1 << 10;
 
     @Id
     private String id;
@@ -28,6 +43,24 @@ public class OrderSaga {
     private boolean inventoryReserved;
     private boolean paymentCaptured;
 
+    // parallel create: reserve + capture gửi cùng lúc, phải chờ đủ kết quả 2 bước mới được kết thúc saga
+    @Column(nullable = false, columnDefinition = "boolean default false")
+    private boolean parallel;
+
+    @Column(nullable = false, columnDefinition = "boolean default false")
+    private boolean inventoryReserveFailed;
+
+    @Column(nullable = false, columnDefinition = "boolean default false")
+    private boolean paymentCaptureFailed;
+
+    // saga do user huỷ order (startCancel), phân biệt với create saga đã chuyển sang bù trừ; không đổi sau khi start
+    @Column(nullable = false, columnDefinition = "boolean default false")
+    private boolean cancelSaga;
+
+    // deadline hết lượt retry: bước chưa có kết quả được bù trừ luôn, không chờ nữa
+    @Column(nullable = false, columnDefinition = "boolean default false")
+    private boolean timedOut;
+
     // ===== cancel flow compensation flags =====
     private boolean inventoryCompensationRequired;
     private boolean paymentCompensationRequired;
@@ -37,6 +70,15 @@ public class OrderSaga {
 
     private String failureReason;
 
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private long version;
+
+    // saga mới: persist thẳng, không SELECT theo id trước như merge
+    @Transient
+    @Getter(AccessLevel.NONE)
+    private boolean newAggregate;
+
     protected OrderSaga() {}
 
     private OrderSaga(String id, String orderId, SagaStatus status) {
@@ -45,6 +87,17 @@ public class OrderSaga {
         this.status = status;
         this.createdAt = Instant.now();
         this.updatedAt = Instant.now();
+        this.newAggregate = true;
+    }
+
+    @Override
+    public boolean isNew() {
+        return newAggregate;
+    }
+
+    @PostPersist
+    void markPersisted() {
+        this.newAggregate = false;
     }
 
     // ===== factory =====
@@ -52,8 +105,58 @@ public class OrderSaga {
         return new OrderSaga(sagaId, orderId, SagaStatus.CREATE_FLOW);
     }
 
+    public static OrderSaga startCreateParallel(String sagaId, String orderId) {
+        OrderSaga saga = new OrderSaga(sagaId, orderId, SagaStatus.CREATE_FLOW);
+        saga.parallel = true;
+        return saga;
+    }
+
     public static OrderSaga startCancel(String sagaId, String orderId) {
-        return new OrderSaga(sagaId, orderId, SagaStatus.CANCEL_FLOW);
+        OrderSaga saga = new OrderSaga(sagaId, orderId, SagaStatus.CANCEL_FLOW);
+        saga.cancelSaga = true;
+        return saga;
+    }
+
+    /**
+     * Dựng lại saga đã lưu từ event store (snapshot + các bước sau đó), không đi qua JPA.
+     */
+    public static OrderSaga restore(String sagaId, String orderId, SagaStatus status, int flags,
+                                    String failureReason, Instant createdAt, Instant updatedAt) {
+        OrderSaga saga = new OrderSaga();
+        saga.id = sagaId;
+        saga.orderId = orderId;
+        saga.status = status;
+        saga.failureReason = failureReason;
+        saga.createdAt = createdAt;
+        saga.updatedAt = updatedAt;
+        saga.inventoryReserved = (flags & INVENTORY_RESERVED) != 0;
+        saga.paymentCaptured = (flags & PAYMENT_CAPTURED) != 0;
+        saga.parallel = (flags & PARALLEL) != 0;
+        saga.inventoryReserveFailed = (flags & INVENTORY_RESERVE_FAILED) != 0;
+        saga.paymentCaptureFailed = (flags & PAYMENT_CAPTURE_FAILED) != 0;
+        saga.timedOut = (flags & TIMED_OUT) != 0;
+        saga.inventoryCompensationRequired = (flags & INVENTORY_COMPENSATION_REQUIRED) != 0;
+        saga.paymentCompensationRequired = (flags & PAYMENT_COMPENSATION_REQUIRED) != 0;
+        saga.inventoryCompensationDone = (flags & INVENTORY_COMPENSATION_DONE) != 0;
+        saga.paymentCompensationDone = (flags & PAYMENT_COMPENSATION_DONE) != 0;
+        saga.cancelSaga = (flags & CANCEL_SAGA) != 0;
+        return saga;
+    }
+
+    public int stateFlags() {
+        int flags = 0;
+        if (inventoryReserved) flags |= INVENTORY_RESERVED;
+        if (paymentCaptured) flags |= PAYMENT_CAPTURED;
+        if (parallel) flags |= PARALLEL;
+        if (inventoryReserveFailed) flags |= INVENTORY_RESERVE_FAILED;
+        if (paymentCaptureFailed) flags |= PAYMENT_CAPTURE_FAILED;
+        if (timedOut) flags |= TIMED_OUT;
+        if (inventoryCompensationRequired) flags |= INVENTORY_COMPENSATION_REQUIRED;
+        if (paymentCompensationRequired) flags |= PAYMENT_COMPENSATION_REQUIRED;
+        if (inventoryCompensationDone) flags |= INVENTORY_COMPENSATION_DONE;
+        if (paymentCompensationDone) flags |= PAYMENT_COMPENSATION_DONE;
+        if (cancelSaga) flags |= CANCEL_SAGA;
+        return flags;
     }
 
     /**
@@ -112,6 +215,34 @@ public class OrderSaga {
      */
     public void onPaymentCaptureFailed(String reason) {
         this.failureReason = reason;
+        this.paymentCaptureFailed = true;
+        touch();
+    }
+
+    /**
+     * Parallel create: reserve fail không kết thúc saga ngay như tuần tự,
+     * orchestrator chuyển sang CANCEL_FLOW và chờ kết quả capture (có thể phải refund).
+     */
+    public void onParallelInventoryReserveFailed(String reason) {
+        this.failureReason = reason;
+        this.inventoryReserveFailed = true;
+        touch();
+    }
+
+    /**
+     * Parallel create: bước còn lại thành công sau khi saga đã sang CANCEL_FLOW => phải bù trừ thêm bước đó.
+     */
+    public void onLateInventoryReserved() {
+        this.inventoryReserved = true;
+        this.inventoryCompensationRequired = true;
+        this.inventoryCompensationDone = false;
+        touch();
+    }
+
+    public void onLatePaymentCaptured() {
+        this.paymentCaptured = true;
+        this.paymentCompensationRequired = true;
+        this.paymentCompensationDone = false;
         touch();
     }
 
@@ -156,10 +287,30 @@ public class OrderSaga {
         touch();
     }
 
+    /**
+     * Timeout: bước chưa có phản hồi có thể đã chạy ở service kia => bù trừ luôn (release/refund idempotent,
+     * và service kia ghi nhận compensation nên command tới muộn không còn tác dụng).
+     */
+    public void requireCompensationForPendingSteps(String reason) {
+        this.failureReason = reason;
+        this.timedOut = true;
+        if (!isInventoryOutcomeKnown() && !inventoryCompensationRequired) {
+            this.inventoryCompensationRequired = true;
+            this.inventoryCompensationDone = false;
+        }
+        if (!isPaymentOutcomeKnown() && !paymentCompensationRequired) {
+            this.paymentCompensationRequired = true;
+            this.paymentCompensationDone = false;
+        }
+        touch();
+    }
+
     public boolean isCompensationFullyDone() {
         boolean invOk = !inventoryCompensationRequired || inventoryCompensationDone;
         boolean payOk = !paymentCompensationRequired || paymentCompensationDone;
-        return invOk && payOk;
+        // parallel: bước còn đang chạy có thể thành công muộn và cần bù trừ => chưa được complete
+        boolean settled = !parallel || timedOut || (isInventoryOutcomeKnown() && isPaymentOutcomeKnown());
+        return invOk && payOk && settled;
     }
 
     private void touch() {
@@ -174,5 +325,8 @@ public class OrderSaga {
     public boolean isInventoryReservedDone() { return inventoryReserved; }
     public boolean isPaymentCapturedDone() { return paymentCaptured; }
 
+    public boolean isInventoryOutcomeKnown() { return inventoryReserved || inventoryReserveFailed; }
+    public boolean isPaymentOutcomeKnown() { return paymentCaptured || paymentCaptureFailed; }
+
 
 }
@@ -1,48 +1,91 @@
 package com.dang.orderservice.domain.model.valueobjects;
 
+import jakarta.persistence.AttributeConverter;
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Embeddable;
 
 import java.io.Serializable;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Tiền lưu bằng long minor unit (1 = 0.01, đúng scale của cột amount numeric(19,2)):
+ * cộng/nhân là phép long có kiểm tra tràn, không tạo BigDecimal trung gian.
+ * BigDecimal chỉ xuất hiện ở biên (cột DB, DTO) và đổi qua lại chính xác, không làm tròn.
+ */
 @Embeddable
 public class Money implements Serializable {
 
+    public static final int SCALE = 2;
+
+    // chuẩn hoá currency 1 lần cho mỗi chuỗi gặp lại (strip + upper), giới hạn để input rác không làm phình map
+    private static final int MAX_CACHED_CURRENCIES = 256;
+    private static final Map<String, String> CURRENCIES = new ConcurrentHashMap<>();
+
     @Column(name = "amount", nullable = false, precision = 19, scale = 2)
-    private BigDecimal amount;
+    @Convert(converter = MinorUnitsConverter.class)
+    private long amountMinor;
 
     @Column(name = "currency", nullable = false, length = 8)
     private String currency;
 
     protected Money() {}
 
-    private Money(BigDecimal amount, String currency) {
-        if (amount == null) throw new IllegalArgumentException("amount is required");
-        if (amount.signum() < 0) throw new IllegalArgumentException("amount must be >= 0");
-        if (currency == null || currency.isBlank()) throw new IllegalArgumentException("currency is required");
-
-        this.amount = amount;
-        this.currency = currency.strip().toUpperCase();
+    private Money(long amountMinor, String currency) {
+        if (amountMinor < 0) throw new IllegalArgumentException("amount must be >= 0");
+        this.amountMinor = amountMinor;
+        this.currency = currency;
     }
 
     public static Money of(BigDecimal amount, String currency) {
-        return new Money(amount, currency);
+        return new Money(toMinor(amount), currencyCode(currency));
+    }
+
+    public static Money ofMinor(long amountMinor, String currency) {
+        return new Money(amountMinor, currencyCode(currency));
     }
 
     public static Money zero(String currency) {
-        return new Money(BigDecimal.ZERO, currency);
+        return new Money(0, currencyCode(currency));
+    }
+
+    /**
+     * BigDecimal -> minor unit, chính xác: quá 2 chữ số thập phân hoặc vượt long => lỗi thay vì làm tròn.
+     */
+    public static long toMinor(BigDecimal amount) {
+        if (amount == null) throw new IllegalArgumentException("amount is required");
+        try {
+            return amount.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("amount must have at most " + SCALE + " decimal places and fit in 64-bit minor units: " + amount);
+        }
+    }
+
+    public static BigDecimal fromMinor(long amountMinor) {
+        return BigDecimal.valueOf(amountMinor, SCALE);
     }
 
     public Money add(Money other) {
         requireSameCurrency(other);
-        return new Money(this.amount.add(other.amount), this.currency);
+        return new Money(Math.addExact(this.amountMinor, other.amountMinor), this.currency);
     }
 
     public Money multiply(int quantity) {
         if (quantity <= 0) throw new IllegalArgumentException("quantity must be > 0");
-        return new Money(this.amount.multiply(BigDecimal.valueOf(quantity)), this.currency);
+        return new Money(Math.multiplyExact(this.amountMinor, quantity), this.currency);
+    }
+
+    /**
+     * this + unitMinor * quantity trong 1 bước (cộng dòng vào tổng order mà không tạo Money cho từng dòng).
+     */
+    public Money addTimes(long unitMinor, int quantity) {
+        if (quantity <= 0) throw new IllegalArgumentException("quantity must be > 0");
+        if (unitMinor < 0) throw new IllegalArgumentException("amount must be >= 0");
+        return new Money(Math.addExact(this.amountMinor, Math.multiplyExact(unitMinor, quantity)), this.currency);
     }
 
     private void requireSameCurrency(Money other) {
@@ -51,8 +94,26 @@ public class Money implements Serializable {
         }
     }
 
+    private static String currencyCode(String raw) {
+        String cached = CURRENCIES.get(raw == null ? "" : raw);
+        if (cached != null) return cached;
+
+        if (raw == null || raw.isBlank()) throw new IllegalArgumentException("currency is required");
+        String code = raw.strip().toUpperCase();
+        if (CURRENCIES.size() < MAX_CACHED_CURRENCIES) {
+            // intern qua map: mọi Money cùng currency dùng chung 1 String
+            code = CURRENCIES.computeIfAbsent(code, c -> c);
+            CURRENCIES.putIfAbsent(raw, code);
+        }
+        return code;
+    }
+
     public BigDecimal amount() {
-        return amount;
+        return fromMinor(amountMinor);
+    }
+
+    public long amountMinor() {
+        return amountMinor;
     }
 
     public String currency() {
@@ -63,17 +124,33 @@ public class Money implements Serializable {
     public boolean equals(Object o) {
         if (this == o) return true;
         if (!(o instanceof Money other)) return false;
-        return Objects.equals(amount, other.amount)
+        return amountMinor == other.amountMinor
                 && Objects.equals(currency, other.currency);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(amount, currency);
+        return Objects.hash(amountMinor, currency);
     }
 
     @Override
     public String toString() {
-        return amount + " " + currency;
+        return amount() + " " + currency;
+    }
+
+    /**
+     * Cột numeric(19,2) <-> minor unit, không làm tròn.
+     */
+    public static class MinorUnitsConverter implements AttributeConverter<Long, BigDecimal> {
+
+        @Override
+        public BigDecimal convertToDatabaseColumn(Long attribute) {
+            return attribute == null ? null : fromMinor(attribute);
+        }
+
+        @Override
+        public Long convertToEntityAttribute(BigDecimal dbData) {
+            return dbData == null ? null : toMinor(dbData);
+        }
     }
 }
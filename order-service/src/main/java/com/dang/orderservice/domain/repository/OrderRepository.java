@@ -4,12 +4,17 @@ import com.dang.orderservice.domain.model.aggregates.Order;
 import com.dang.orderservice.domain.model.exception.NotFoundException;
 import com.dang.orderservice.domain.model.valueobjects.OrderId;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface OrderRepository {
     Order save(Order order);
     Optional<Order> findById(OrderId id);
 
+    // load nhiều order trong 1 query (batch listener preload vào persistence context)
+    List<Order> findAllById(Collection<OrderId> ids);
+
     default Order getRequired(OrderId id) {
         return findById(id).orElseThrow(() -> new NotFoundException("Order not found: " + id.value()));
     }
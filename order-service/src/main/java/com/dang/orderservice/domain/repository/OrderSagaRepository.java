@@ -4,12 +4,16 @@ import com.dang.orderservice.domain.model.aggregates.OrderSaga;
 import com.dang.orderservice.domain.model.exception.NotFoundException;
 import com.dang.orderservice.domain.model.valueobjects.SagaStatus;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface OrderSagaRepository {
     OrderSaga save(OrderSaga saga);
     Optional<OrderSaga> findById(String sagaId);
 
+    List<OrderSaga> findAllById(Collection<String> sagaIds);
+
     // NEW: dùng để tránh start cancel saga nhiều lần
     Optional<OrderSaga> findLatestByOrderIdAndStatus(String orderId, SagaStatus status);
 
@@ -0,0 +1,43 @@
+package com.dang.orderservice.infrastructure.config;
+
+import com.dang.orderservice.application.saga.RetryOnConflict;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+
+/**
+ * Advisor cho {@link RetryOnConflict}. Order cao hơn transaction advisor (LOWEST_PRECEDENCE)
+ * => retry nằm ngoài, mỗi lần chạy lại là 1 transaction mới.
+ */
+@Configuration(proxyBeanMethods = false)
+public class ConflictRetryConfig {
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    static Advisor conflictRetryAdvisor(Environment env, ObjectProvider<MeterRegistry> meterRegistry) {
+        ConflictRetryInterceptor interceptor = new ConflictRetryInterceptor(
+                env.getProperty("app.saga.conflict-retry.max-retries", Long.class, 5L),
+                Duration.ofMillis(env.getProperty("app.saga.conflict-retry.delay-ms", Long.class, 20L)),
+                Duration.ofMillis(env.getProperty("app.saga.conflict-retry.jitter-ms", Long.class, 10L)),
+                env.getProperty("app.saga.conflict-retry.multiplier", Double.class, 2.0),
+                Duration.ofMillis(env.getProperty("app.saga.conflict-retry.max-delay-ms", Long.class, 500L)),
+                meterRegistry);
+
+        ComposablePointcut pointcut = new ComposablePointcut(new AnnotationMatchingPointcut(RetryOnConflict.class, true))
+                .union(new AnnotationMatchingPointcut(null, RetryOnConflict.class, true));
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(pointcut, interceptor);
+        advisor.setOrder(Ordered.LOWEST_PRECEDENCE - 1);
+        return advisor;
+    }
+}
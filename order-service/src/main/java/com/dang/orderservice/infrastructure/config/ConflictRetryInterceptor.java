@@ -0,0 +1,115 @@
+package com.dang.orderservice.infrastructure.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.retry.RetryException;
+import org.springframework.core.retry.RetryListener;
+import org.springframework.core.retry.RetryPolicy;
+import org.springframework.core.retry.RetryTemplate;
+import org.springframework.core.retry.Retryable;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/**
+ * Bọc ngoài TransactionInterceptor: xung đột (ConcurrencyFailureException, gồm optimistic lock) => rollback
+ * rồi chạy lại method từ đầu trong transaction mới, đọc lại state mới nhất.
+ *
+ * Metric: order.conflicts{handler, outcome=retried|exhausted}, order.conflicts.recovered{handler}.
+ */
+public class ConflictRetryInterceptor implements MethodInterceptor {
+
+    private static final Logger log = LoggerFactory.getLogger(ConflictRetryInterceptor.class);
+
+    private final RetryPolicy policy;
+    // lấy lười: advisor được tạo rất sớm, trước khi MeterRegistry sẵn sàng
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    public ConflictRetryInterceptor(long maxRetries, Duration delay, Duration jitter, double multiplier,
+                                    Duration maxDelay, ObjectProvider<MeterRegistry> meterRegistry) {
+        this.policy = RetryPolicy.builder()
+                .includes(ConcurrencyFailureException.class)
+                .maxRetries(maxRetries)
+                .delay(delay)
+                .jitter(jitter)
+                .multiplier(multiplier)
+                .maxDelay(maxDelay)
+                .build();
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        // đang trong transaction của caller (batch listener, deadline runner...): chạy lại ở đây không có ý nghĩa
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                || !(invocation instanceof ProxyMethodInvocation pmi)) {
+            return invocation.proceed();
+        }
+
+        String handler = invocation.getMethod().getDeclaringClass().getSimpleName() + "." + invocation.getMethod().getName();
+        RetryTemplate template = new RetryTemplate(policy);
+        template.setRetryListener(new MetricsListener(handler));
+        try {
+            return template.execute(new Retryable<>() {
+                @Override
+                public Object execute() throws Throwable {
+                    // mỗi lần chạy lại phải đi qua các interceptor phía sau (transaction) từ đầu
+                    return pmi.invocableClone().proceed();
+                }
+
+                @Override
+                public String getName() {
+                    return handler;
+                }
+            });
+        } catch (RetryException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    private final class MetricsListener implements RetryListener {
+        private final String handler;
+
+        MetricsListener(String handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void beforeRetry(RetryPolicy retryPolicy, Retryable<?> retryable) {
+            counter("retried").increment();
+        }
+
+        @Override
+        public void onRetrySuccess(RetryPolicy retryPolicy, Retryable<?> retryable, Object result) {
+            Counter.builder("order.conflicts.recovered")
+                    .description("Số lần handler thành công sau khi retry vì xung đột")
+                    .tag("handler", handler)
+                    .register(meterRegistry.getObject())
+                    .increment();
+        }
+
+        @Override
+        public void onRetryPolicyExhaustion(RetryPolicy retryPolicy, Retryable<?> retryable, RetryException exception) {
+            // lỗi không phải xung đột cũng tới đây (không retry) => chỉ đếm khi đúng là xung đột
+            if (exception.getCause() instanceof ConcurrencyFailureException) {
+                counter("exhausted").increment();
+                log.warn("Conflict retries exhausted handler={} retries={}", handler, exception.getRetryCount());
+            }
+        }
+
+        private Counter counter(String outcome) {
+            return Counter.builder("order.conflicts")
+                    .description("Xung đột ghi (optimistic lock / trùng seq) ở transaction của handler")
+                    .tag("handler", handler)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry.getObject());
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.dang.orderservice.infrastructure.deadline;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * Timing wheel nhiều tầng (kiểu Kafka purgatory): tầng 0 có {@code wheelSize} bucket mỗi bucket {@code tickMs},
+ * tầng k có tick = span của tầng k-1. Thêm/huỷ timer O(1), mỗi tick chỉ đụng 1 bucket/tầng
+ * => giữ hàng triệu timer mà không phải sort hay scan.
+ *
+ * schedule() thread-safe (đẩy vào queue); advance() chỉ được gọi từ 1 thread driver.
+ */
+public final class HierarchicalTimingWheel<T> {
+
+    private final Level<T>[] levels;
+    private final Queue<Entry<T>> pending = new ConcurrentLinkedQueue<>();
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public HierarchicalTimingWheel(long tickMs, int wheelSize, int levelCount, long startMs) {
+        if (tickMs <= 0 || wheelSize <= 1 || levelCount <= 0) {
+            throw new IllegalArgumentException("Invalid timing wheel config");
+        }
+        this.levels = new Level[levelCount];
+        long tick = tickMs;
+        for (int i = 0; i < levelCount; i++) {
+            levels[i] = new Level<>(tick, wheelSize, startMs);
+            tick = Math.multiplyExact(tick, wheelSize);
+        }
+    }
+
+    /** Khoảng xa nhất (tính từ thời điểm hiện tại của wheel) chắc chắn còn nhận timer. */
+    public long horizonMs() {
+        Level<T> top = levels[levels.length - 1];
+        // currentTime của tầng trên được làm tròn xuống theo tick của nó => trừ 1 tick cho an toàn
+        return top.spanMs - top.tickMs;
+    }
+
+    public void schedule(T item, long expiresAtMs) {
+        pending.add(new Entry<>(item, expiresAtMs));
+    }
+
+    /** Số timer đang nằm trong wheel (không tính timer vừa schedule chưa được advance nhận). */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Đẩy đồng hồ tới {@code nowMs}, gọi {@code onExpired} cho mọi timer đã tới hạn (theo thứ tự tick).
+     * Timer vượt horizon bị bỏ (caller phải tự đảm bảo nạp lại sau).
+     */
+    public void advance(long nowMs, Consumer<T> onExpired) {
+        drainPending(onExpired);
+
+        Level<T> base = levels[0];
+        while (base.currentTime + base.tickMs <= nowMs) {
+            long t = base.currentTime + base.tickMs;
+
+            // cập nhật currentTime của mọi tầng qua mốc trước, rồi mới đổ bucket xuống
+            List<ArrayDeque<Entry<T>>> flushed = new ArrayList<>(levels.length);
+            for (Level<T> level : levels) {
+                if (t < level.currentTime + level.tickMs) break;
+                level.currentTime = t - (t % level.tickMs);
+                ArrayDeque<Entry<T>> bucket = level.bucketAt(level.currentTime);
+                if (!bucket.isEmpty()) {
+                    flushed.add(bucket);
+                    level.buckets[level.index(level.currentTime)] = new ArrayDeque<>();
+                }
+            }
+
+            for (ArrayDeque<Entry<T>> bucket : flushed) {
+                size -= bucket.size();
+                for (Entry<T> e : bucket) {
+                    insert(e, onExpired);
+                }
+            }
+        }
+
+        drainPending(onExpired);
+    }
+
+    private void drainPending(Consumer<T> onExpired) {
+        Entry<T> e;
+        while ((e = pending.poll()) != null) {
+            insert(e, onExpired);
+        }
+    }
+
+    private void insert(Entry<T> e, Consumer<T> onExpired) {
+        if (e.expiresAtMs < levels[0].currentTime + levels[0].tickMs) {
+            onExpired.accept(e.item);
+            return;
+        }
+        for (Level<T> level : levels) {
+            if (e.expiresAtMs < level.currentTime + level.spanMs) {
+                level.bucketAt(e.expiresAtMs).add(e);
+                size++;
+                return;
+            }
+        }
+        // vượt horizon: bỏ, nguồn gốc (DB) sẽ nạp lại khi tới gần
+    }
+
+    private record Entry<T>(T item, long expiresAtMs) {}
+
+    private static final class Level<T> {
+        final long tickMs;
+        final long spanMs;
+        final ArrayDeque<Entry<T>>[] buckets;
+        long currentTime;
+
+        @SuppressWarnings("unchecked")
+        Level(long tickMs, int wheelSize, long startMs) {
+            this.tickMs = tickMs;
+            this.spanMs = Math.multiplyExact(tickMs, wheelSize);
+            this.buckets = new ArrayDeque[wheelSize];
+            for (int i = 0; i < wheelSize; i++) buckets[i] = new ArrayDeque<>();
+            this.currentTime = startMs - (startMs % tickMs);
+        }
+
+        int index(long timeMs) {
+            return (int) ((timeMs / tickMs) % buckets.length);
+        }
+
+        ArrayDeque<Entry<T>> bucketAt(long timeMs) {
+            return buckets[index(timeMs)];
+        }
+    }
+}
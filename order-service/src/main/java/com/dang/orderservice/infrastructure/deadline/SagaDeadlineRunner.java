@@ -0,0 +1,127 @@
+package com.dang.orderservice.infrastructure.deadline;
+
+import com.dang.orderservice.application.saga.OrderSagaOrchestrator;
+import com.dang.orderservice.infrastructure.persistence.jpa.JpaSagaDeadlineRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * 1 thread driver: mỗi tick đẩy timing wheel, định kỳ nạp cửa sổ deadline kế tiếp từ DB.
+ * Deadline tới hạn chạy trên virtual thread: claim row + timeout handler của orchestrator trong 1 transaction.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.saga.deadline", name = "enabled", havingValue = "true")
+public class SagaDeadlineRunner implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(SagaDeadlineRunner.class);
+
+    private final SagaDeadlineStore store;
+    private final JpaSagaDeadlineRepository repo;
+    private final OrderSagaOrchestrator orchestrator;
+    private final TransactionTemplate tx;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore inFlight;
+
+    @Value("${app.saga.deadline.tick-ms:100}")
+    private long tickMs;
+
+    @Value("${app.saga.deadline.refill-interval-ms:60000}")
+    private long refillIntervalMs;
+
+    // cửa sổ nạp vào wheel, phải > refill-interval để không hụt deadline giữa 2 lần refill
+    @Value("${app.saga.deadline.refill-window-ms:600000}")
+    private long refillWindowMs;
+
+    @Value("${app.saga.deadline.overdue-grace-ms:30000}")
+    private long overdueGraceMs;
+
+    private volatile boolean running;
+    private Thread thread;
+
+    public SagaDeadlineRunner(SagaDeadlineStore store,
+                              JpaSagaDeadlineRepository repo,
+                              OrderSagaOrchestrator orchestrator,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${app.saga.deadline.max-concurrent:16}") int maxConcurrent) {
+        this.store = store;
+        this.repo = repo;
+        this.orchestrator = orchestrator;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.inFlight = new Semaphore(maxConcurrent);
+    }
+
+    @Override
+    public void start() {
+        if (refillWindowMs <= refillIntervalMs || refillWindowMs >= store.horizonMs()) {
+            throw new IllegalStateException("app.saga.deadline.refill-window-ms must be > refill-interval-ms and < wheel horizon "
+                    + store.horizonMs() + "ms");
+        }
+        running = true;
+        thread = Thread.ofPlatform().daemon().name("saga-deadlines").start(this::loop);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (thread != null) thread.interrupt();
+        executor.close();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void loop() {
+        long nextRefill = 0;
+        while (running) {
+            try {
+                long now = System.currentTimeMillis();
+                if (now >= nextRefill) {
+                    int loaded = store.refill(Instant.ofEpochMilli(now + refillWindowMs), Instant.ofEpochMilli(now - overdueGraceMs));
+                    if (loaded > 0) log.debug("Loaded {} saga deadlines, {} in wheel", loaded, store.inWheel());
+                    nextRefill = now + refillIntervalMs;
+                }
+                store.advance(now, this::fire);
+                Thread.sleep(tickMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception ex) {
+                // DB lỗi khi refill: loadedUntil chưa đổi, lần refill sau nạp bù cả đoạn bị hụt
+                log.warn("Saga deadline loop error: {}", ex.getMessage());
+                nextRefill = System.currentTimeMillis() + refillIntervalMs;
+            }
+        }
+    }
+
+    private void fire(SagaDeadlineStore.Timer timer) {
+        // giới hạn số handler song song (mỗi handler giữ 1 connection DB)
+        inFlight.acquireUninterruptibly();
+        executor.submit(() -> {
+            try {
+                tx.executeWithoutResult(status -> {
+                    if (repo.claim(timer.sagaId(), timer.dueAt(), Instant.now()) == 0) return; // đã dời/xoá hoặc instance khác làm
+                    orchestrator.onSagaTimeout(timer.sagaId(), timer.attempt());
+                });
+            } catch (Exception ex) {
+                // rollback => row giữ due_at cũ, lần refill overdue sau sẽ chạy lại
+                log.error("Saga timeout handling failed sagaId={} attempt={}", timer.sagaId(), timer.attempt(), ex);
+            } finally {
+                inFlight.release();
+            }
+        });
+    }
+}
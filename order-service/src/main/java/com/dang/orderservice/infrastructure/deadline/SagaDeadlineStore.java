@@ -0,0 +1,118 @@
+package com.dang.orderservice.infrastructure.deadline;
+
+import com.dang.orderservice.application.port.SagaDeadlinePort;
+import com.dang.orderservice.infrastructure.persistence.jpa.JpaSagaDeadlineRepository;
+import com.dang.orderservice.infrastructure.persistence.jpa.SagaDeadline;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * saga_deadlines là nguồn gốc; timing wheel chỉ giữ các deadline trong cửa sổ đã nạp (loadedUntil).
+ * Deadline mới nằm trong cửa sổ được đưa thẳng vào wheel sau commit, xa hơn thì để lần refill sau nạp.
+ */
+@Component
+public class SagaDeadlineStore implements SagaDeadlinePort {
+
+    public record Timer(String sagaId, Instant dueAt, int attempt) {}
+
+    private final JpaSagaDeadlineRepository repo;
+    private final HierarchicalTimingWheel<Timer> wheel;
+
+    // chỉ driver thread ghi
+    private volatile long loadedUntilMs = Long.MIN_VALUE;
+
+    @Value("${app.saga.deadline.refill-page-size:5000}")
+    private int pageSize;
+
+    public SagaDeadlineStore(JpaSagaDeadlineRepository repo,
+                             @Value("${app.saga.deadline.tick-ms:100}") long tickMs,
+                             @Value("${app.saga.deadline.wheel-size:512}") int wheelSize,
+                             @Value("${app.saga.deadline.wheel-levels:3}") int wheelLevels) {
+        this.repo = repo;
+        this.wheel = new HierarchicalTimingWheel<>(tickMs, wheelSize, wheelLevels, System.currentTimeMillis());
+    }
+
+    @Override
+    public void schedule(String sagaId, Instant dueAt, int attempt) {
+        // cắt về millis: claim so sánh bằng due_at, không để lệch precision giữa Java và Postgres
+        Instant due = dueAt.truncatedTo(ChronoUnit.MILLIS);
+        repo.upsert(sagaId, due, attempt, Instant.now());
+
+        Timer timer = new Timer(sagaId, due, attempt);
+        afterCommit(() -> {
+            if (timer.dueAt().toEpochMilli() < loadedUntilMs) {
+                wheel.schedule(timer, timer.dueAt().toEpochMilli());
+            }
+        });
+    }
+
+    @Override
+    public void cancel(String sagaId) {
+        // timer cũ vẫn nằm trong wheel, khi fire claim không khớp row => bỏ qua, khỏi phải tìm để xoá
+        repo.deleteById(sagaId);
+    }
+
+    public long horizonMs() {
+        return wheel.horizonMs();
+    }
+
+    public int inWheel() {
+        return wheel.size();
+    }
+
+    public void advance(long nowMs, Consumer<Timer> onExpired) {
+        wheel.advance(nowMs, onExpired);
+    }
+
+    /**
+     * Nạp deadline trong [loadedUntil, until) theo keyset (due_at, saga_id), và deadline quá hạn trước overdueBefore
+     * (handler lỗi rollback, hoặc instance đã nạp nó đã chết).
+     */
+    public int refill(Instant until, Instant overdueBefore) {
+        Instant from = loadedUntilMs == Long.MIN_VALUE ? Instant.EPOCH : Instant.ofEpochMilli(loadedUntilMs);
+        int loaded = load(from, until);
+        if (from.isAfter(Instant.EPOCH) && overdueBefore.isAfter(Instant.EPOCH)) {
+            loaded += load(Instant.EPOCH, overdueBefore);
+        }
+        loadedUntilMs = until.toEpochMilli();
+        return loaded;
+    }
+
+    private int load(Instant from, Instant to) {
+        Instant afterDue = Instant.EPOCH;
+        String afterId = "";
+        int loaded = 0;
+        while (true) {
+            List<SagaDeadline> page = repo.findWindowAfter(afterDue, afterId, from, to, pageSize);
+            for (SagaDeadline d : page) {
+                wheel.schedule(new Timer(d.getSagaId(), d.getDueAt(), d.getAttempt()), d.getDueAt().toEpochMilli());
+            }
+            loaded += page.size();
+            if (page.size() < pageSize) return loaded;
+
+            SagaDeadline last = page.get(page.size() - 1);
+            afterDue = last.getDueAt();
+            afterId = last.getSagaId();
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,116 @@
+package com.dang.orderservice.infrastructure.idempotency;
+
+import com.dang.orderservice.application.port.IdempotencyPort;
+import com.dang.orderservice.infrastructure.persistence.jpa.JpaIdempotencyKeyRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Bảng idempotency_keys (TTL) + cache recent-keys nhỏ phía trước: retry của client thường tới trong vài giây
+ * => phần lớn duplicate trả về từ cache, không đụng DB.
+ */
+@Component
+public class IdempotencyStore implements IdempotencyPort {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyStore.class);
+
+    private final JpaIdempotencyKeyRepository repo;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate tx;
+    private final Cache<String, Entry> recent;
+    private final Duration ttl;
+
+    @Value("${app.orders.idempotency.purge-batch-size:1000}")
+    private int purgeBatchSize;
+
+    public IdempotencyStore(JpaIdempotencyKeyRepository repo,
+                            ObjectMapper objectMapper,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${app.orders.idempotency.ttl-ms:86400000}") long ttlMs,
+                            @Value("${app.orders.idempotency.cache-size:10000}") long cacheSize,
+                            @Value("${app.orders.idempotency.cache-ttl-ms:600000}") long cacheTtlMs) {
+        this.repo = repo;
+        this.objectMapper = objectMapper;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.ttl = Duration.ofMillis(ttlMs);
+        this.recent = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(Duration.ofMillis(Math.min(cacheTtlMs, ttlMs)))
+                .build();
+    }
+
+    @Override
+    public String requestHash(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Failed to hash idempotent request", e);
+        }
+    }
+
+    @Override
+    public Optional<Entry> find(String scopeKey) {
+        Entry cached = recent.getIfPresent(scopeKey);
+        if (cached != null) return Optional.of(cached);
+
+        Optional<Entry> entry = repo.findLive(scopeKey, Instant.now())
+                .map(k -> new Entry(k.getOrderId(), k.getRequestHash()));
+        entry.ifPresent(e -> recent.put(scopeKey, e));
+        return entry;
+    }
+
+    @Override
+    public boolean claim(String scopeKey, String orderId, String requestHash) {
+        Instant now = Instant.now();
+        if (repo.claim(scopeKey, orderId, requestHash, now, now.plus(ttl)) == 0) {
+            return false;
+        }
+        // chỉ cache khi order thật sự được commit
+        Entry entry = new Entry(orderId, requestHash);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    recent.put(scopeKey, entry);
+                }
+            });
+        } else {
+            recent.put(scopeKey, entry);
+        }
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${app.orders.idempotency.purge-interval-ms:600000}")
+    public void purgeExpired() {
+        Instant now = Instant.now();
+        long total = 0;
+        while (true) {
+            Integer deleted = tx.execute(status -> repo.purgeExpiredBefore(now, purgeBatchSize));
+            int n = deleted == null ? 0 : deleted;
+            total += n;
+            if (n < purgeBatchSize) break;
+        }
+        if (total > 0) {
+            log.info("Purged {} expired idempotency keys", total);
+        }
+    }
+}
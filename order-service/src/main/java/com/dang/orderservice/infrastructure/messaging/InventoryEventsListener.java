@@ -1,60 +1,39 @@
 package com.dang.orderservice.infrastructure.messaging;
 
-import com.dang.orderservice.application.saga.OrderSagaOrchestrator;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.dang.sagakafka.SagaRetryRouter;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Component;
 
-import java.util.Map;
-
 @Component
+@ConditionalOnProperty(prefix = "app.saga.batch-listener", name = "enabled", havingValue = "false", matchIfMissing = true)
 public class InventoryEventsListener {
 
     private static final Logger log = LoggerFactory.getLogger(InventoryEventsListener.class);
 
-    private final OrderSagaOrchestrator saga;
-    private final ObjectMapper objectMapper;
+    private final SagaEventRouter router;
+    private final SagaEventDecoder decoder;
+    private final SagaRetryRouter retryRouter;
 
-    public InventoryEventsListener(OrderSagaOrchestrator saga, ObjectMapper objectMapper) {
-        this.saga = saga;
-        this.objectMapper = objectMapper;
+    public InventoryEventsListener(SagaEventRouter router, SagaEventDecoder decoder, SagaRetryRouter retryRouter) {
+        this.router = router;
+        this.decoder = decoder;
+        this.retryRouter = retryRouter;
     }
 
     @KafkaListener(topics = "${app.saga.topics.inventory-events}", groupId = "order-service")
-    public void listen(ConsumerRecord<String, String> record, Acknowledgment ack) {
+    public void listen(ConsumerRecord<String, byte[]> record, Acknowledgment ack) {
         try {
-            String json = record.value();
-            if (json == null || json.isBlank()) {
-                ack.acknowledge();
-                return;
-            }
-
-            Map<String, Object> m = objectMapper.readValue(json, Map.class);
-
-            String sagaId = (String) m.get("sagaId");
-            String orderId = (String) m.get("orderId");
-            String reason = (String) m.get("reason");
-
-            if (sagaId == null || orderId == null) {
-                log.warn("Inventory event missing sagaId/orderId: {}", m);
-                ack.acknowledge(); // poison message -> skip
-                return;
-            }
-
-            if (reason != null && !reason.isBlank()) {
-                saga.onInventoryFailed(sagaId, orderId, reason);
-            } else {
-                saga.onInventorySuccess(sagaId, orderId);
-            }
-
+            decoder.decode(record).ifPresent(router::route);
             ack.acknowledge();
         } catch (Exception ex) {
-            log.error("Failed to process inventory event: {}", record.value(), ex);
-            // don't ack -> retry
+            log.error("Failed to process inventory event: {}", SagaPayloadCodec.preview(record.value()), ex);
+            // sang retry topic rồi ack, không chặn cả partition; gửi retry lỗi => không ack, để redeliver
+            if (retryRouter.forward(record, ex)) ack.acknowledge();
         }
     }
 }
@@ -0,0 +1,40 @@
+package com.dang.orderservice.infrastructure.messaging;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.kafka.listener.ContainerProperties;
+
+import java.util.Properties;
+
+@Configuration
+@ConditionalOnProperty(prefix = "app.saga.batch-listener", name = "enabled", havingValue = "true")
+public class KafkaBatchListenerConfig {
+
+    public static final String CONTAINER_FACTORY = "sagaBatchListenerContainerFactory";
+
+    @Bean(name = CONTAINER_FACTORY)
+    public ConcurrentKafkaListenerContainerFactory<String, byte[]> sagaBatchListenerContainerFactory(
+            ConsumerFactory<String, byte[]> consumerFactory,
+            @Value("${app.saga.batch-listener.max-poll-records:500}") int maxPollRecords,
+            ObjectProvider<ConsumerAwareRebalanceListener> rebalanceListener) {
+        ConcurrentKafkaListenerContainerFactory<String, byte[]> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory);
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+
+        // 1 poll = 1 batch = 1 transaction DB
+        Properties overrides = new Properties();
+        overrides.setProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(maxPollRecords));
+        factory.getContainerProperties().setKafkaConsumerProperties(overrides);
+        // factory tự dựng => không được Spring Boot gắn rebalance listener như container mặc định
+        rebalanceListener.ifUnique(factory.getContainerProperties()::setConsumerRebalanceListener);
+        return factory;
+    }
+}
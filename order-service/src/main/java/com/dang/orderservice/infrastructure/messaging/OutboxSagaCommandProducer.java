@@ -4,6 +4,9 @@ import com.dang.orderservice.application.port.InventoryCommandPort;
 import com.dang.orderservice.application.port.PaymentCommandPort;
 import com.dang.orderservice.infrastructure.persistence.jpa.OutboxMessage;
 import com.dang.orderservice.infrastructure.persistence.jpa.JpaOutboxRepository;
+import com.dang.orderservice.infrastructure.persistence.jpa.OutboxNotifier;
+import com.dang.sagamessages.envelope.SagaEnvelope;
+import com.dang.sagamessages.message.SagaMessage;
 import com.dang.sagamessages.message.inventory.InventoryCommands;
 import com.dang.sagamessages.message.payment.PaymentCommands;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -18,13 +21,19 @@ public class OutboxSagaCommandProducer implements InventoryCommandPort, PaymentC
     private final JpaOutboxRepository outboxRepository;
     private final KafkaSagaTopicsProperties topics;
     private final ObjectMapper objectMapper;
+    private final SagaPayloadCodec codec;
+    private final OutboxNotifier notifier;
 
     public OutboxSagaCommandProducer(JpaOutboxRepository outboxRepository,
                                      KafkaSagaTopicsProperties topics,
-                                     ObjectMapper objectMapper) {
+                                     ObjectMapper objectMapper,
+                                     SagaPayloadCodec codec,
+                                     OutboxNotifier notifier) {
         this.outboxRepository = outboxRepository;
         this.topics = topics;
         this.objectMapper = objectMapper;
+        this.codec = codec;
+        this.notifier = notifier;
     }
 
     @Override
@@ -51,10 +60,13 @@ public class OutboxSagaCommandProducer implements InventoryCommandPort, PaymentC
         enqueue(topics.getPaymentCommands(), command.orderId(), command);
     }
 
-    private void enqueue(String topic, String key, Object payload) {
+    private void enqueue(String topic, String key, SagaMessage payload) {
         try {
-            String json = objectMapper.writeValueAsString(payload);
-            outboxRepository.save(OutboxMessage.pending(topic, key, json));
+            SagaEnvelope envelope = SagaEnvelope.of(payload);
+            outboxRepository.save(codec.isBinary()
+                    ? OutboxMessage.pendingBinary(topic, key, codec.encode(payload), envelope)
+                    : OutboxMessage.pending(topic, key, objectMapper.writeValueAsString(payload), envelope));
+            notifier.notifyOnCommit();
         } catch (Exception e) {
             throw new RuntimeException("Failed to enqueue outbox message topic=" + topic + " key=" + key, e);
         }
@@ -0,0 +1,83 @@
+package com.dang.orderservice.infrastructure.messaging;
+
+import com.dang.orderservice.domain.model.valueobjects.OrderId;
+import com.dang.orderservice.domain.repository.OrderRepository;
+import com.dang.orderservice.domain.repository.OrderSagaRepository;
+import com.dang.sagamessages.message.SagaMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Xử lý 1 batch event (cả poll hoặc 1 lane của poll) trong 1 transaction: preload saga + order bằng 2 query IN (...), các handler của orchestrator
+ * join transaction này nên getRequired() lấy entity từ persistence context thay vì query từng cái; flush 1 lần khi commit.
+ * Event áp dụng đúng thứ tự trong batch => thứ tự theo order (key) giữ nguyên.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.saga.batch-listener", name = "enabled", havingValue = "true")
+public class SagaEventBatchProcessor {
+
+    private static final Logger log = LoggerFactory.getLogger(SagaEventBatchProcessor.class);
+
+    private final SagaEventRouter router;
+    private final OrderSagaRepository sagaRepository;
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate tx;
+
+    public SagaEventBatchProcessor(SagaEventRouter router,
+                                   OrderSagaRepository sagaRepository,
+                                   OrderRepository orderRepository,
+                                   PlatformTransactionManager transactionManager) {
+        this.router = router;
+        this.sagaRepository = sagaRepository;
+        this.orderRepository = orderRepository;
+        this.tx = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * @param onFailure event vẫn lỗi khi chạy lại riêng lẻ (vd. chuyển sang retry topic)
+     */
+    public void process(List<SagaMessage> events, BiConsumer<SagaMessage, Exception> onFailure) {
+        if (events.isEmpty()) return;
+
+        try {
+            tx.executeWithoutResult(status -> {
+                preload(events);
+                events.forEach(router::route);
+            });
+        } catch (Exception ex) {
+            // 1 event hỏng không được kéo cả batch: rollback rồi chạy lại từng event (mỗi event 1 transaction như cũ)
+            log.warn("Saga event batch of {} failed, falling back to per-event processing", events.size(), ex);
+            for (SagaMessage evt : events) {
+                try {
+                    router.route(evt);
+                } catch (Exception e) {
+                    log.error("Failed to process saga event type={} sagaId={} orderId={}",
+                            evt.getClass().getSimpleName(), evt.sagaId(), evt.orderId(), e);
+                    onFailure.accept(evt, e);
+                }
+            }
+        }
+    }
+
+    private void preload(List<SagaMessage> events) {
+        Set<String> sagaIds = new LinkedHashSet<>();
+        Set<OrderId> orderIds = new LinkedHashSet<>();
+        for (SagaMessage evt : events) {
+            sagaIds.add(evt.sagaId());
+            orderIds.add(OrderId.of(evt.orderId()));
+        }
+        sagaIds.remove(null);
+        // chỉ cần nạp vào persistence context, kết quả không dùng trực tiếp
+        sagaRepository.findAllById(sagaIds);
+        orderRepository.findAllById(orderIds);
+    }
+}
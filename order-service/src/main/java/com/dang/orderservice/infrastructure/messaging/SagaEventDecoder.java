@@ -0,0 +1,61 @@
+package com.dang.orderservice.infrastructure.messaging;
+
+import com.dang.sagakafka.SagaRetryRouter;
+import com.dang.sagamessages.message.SagaMessage;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Record inventory/payment event -> SagaMessage, dùng chung cho listener thường, batch listener và retry listener.
+ */
+@Component
+public class SagaEventDecoder {
+
+    private static final Logger log = LoggerFactory.getLogger(SagaEventDecoder.class);
+
+    private static final TypeReference<Map<String, Object>> JSON_MAP = new TypeReference<>() {};
+
+    private final SagaPayloadCodec codec;
+    private final KafkaSagaTopicsProperties topics;
+    private final ObjectMapper objectMapper;
+
+    public SagaEventDecoder(SagaPayloadCodec codec, KafkaSagaTopicsProperties topics, ObjectMapper objectMapper) {
+        this.codec = codec;
+        this.topics = topics;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @return empty nếu value rỗng hoặc thiếu sagaId/orderId (poison message -> skip)
+     */
+    public Optional<SagaMessage> decode(ConsumerRecord<String, byte[]> record) throws IOException {
+        byte[] value = record.value();
+        if (value == null || value.length == 0) return Optional.empty();
+
+        // binary hoặc có header type => deserialize thẳng ra record, dispatch theo type
+        Optional<SagaMessage> typed = codec.decodeTyped(value, record.headers());
+        if (typed.isPresent()) return typed;
+
+        // legacy: JSON không có header => source theo topic gốc, success/fail theo reason
+        Map<String, Object> m = objectMapper.readValue(value, JSON_MAP);
+        String sagaId = (String) m.get("sagaId");
+        String orderId = (String) m.get("orderId");
+        if (sagaId == null || orderId == null) {
+            log.warn("Saga event missing sagaId/orderId topic={}: {}", record.topic(), m);
+            return Optional.empty();
+        }
+
+        SagaEventRouter.Source source = SagaRetryRouter.originalTopic(record).equals(topics.getPaymentEvents())
+                ? SagaEventRouter.Source.PAYMENT
+                : SagaEventRouter.Source.INVENTORY;
+        return Optional.of(new SagaEventRouter.LegacyEvent(source, sagaId, orderId, (String) m.get("reason")));
+    }
+}
@@ -0,0 +1,69 @@
+package com.dang.orderservice.infrastructure.messaging;
+
+import com.dang.orderservice.application.saga.OrderSagaOrchestrator;
+import com.dang.sagamessages.message.SagaMessage;
+import com.dang.sagamessages.message.inventory.InventoryEvents;
+import com.dang.sagamessages.message.payment.PaymentEvents;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+/**
+ * Dispatch event đã có type (từ header envelope) thẳng vào handler tương ứng của orchestrator,
+ * không phải đoán success/fail theo field reason.
+ */
+@Component
+public class SagaEventRouter {
+
+    private static final Logger log = LoggerFactory.getLogger(SagaEventRouter.class);
+
+    private final OrderSagaOrchestrator saga;
+    private final SagaLatencyMetrics metrics;
+
+    public SagaEventRouter(OrderSagaOrchestrator saga, SagaLatencyMetrics metrics) {
+        this.saga = saga;
+        this.metrics = metrics;
+    }
+
+    public void route(SagaMessage message) {
+        switch (message) {
+            case InventoryEvents.InventoryReservedEvent evt -> metrics.record(evt, () -> saga.onInventoryReserved(evt));
+            case InventoryEvents.InventoryReserveFailedEvent evt -> metrics.record(evt, () -> saga.onInventoryReserveFailed(evt));
+            case InventoryEvents.InventoryReleasedEvent evt -> metrics.record(evt, () -> saga.onInventoryReleased(evt));
+            case InventoryEvents.InventoryReleaseFailedEvent evt -> metrics.record(evt, () -> saga.onInventoryReleaseFailed(evt));
+            case PaymentEvents.PaymentCapturedEvent evt -> metrics.record(evt, () -> saga.onPaymentCaptured(evt));
+            case PaymentEvents.PaymentCaptureFailedEvent evt -> metrics.record(evt, () -> saga.onPaymentCaptureFailed(evt));
+            case PaymentEvents.PaymentRefundedEvent evt -> metrics.record(evt, () -> saga.onPaymentRefunded(evt));
+            case PaymentEvents.PaymentRefundFailedEvent evt -> metrics.record(evt, () -> saga.onPaymentRefundFailed(evt));
+            // JSON cũ không có occurredAt tin cậy => không đo
+            case LegacyEvent evt -> routeLegacy(evt);
+            default -> log.warn("Unexpected saga message type={} sagaId={} orderId={}",
+                    message.getClass().getSimpleName(), message.sagaId(), message.orderId());
+        }
+    }
+
+    private void routeLegacy(LegacyEvent evt) {
+        boolean failed = evt.reason() != null && !evt.reason().isBlank();
+        if (evt.source() == Source.INVENTORY) {
+            if (failed) saga.onInventoryFailed(evt.sagaId(), evt.orderId(), evt.reason());
+            else saga.onInventorySuccess(evt.sagaId(), evt.orderId());
+        } else {
+            if (failed) saga.onPaymentFailed(evt.sagaId(), evt.orderId(), evt.reason());
+            else saga.onPaymentSuccess(evt.sagaId(), evt.orderId());
+        }
+    }
+
+    public enum Source { INVENTORY, PAYMENT }
+
+    /**
+     * Event JSON cũ không có header type: success/fail đoán theo reason, orchestrator chọn handler theo flow của saga.
+     */
+    public record LegacyEvent(Source source, String sagaId, String orderId, String reason) implements SagaMessage {
+        @Override
+        public Instant occurredAt() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.dang.orderservice.infrastructure.messaging;
+
+import com.dang.sagakafka.KeyOrderedDispatcher;
+import com.dang.sagakafka.SagaRetryRouter;
+import com.dang.sagamessages.message.SagaMessage;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Thay cho InventoryEventsListener/PaymentEventsListener khi bật app.saga.batch-listener.enabled:
+ * nhận cả poll của 2 topic, chia lane theo orderId qua KeyOrderedDispatcher, mỗi lane giao cho SagaEventBatchProcessor
+ * xử lý trong 1 transaction.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.saga.batch-listener", name = "enabled", havingValue = "true")
+public class SagaEventsBatchListener {
+
+    private static final Logger log = LoggerFactory.getLogger(SagaEventsBatchListener.class);
+
+    private final SagaEventBatchProcessor processor;
+    private final KeyOrderedDispatcher dispatcher;
+    private final SagaEventDecoder decoder;
+    private final SagaRetryRouter retryRouter;
+
+    public SagaEventsBatchListener(SagaEventBatchProcessor processor, KeyOrderedDispatcher dispatcher,
+                                   SagaEventDecoder decoder, SagaRetryRouter retryRouter) {
+        this.processor = processor;
+        this.dispatcher = dispatcher;
+        this.decoder = decoder;
+        this.retryRouter = retryRouter;
+    }
+
+    @KafkaListener(
+            topics = {"${app.saga.topics.inventory-events}", "${app.saga.topics.payment-events}"},
+            groupId = "order-service",
+            containerFactory = KafkaBatchListenerConfig.CONTAINER_FACTORY
+    )
+    public void listen(List<ConsumerRecord<String, byte[]>> records, Acknowledgment ack) {
+        // mỗi lane (hash orderId) 1 virtual thread + 1 transaction; trong lane giữ thứ tự poll => đúng thứ tự theo order
+        int failed = dispatcher.dispatchLanes(records, this::processLane);
+        if (failed < 0) {
+            ack.acknowledge();
+        } else {
+            ack.nack(failed, dispatcher.retryBackoff());
+        }
+    }
+
+    private void processLane(List<ConsumerRecord<String, byte[]>> records) {
+        Map<SagaMessage, ConsumerRecord<String, byte[]>> sources = new IdentityHashMap<>();
+        List<SagaMessage> events = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, byte[]> record : records) {
+            try {
+                Optional<SagaMessage> evt = decoder.decode(record);
+                evt.ifPresent(e -> {
+                    events.add(e);
+                    sources.put(e, record);
+                });
+            } catch (Exception ex) {
+                log.error("Failed to decode saga event topic={} offset={}: {}",
+                        record.topic(), record.offset(), SagaPayloadCodec.preview(record.value()), ex);
+                toRetry(record, ex);
+            }
+        }
+
+        processor.process(events, (evt, ex) -> toRetry(sources.get(evt), ex));
+    }
+
+    // gửi retry topic lỗi => fail cả lane để nack, không được ack mất record
+    private void toRetry(ConsumerRecord<String, byte[]> record, Exception ex) {
+        if (!retryRouter.forward(record, ex)) {
+            throw new IllegalStateException("Could not forward saga event to retry topic offset=" + record.offset(), ex);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.dang.orderservice.infrastructure.messaging;
+
+import com.dang.sagakafka.SagaRetryRouter;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+/**
+ * Retry tier của inventory/payment events (chạy cả khi bật hay tắt batch listener):
+ * tới hạn mới xử lý lại, lỗi tiếp thì sang tier sau / parking lot.
+ */
+@Component
+public class SagaEventsRetryListener {
+
+    private static final String RETRY_LISTENER_ID = "order-saga-events-retry";
+
+    private final SagaEventRouter router;
+    private final SagaEventDecoder decoder;
+    private final SagaRetryRouter retryRouter;
+
+    public SagaEventsRetryListener(SagaEventRouter router, SagaEventDecoder decoder, SagaRetryRouter retryRouter) {
+        this.router = router;
+        this.decoder = decoder;
+        this.retryRouter = retryRouter;
+    }
+
+    @KafkaListener(
+            id = RETRY_LISTENER_ID,
+            topics = "#{@sagaRetryRouter.retryTopics('${app.saga.topics.inventory-events}', '${app.saga.topics.payment-events}')}",
+            groupId = "order-service"
+    )
+    public void listen(ConsumerRecord<String, byte[]> record, Acknowledgment ack, Consumer<?, ?> consumer) {
+        retryRouter.onRetry(RETRY_LISTENER_ID, record, ack, consumer, r -> decoder.decode(r).ifPresent(router::route));
+    }
+}
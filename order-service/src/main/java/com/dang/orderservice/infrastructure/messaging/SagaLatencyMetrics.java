@@ -0,0 +1,117 @@
+package com.dang.orderservice.infrastructure.messaging;
+
+import com.dang.orderservice.application.port.SagaMetricsPort;
+import com.dang.orderservice.domain.model.aggregates.OrderSaga;
+import com.dang.orderservice.domain.model.valueobjects.OrderStatus;
+import com.dang.sagamessages.envelope.SagaMessageType;
+import com.dang.sagamessages.message.SagaMessage;
+import com.dang.sagamessages.metrics.SagaMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.jspecify.annotations.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Phía order-service của histogram saga:
+ * saga.hop{step,flow} (occurredAt của event inventory/payment -> orchestrator nhận), saga.handler{step,flow,outcome},
+ * saga.e2e{flow,outcome} (start saga -> kết thúc). Bucket SLO dùng chung ở {@link SagaMetrics}.
+ */
+@Component
+public class SagaLatencyMetrics implements SagaMetricsPort {
+
+    // event order-service nhận (command do chính nó gửi thì đo ở inventory/payment)
+    private static final EnumSet<SagaMessageType> CONSUMED = EnumSet.of(
+            SagaMessageType.INVENTORY_RESERVED, SagaMessageType.INVENTORY_RESERVE_FAILED,
+            SagaMessageType.INVENTORY_RELEASED, SagaMessageType.INVENTORY_RELEASE_FAILED,
+            SagaMessageType.PAYMENT_CAPTURED, SagaMessageType.PAYMENT_CAPTURE_FAILED,
+            SagaMessageType.PAYMENT_REFUNDED, SagaMessageType.PAYMENT_REFUND_FAILED);
+
+    private final MeterRegistry meterRegistry;
+    private final Map<SagaMessageType, Timer> hops = new EnumMap<>(SagaMessageType.class);
+    private final Map<SagaMessageType, Timer> handled = new EnumMap<>(SagaMessageType.class);
+    private final Map<SagaMessageType, Timer> errors = new EnumMap<>(SagaMessageType.class);
+
+    public SagaLatencyMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        for (SagaMessageType type : CONSUMED) {
+            hops.put(type, Timer.builder(SagaMetrics.HOP)
+                    .description("Từ lúc service gửi tạo message tới lúc service nhận bắt đầu xử lý (outbox + broker)")
+                    .tag(SagaMetrics.TAG_STEP, SagaMetrics.step(type))
+                    .tag(SagaMetrics.TAG_FLOW, SagaMetrics.flow(type))
+                    .serviceLevelObjectives(SagaMetrics.HOP_SLO)
+                    .register(meterRegistry));
+            handled.put(type, handlerTimer(type, "ok"));
+            errors.put(type, handlerTimer(type, "error"));
+        }
+    }
+
+    /** Chạy handler của 1 event, ghi hop + thời gian xử lý. */
+    public void record(SagaMessage message, Runnable handler) {
+        SagaMessageType type = SagaMessageType.of(message);
+        Timer hop = hops.get(type);
+        if (hop == null) {
+            handler.run();
+            return;
+        }
+        if (message.occurredAt() != null) {
+            hop.record(SagaMetrics.since(message.occurredAt(), Instant.now()));
+        }
+        long start = System.nanoTime();
+        boolean ok = false;
+        try {
+            handler.run();
+            ok = true;
+        } finally {
+            (ok ? handled : errors).get(type).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void sagaFinished(OrderSaga saga, @Nullable OrderStatus orderStatus) {
+        if (saga.getCreatedAt() == null) return;
+        Timer timer = Timer.builder(SagaMetrics.END_TO_END)
+                .description("Từ lúc start saga tới lúc saga kết thúc")
+                .tag(SagaMetrics.TAG_FLOW, saga.isCancelSaga() ? SagaMetrics.FLOW_CANCEL : SagaMetrics.FLOW_CREATE)
+                .tag(SagaMetrics.TAG_OUTCOME, outcome(saga, orderStatus))
+                .serviceLevelObjectives(SagaMetrics.END_TO_END_SLO)
+                .register(meterRegistry);
+        Instant startedAt = saga.getCreatedAt();
+
+        // retry do xung đột / rollback không được tính 2 lần
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            timer.record(SagaMetrics.since(startedAt, Instant.now()));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                timer.record(SagaMetrics.since(startedAt, Instant.now()));
+            }
+        });
+    }
+
+    private static String outcome(OrderSaga saga, @Nullable OrderStatus orderStatus) {
+        if (saga.isFailed()) return "failed";
+        if (orderStatus == OrderStatus.CONFIRMED) return "confirmed";
+        if (orderStatus == OrderStatus.CANCELLED) return "cancelled";
+        return "completed";
+    }
+
+    private Timer handlerTimer(SagaMessageType type, String outcome) {
+        return Timer.builder(SagaMetrics.HANDLER)
+                .description("Thời gian handler xử lý 1 message saga")
+                .tag(SagaMetrics.TAG_STEP, SagaMetrics.step(type))
+                .tag(SagaMetrics.TAG_FLOW, SagaMetrics.flow(type))
+                .tag(SagaMetrics.TAG_OUTCOME, outcome)
+                .serviceLevelObjectives(SagaMetrics.HANDLER_SLO)
+                .register(meterRegistry);
+    }
+}
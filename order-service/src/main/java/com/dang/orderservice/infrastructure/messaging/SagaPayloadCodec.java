@@ -0,0 +1,73 @@
+package com.dang.orderservice.infrastructure.messaging;
+
+import com.dang.sagakafka.SagaKafkaHeaders;
+import com.dang.sagamessages.codec.SagaBinaryCodec;
+import com.dang.sagamessages.envelope.SagaEnvelope;
+import com.dang.sagamessages.envelope.SagaHeaders;
+import com.dang.sagamessages.envelope.UnsupportedSchemaVersionException;
+import com.dang.sagamessages.message.SagaMessage;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.common.header.Headers;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+/**
+ * Encode/decode value Kafka của saga message theo app.saga.codec (json | binary).
+ * Decode luôn nhận cả 2 dạng (binary nhận ra bằng magic byte) => đổi codec không cần dừng đồng loạt các service.
+ */
+@Component
+public class SagaPayloadCodec {
+
+    private final ObjectMapper objectMapper;
+    private final boolean binary;
+
+    public SagaPayloadCodec(ObjectMapper objectMapper, @Value("${app.saga.codec:json}") String codec) {
+        this.objectMapper = objectMapper;
+        this.binary = "binary".equalsIgnoreCase(codec);
+    }
+
+    public boolean isBinary() {
+        return binary;
+    }
+
+    public String contentType() {
+        return binary ? SagaBinaryCodec.CONTENT_TYPE : SagaHeaders.JSON_CONTENT_TYPE;
+    }
+
+    public byte[] encode(SagaMessage message) {
+        if (binary) return SagaBinaryCodec.encode(message);
+        try {
+            return objectMapper.writeValueAsBytes(message);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to encode saga message " + message.getClass().getSimpleName(), e);
+        }
+    }
+
+    /**
+     * Binary tự mô tả type; JSON cần header type. Empty => JSON cũ không header, caller tự đoán như trước.
+     *
+     * @throws UnsupportedSchemaVersionException header báo schemaVersion mới hơn bản consumer này biết
+     */
+    public Optional<SagaMessage> decodeTyped(byte[] value, Headers headers) throws IOException {
+        Optional<SagaEnvelope> envelope = SagaKafkaHeaders.read(headers).map(SagaEnvelope::requireSupportedVersion);
+        if (SagaBinaryCodec.isBinary(value)) {
+            return Optional.of(SagaBinaryCodec.decode(value));
+        }
+        if (envelope.isPresent()) {
+            return Optional.of(objectMapper.readValue(value, envelope.get().type().payloadType()));
+        }
+        return Optional.empty();
+    }
+
+    // cho log: JSON in nguyên văn, binary chỉ in kích thước
+    public static String preview(byte[] value) {
+        if (value == null) return "null";
+        if (SagaBinaryCodec.isBinary(value)) return "<binary " + value.length + " bytes>";
+        return new String(value, StandardCharsets.UTF_8);
+    }
+}
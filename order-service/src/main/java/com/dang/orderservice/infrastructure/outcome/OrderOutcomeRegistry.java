@@ -0,0 +1,70 @@
+package com.dang.orderservice.infrastructure.outcome;
+
+import com.dang.orderservice.application.dtos.OrderResponse;
+import com.dang.orderservice.application.port.OrderOutcomePort;
+import com.dang.orderservice.application.service.OrderResponseMapper;
+import com.dang.orderservice.domain.model.aggregates.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Registry in-process: request đang chờ kết quả saga đăng ký 1 future theo orderId, orchestrator hoàn thành nó
+ * khi order CONFIRMED / CANCELLED. Không giữ thread nào, chỉ giữ future tới khi có kết quả hoặc hết hạn.
+ *
+ * Chỉ đánh thức được request trên cùng instance đã xử lý event; instance khác chờ tới timeout rồi đọc lại DB.
+ */
+@Component
+public class OrderOutcomeRegistry implements OrderOutcomePort {
+
+    private final Map<String, List<CompletableFuture<OrderResponse>>> waiters = new ConcurrentHashMap<>();
+
+    public CompletableFuture<OrderResponse> await(String orderId) {
+        CompletableFuture<OrderResponse> future = new CompletableFuture<>();
+        waiters.computeIfAbsent(orderId, k -> new CopyOnWriteArrayList<>()).add(future);
+        return future;
+    }
+
+    public void release(String orderId, CompletableFuture<OrderResponse> future) {
+        waiters.computeIfPresent(orderId, (k, list) -> {
+            list.remove(future);
+            return list.isEmpty() ? null : list;
+        });
+    }
+
+    public int waiting() {
+        return waiters.size();
+    }
+
+    @Override
+    public void settled(Order order) {
+        String orderId = order.getId().value();
+        if (!waiters.containsKey(orderId)) return; // đường nóng: không ai chờ thì khỏi map response
+
+        // map ngay trong transaction (lines lazy), chỉ phát sau commit để client không thấy trạng thái bị rollback
+        OrderResponse response = OrderResponseMapper.toResponse(order);
+        afterCommit(() -> {
+            List<CompletableFuture<OrderResponse>> list = waiters.remove(orderId);
+            if (list != null) list.forEach(f -> f.complete(response));
+        });
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,89 @@
+package com.dang.orderservice.infrastructure.ownership;
+
+import com.dang.orderservice.application.port.OrderViewPort;
+import com.dang.orderservice.domain.model.aggregates.Order;
+import com.dang.orderservice.domain.model.valueobjects.OrderId;
+import com.dang.orderservice.domain.repository.OrderRepository;
+import com.dang.orderservice.infrastructure.persistence.jpa.JpaOrderRepository;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * OrderRepository khi bật app.saga.ownership: order thuộc partition đang giữ đọc từ RAM, ghi bằng UPDATE theo version.
+ * Order ngoài partition (hoặc chưa có trong RAM) đi thẳng xuống repository JPA như cũ.
+ */
+public class OwnedOrderRepository implements OrderRepository {
+
+    private final OrderRepository delegate;
+    private final JpaOrderRepository jpa;
+    private final OrderViewPort views;
+    private final OwnedSagaStateCache.Region<Order, ?> cache;
+
+    public OwnedOrderRepository(OrderRepository delegate, JpaOrderRepository jpa, OrderViewPort views,
+                                OwnedSagaStateCache cache) {
+        this.delegate = delegate;
+        this.jpa = jpa;
+        this.views = views;
+        this.cache = cache.orders;
+    }
+
+    @Override
+    public Order save(Order order) {
+        OwnedSagaStateCache.Tracked<Order> cached = order.isNew() ? null : cache.cached(order);
+        if (cached == null) {
+            Order saved = delegate.save(order);
+            cache.saved(saved);
+            return saved;
+        }
+
+        // bước saga chỉ đổi status/cờ/lý do huỷ; line và total cố định từ lúc tạo order
+        String orderId = order.getId().value();
+        int updated = jpa.updateState(orderId, order.getStatus().name(), order.isInventoryReserved(), order.isPaid(),
+                order.getCancelReason(), cached.version);
+        if (updated == 0) {
+            cache.evict(orderId);
+            throw new OptimisticLockingFailureException("Order " + orderId + " changed since version " + cached.version);
+        }
+        cache.written(cached);
+        views.project(order);
+        return order;
+    }
+
+    @Override
+    public Optional<Order> findById(OrderId id) {
+        Order cached = cache.checkout(id.value());
+        if (cached != null) return Optional.of(cached);
+
+        Optional<Order> loaded = delegate.findById(id);
+        loaded.ifPresent(this::loaded);
+        return loaded;
+    }
+
+    @Override
+    public List<Order> findAllById(Collection<OrderId> ids) {
+        List<Order> result = new ArrayList<>(ids.size());
+        List<OrderId> missing = new ArrayList<>();
+        for (OrderId id : ids) {
+            Order cached = cache.checkout(id.value());
+            if (cached != null) result.add(cached);
+            else missing.add(id);
+        }
+        if (!missing.isEmpty()) {
+            for (Order order : delegate.findAllById(missing)) {
+                loaded(order);
+                result.add(order);
+            }
+        }
+        return result;
+    }
+
+    private void loaded(Order order) {
+        if (cache.loaded(order)) {
+            order.getLines().size(); // snapshot lúc commit cần line, nạp khi session còn trong transaction
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.dang.orderservice.infrastructure.ownership;
+
+import com.dang.orderservice.domain.model.aggregates.OrderSaga;
+import com.dang.orderservice.domain.model.valueobjects.SagaStatus;
+import com.dang.orderservice.domain.repository.OrderSagaRepository;
+import com.dang.orderservice.infrastructure.persistence.jpa.JpaOrderSagaRepository;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * OrderSagaRepository (store row) khi bật app.saga.ownership: như {@link OwnedOrderRepository} cho bảng order_sagas.
+ */
+public class OwnedOrderSagaRepository implements OrderSagaRepository {
+
+    private final OrderSagaRepository delegate;
+    private final JpaOrderSagaRepository jpa;
+    private final OwnedSagaStateCache.Region<OrderSaga, ?> cache;
+
+    public OwnedOrderSagaRepository(OrderSagaRepository delegate, JpaOrderSagaRepository jpa, OwnedSagaStateCache cache) {
+        this.delegate = delegate;
+        this.jpa = jpa;
+        this.cache = cache.sagas;
+    }
+
+    @Override
+    public OrderSaga save(OrderSaga saga) {
+        OwnedSagaStateCache.Tracked<OrderSaga> cached = saga.isNew() ? null : cache.cached(saga);
+        if (cached == null) {
+            OrderSaga saved = delegate.save(saga);
+            cache.saved(saved);
+            return saved;
+        }
+
+        int flags = saga.stateFlags();
+        int updated = jpa.updateState(saga.getId(), saga.getStatus().name(),
+                has(flags, OrderSaga.INVENTORY_RESERVED), has(flags, OrderSaga.PAYMENT_CAPTURED),
+                has(flags, OrderSaga.INVENTORY_RESERVE_FAILED), has(flags, OrderSaga.PAYMENT_CAPTURE_FAILED),
+                has(flags, OrderSaga.TIMED_OUT),
+                has(flags, OrderSaga.INVENTORY_COMPENSATION_REQUIRED), has(flags, OrderSaga.PAYMENT_COMPENSATION_REQUIRED),
+                has(flags, OrderSaga.INVENTORY_COMPENSATION_DONE), has(flags, OrderSaga.PAYMENT_COMPENSATION_DONE),
+                saga.getFailureReason(), saga.getUpdatedAt(), cached.version);
+        if (updated == 0) {
+            cache.evict(saga.getId());
+            throw new OptimisticLockingFailureException("Saga " + saga.getId() + " changed since version " + cached.version);
+        }
+        cache.written(cached);
+        return saga;
+    }
+
+    @Override
+    public Optional<OrderSaga> findById(String sagaId) {
+        OrderSaga cached = cache.checkout(sagaId);
+        if (cached != null) return Optional.of(cached);
+
+        Optional<OrderSaga> loaded = delegate.findById(sagaId);
+        loaded.ifPresent(cache::loaded);
+        return loaded;
+    }
+
+    @Override
+    public List<OrderSaga> findAllById(Collection<String> sagaIds) {
+        List<OrderSaga> result = new ArrayList<>(sagaIds.size());
+        List<String> missing = new ArrayList<>();
+        for (String sagaId : sagaIds) {
+            OrderSaga cached = cache.checkout(sagaId);
+            if (cached != null) result.add(cached);
+            else missing.add(sagaId);
+        }
+        if (!missing.isEmpty()) {
+            for (OrderSaga saga : delegate.findAllById(missing)) {
+                cache.loaded(saga);
+                result.add(saga);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Optional<OrderSaga> findLatestByOrderIdAndStatus(String orderId, SagaStatus status) {
+        // chỉ dùng lúc start cancel saga (hiếm): luôn hỏi DB
+        return delegate.findLatestByOrderIdAndStatus(orderId, status);
+    }
+
+    private static boolean has(int flags, int bit) {
+        return (flags & bit) != 0;
+    }
+}
@@ -0,0 +1,316 @@
+package com.dang.orderservice.infrastructure.ownership;
+
+import com.dang.orderservice.domain.model.aggregates.Order;
+import com.dang.orderservice.domain.model.aggregates.OrderSaga;
+import com.dang.orderservice.domain.model.valueobjects.CustomerId;
+import com.dang.orderservice.domain.model.valueobjects.Money;
+import com.dang.orderservice.domain.model.valueobjects.OrderId;
+import com.dang.orderservice.domain.model.valueobjects.OrderLine;
+import com.dang.orderservice.domain.model.valueobjects.OrderStatus;
+import com.dang.orderservice.domain.model.valueobjects.SagaStatus;
+import com.dang.orderservice.domain.model.valueobjects.ShippingAddress;
+import com.dang.orderservice.infrastructure.persistence.jpa.JpaOrderRepository;
+import com.dang.orderservice.infrastructure.persistence.jpa.JpaOrderSagaRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * State đã commit của order/saga thuộc partition instance này đang giữ => bước saga không phải đọc lại DB.
+ *
+ * DB vẫn là nguồn gốc: mỗi bước vẫn ghi ngay trong transaction (UPDATE có điều kiện version, không SELECT trước).
+ * Bản trong RAM lệch (HTTP cancel, timeout ở instance khác đã ghi trước) => UPDATE 0 dòng => bỏ bản trong RAM,
+ * ném optimistic lock để @RetryOnConflict chạy lại handler, lần này đọc từ DB.
+ *
+ * Mỗi lần đọc dựng instance mới từ snapshot bất biến; snapshot chỉ được thay sau commit => rollback không làm bẩn cache.
+ */
+public class OwnedSagaStateCache {
+
+    private static final Logger log = LoggerFactory.getLogger(OwnedSagaStateCache.class);
+
+    private final SagaPartitionOwnership ownership;
+    private final JpaOrderRepository orderRows;
+    private final JpaOrderSagaRepository sagaRows;
+    private final TransactionTemplate readTx;
+    private final boolean preloadSagas;
+    private final int preloadLimit;
+
+    final Region<Order, OrderSnapshot> orders;
+    final Region<OrderSaga, SagaSnapshot> sagas;
+
+    /**
+     * @param preloadSagas false khi saga lưu ở event store (đã có cache riêng): chỉ cache order, nạp dần khi miss
+     */
+    public OwnedSagaStateCache(SagaPartitionOwnership ownership,
+                               JpaOrderRepository orderRows,
+                               JpaOrderSagaRepository sagaRows,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               boolean preloadSagas,
+                               int preloadLimit) {
+        this.ownership = ownership;
+        this.orderRows = orderRows;
+        this.sagaRows = sagaRows;
+        this.readTx = new TransactionTemplate(transactionManager);
+        this.readTx.setReadOnly(true);
+        this.preloadSagas = preloadSagas;
+        this.preloadLimit = preloadLimit;
+        this.orders = new Region<>("order", o -> o.getId().value(), o -> o.getId().value(), Order::getVersion,
+                OrderSnapshot::of, meterRegistry);
+        this.sagas = new Region<>("saga", OrderSaga::getId, OrderSaga::getOrderId, OrderSaga::getVersion,
+                SagaSnapshot::of, meterRegistry);
+    }
+
+    /**
+     * Nạp saga đang chạy (và order của chúng) thuộc partition vừa nhận. Chạy nền: không giữ consumer trong rebalance;
+     * event tới trước khi nạp xong thì đọc DB như bình thường.
+     */
+    public void preload() {
+        if (!preloadSagas) return;
+        Thread.ofVirtual().name("saga-ownership-preload").start(() -> {
+            try {
+                readTx.executeWithoutResult(status -> {
+                    List<OrderSaga> active = sagaRows.findByStatusInOrderByCreatedAtDesc(
+                                    List.of(SagaStatus.CREATE_FLOW, SagaStatus.CANCEL_FLOW), PageRequest.ofSize(preloadLimit))
+                            .stream()
+                            .filter(s -> ownership.owns(s.getOrderId()))
+                            .toList();
+                    active.forEach(s -> sagas.offer(SagaSnapshot.of(s, s.getVersion())));
+                    orderRows.findAllById(active.stream().map(s -> OrderId.of(s.getOrderId())).distinct().toList())
+                            .forEach(o -> orders.offer(OrderSnapshot.of(o, o.getVersion())));
+                    log.info("Preloaded {} owned sagas", active.size());
+                });
+            } catch (Exception ex) {
+                log.warn("Saga ownership preload failed: {}", ex.getMessage());
+            }
+        });
+    }
+
+    /** Bỏ state của order không còn thuộc partition nào instance này giữ. */
+    public int evictUnowned() {
+        return orders.evictUnowned() + sagas.evictUnowned();
+    }
+
+    /**
+     * 1 loại aggregate: snapshot đã commit + các instance đã phát ra trong transaction hiện tại (giữ identity
+     * trong transaction như persistence context, và version để UPDATE).
+     */
+    final class Region<A, S extends Snapshot<A>> {
+
+        private final Map<String, S> committed = new ConcurrentHashMap<>();
+        private final Function<A, String> id;
+        private final Function<A, String> orderId;
+        private final ToLongFunction<A> managedVersion;
+        private final BiFunction<A, Long, S> snapshot;
+        private final Counter hits;
+        private final Counter misses;
+
+        Region(String name, Function<A, String> id, Function<A, String> orderId, ToLongFunction<A> managedVersion,
+               BiFunction<A, Long, S> snapshot, MeterRegistry meterRegistry) {
+            this.id = id;
+            this.orderId = orderId;
+            this.managedVersion = managedVersion;
+            this.snapshot = snapshot;
+            this.hits = counter(meterRegistry, name, "hit");
+            this.misses = counter(meterRegistry, name, "miss");
+            Gauge.builder("order.ownership.cache.size", committed, Map::size)
+                    .description("Số aggregate đang giữ trong RAM theo partition")
+                    .tag("aggregate", name)
+                    .register(meterRegistry);
+        }
+
+        /** Instance cho id trong transaction hiện tại: đã phát ra trước đó, hoặc dựng từ snapshot; null => đọc DB. */
+        @Nullable A checkout(String key) {
+            Map<String, Tracked<A>> tracked = tracked(true);
+            if (tracked == null) return null; // không có transaction => không theo dõi được version để ghi
+            Tracked<A> inTx = tracked.get(key);
+            if (inTx != null) return inTx.aggregate;
+            S snap = committed.get(key);
+            if (snap == null) return null;
+            hits.increment();
+            A aggregate = snap.restore();
+            tracked.put(key, new Tracked<>(aggregate, true, snap.version()));
+            return aggregate;
+        }
+
+        /** Entity JPA vừa đọc từ DB (miss); true nếu thuộc partition đang giữ => sẽ vào cache khi commit. */
+        boolean loaded(A aggregate) {
+            boolean owned = track(aggregate);
+            if (owned) misses.increment();
+            return owned;
+        }
+
+        /** Entity JPA vừa persist/merge. */
+        void saved(A aggregate) {
+            track(aggregate);
+        }
+
+        /** Instance lấy từ cache (cần UPDATE theo version), null nếu là entity JPA. */
+        @Nullable Tracked<A> cached(A aggregate) {
+            Map<String, Tracked<A>> tracked = tracked(false);
+            Tracked<A> t = tracked == null ? null : tracked.get(id.apply(aggregate));
+            return t != null && t.fromCache && t.aggregate == aggregate ? t : null;
+        }
+
+        void written(Tracked<A> tracked) {
+            tracked.version++;
+            tracked.written = true;
+        }
+
+        void evict(String key) {
+            committed.remove(key);
+        }
+
+        void offer(S snap) {
+            if (snap.finished()) {
+                committed.remove(snap.id()); // saga/order đã kết thúc: không còn bước nào cần đọc
+            } else if (ownership.owns(snap.orderId())) {
+                committed.merge(snap.id(), snap, (old, neu) -> neu.version() >= old.version() ? neu : old);
+            }
+        }
+
+        int evictUnowned() {
+            int before = committed.size();
+            committed.values().removeIf(s -> !ownership.owns(s.orderId()));
+            return before - committed.size();
+        }
+
+        private boolean track(A aggregate) {
+            if (!ownership.owns(orderId.apply(aggregate))) return false;
+            Map<String, Tracked<A>> tracked = tracked(true);
+            if (tracked == null) return false;
+            tracked.putIfAbsent(id.apply(aggregate), new Tracked<>(aggregate, false, 0));
+            return true;
+        }
+
+        @SuppressWarnings("unchecked")
+        private @Nullable Map<String, Tracked<A>> tracked(boolean create) {
+            if (!TransactionSynchronizationManager.isSynchronizationActive()) return null;
+            Map<String, Tracked<A>> tracked = (Map<String, Tracked<A>>) TransactionSynchronizationManager.getResource(this);
+            if (tracked == null && create) {
+                Map<String, Tracked<A>> inTx = new HashMap<>();
+                TransactionSynchronizationManager.bindResource(this, inTx);
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        TransactionSynchronizationManager.unbindResourceIfPossible(Region.this);
+                        if (status == STATUS_COMMITTED) {
+                            inTx.values().forEach(Region.this::commit);
+                        } else {
+                            inTx.keySet().forEach(committed::remove); // không chắc DB đang ở version nào
+                        }
+                    }
+                });
+                tracked = inTx;
+            }
+            return tracked;
+        }
+
+        private void commit(Tracked<A> tracked) {
+            if (!tracked.fromCache) {
+                // entity JPA: flush lúc commit đã đưa version lên giá trị trong DB
+                offer(snapshot.apply(tracked.aggregate, managedVersion.applyAsLong(tracked.aggregate)));
+            } else if (tracked.written) {
+                offer(snapshot.apply(tracked.aggregate, tracked.version));
+            }
+            // lấy từ cache nhưng không ghi: snapshot cũ vẫn đúng
+        }
+    }
+
+    static final class Tracked<A> {
+        final A aggregate;
+        final boolean fromCache;
+        long version;
+        boolean written;
+
+        Tracked(A aggregate, boolean fromCache, long version) {
+            this.aggregate = aggregate;
+            this.fromCache = fromCache;
+            this.version = version;
+        }
+    }
+
+    interface Snapshot<A> {
+        String id();
+        String orderId();
+        long version();
+        boolean finished();
+        A restore();
+    }
+
+    record OrderSnapshot(OrderId orderKey, CustomerId customerId, OrderStatus status, ShippingAddress shippingAddress,
+                         Money total, Instant createdAt, List<OrderLine> lines, boolean inventoryReserved, boolean paid,
+                         String cancelReason, long version) implements Snapshot<Order> {
+
+        static OrderSnapshot of(Order o, long version) {
+            return new OrderSnapshot(o.getId(), o.getCustomerId(), o.getStatus(), o.getShippingAddress(), o.getTotal(),
+                    o.getCreatedAt(), List.copyOf(o.getLines()), o.isInventoryReserved(), o.isPaid(),
+                    o.getCancelReason(), version);
+        }
+
+        @Override
+        public String id() {
+            return orderKey.value();
+        }
+
+        @Override
+        public String orderId() {
+            return orderKey.value();
+        }
+
+        @Override
+        public boolean finished() {
+            return status == OrderStatus.CONFIRMED || status == OrderStatus.CANCELLED;
+        }
+
+        @Override
+        public Order restore() {
+            return Order.restore(orderKey, customerId, status, shippingAddress, total, createdAt, lines,
+                    inventoryReserved, paid, cancelReason);
+        }
+    }
+
+    record SagaSnapshot(String id, String orderId, SagaStatus status, int flags, String failureReason,
+                        Instant createdAt, Instant updatedAt, long version) implements Snapshot<OrderSaga> {
+
+        static SagaSnapshot of(OrderSaga s, long version) {
+            return new SagaSnapshot(s.getId(), s.getOrderId(), s.getStatus(), s.stateFlags(), s.getFailureReason(),
+                    s.getCreatedAt(), s.getUpdatedAt(), version);
+        }
+
+        @Override
+        public boolean finished() {
+            return status == SagaStatus.COMPLETED || status == SagaStatus.FAILED;
+        }
+
+        @Override
+        public OrderSaga restore() {
+            return OrderSaga.restore(id, orderId, status, flags, failureReason, createdAt, updatedAt);
+        }
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String aggregate, String result) {
+        return Counter.builder("order.ownership.cache")
+                .description("Đọc aggregate cho bước saga: hit = từ RAM, miss = từ DB (aggregate thuộc partition đang giữ)")
+                .tag("aggregate", aggregate)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,67 @@
+package com.dang.orderservice.infrastructure.ownership;
+
+import com.dang.orderservice.application.port.OrderViewPort;
+import com.dang.orderservice.domain.repository.OrderRepository;
+import com.dang.orderservice.domain.repository.OrderSagaRepository;
+import com.dang.orderservice.infrastructure.messaging.KafkaSagaTopicsProperties;
+import com.dang.orderservice.infrastructure.persistence.jpa.JpaOrderRepository;
+import com.dang.orderservice.infrastructure.persistence.jpa.JpaOrderSagaRepository;
+import com.dang.orderservice.infrastructure.persistence.jpa.impl.OrderRepositoryImpl;
+import com.dang.orderservice.infrastructure.persistence.jpa.impl.OrderSagaRepositoryImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+/**
+ * app.saga.ownership.enabled: mỗi instance giữ state saga/order của partition events nó được gán.
+ * Rebalance listener được container mặc định (Spring Boot) và container batch nhặt qua bean.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "app.saga.ownership", name = "enabled", havingValue = "true")
+public class SagaOwnershipConfig {
+
+    @Bean
+    public SagaPartitionOwnership sagaPartitionOwnership(KafkaSagaTopicsProperties topics) {
+        return new SagaPartitionOwnership(List.of(topics.getInventoryEvents(), topics.getPaymentEvents()));
+    }
+
+    @Bean
+    public OwnedSagaStateCache ownedSagaStateCache(SagaPartitionOwnership ownership,
+                                                   JpaOrderRepository orderRows,
+                                                   JpaOrderSagaRepository sagaRows,
+                                                   PlatformTransactionManager transactionManager,
+                                                   MeterRegistry meterRegistry,
+                                                   @Value("${app.saga.store.type:row}") String storeType,
+                                                   @Value("${app.saga.ownership.preload-limit:10000}") int preloadLimit) {
+        return new OwnedSagaStateCache(ownership, orderRows, sagaRows, transactionManager, meterRegistry,
+                "row".equals(storeType), preloadLimit);
+    }
+
+    @Bean
+    public SagaOwnershipRebalanceListener sagaOwnershipRebalanceListener(SagaPartitionOwnership ownership,
+                                                                         OwnedSagaStateCache cache) {
+        return new SagaOwnershipRebalanceListener(ownership, cache);
+    }
+
+    @Bean
+    @Primary
+    public OrderRepository ownedOrderRepository(OrderRepositoryImpl delegate, JpaOrderRepository jpa,
+                                                OrderViewPort views, OwnedSagaStateCache cache) {
+        return new OwnedOrderRepository(delegate, jpa, views, cache);
+    }
+
+    // store events đã có cache state riêng (EventSourcedOrderSagaRepository): chỉ bọc store row
+    @Bean
+    @Primary
+    @ConditionalOnProperty(prefix = "app.saga.store", name = "type", havingValue = "row", matchIfMissing = true)
+    public OrderSagaRepository ownedOrderSagaRepository(OrderSagaRepositoryImpl delegate, JpaOrderSagaRepository jpa,
+                                                        OwnedSagaStateCache cache) {
+        return new OwnedOrderSagaRepository(delegate, jpa, cache);
+    }
+}
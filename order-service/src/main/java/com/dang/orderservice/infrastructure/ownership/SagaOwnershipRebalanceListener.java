@@ -0,0 +1,66 @@
+package com.dang.orderservice.infrastructure.ownership;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Nhận partition => nạp saga đang chạy của partition đó vào RAM; mất partition => bỏ state của nó
+ * (instance mới giữ partition sẽ đọc DB). Gắn vào cả container mặc định lẫn container batch.
+ */
+public class SagaOwnershipRebalanceListener implements ConsumerAwareRebalanceListener {
+
+    private static final Logger log = LoggerFactory.getLogger(SagaOwnershipRebalanceListener.class);
+
+    private final SagaPartitionOwnership ownership;
+    private final OwnedSagaStateCache cache;
+
+    public SagaOwnershipRebalanceListener(SagaPartitionOwnership ownership, OwnedSagaStateCache cache) {
+        this.ownership = ownership;
+        this.cache = cache;
+    }
+
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        List<TopicPartition> sagaPartitions = tracked(partitions);
+        if (sagaPartitions.isEmpty()) return;
+        try {
+            for (TopicPartition partition : sagaPartitions) {
+                ownership.assigned(partition, consumer.partitionsFor(partition.topic()).size());
+            }
+        } catch (Exception ex) {
+            // không lấy được metadata: coi như không giữ partition nào mới, handler vẫn đọc DB như bình thường
+            log.warn("Could not resolve partition count for saga ownership: {}", ex.getMessage());
+            return;
+        }
+        log.info("Saga partitions assigned {}", sagaPartitions);
+        cache.preload();
+    }
+
+    @Override
+    public void onPartitionsRevokedAfterCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        release(partitions);
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        release(partitions);
+    }
+
+    private void release(Collection<TopicPartition> partitions) {
+        List<TopicPartition> sagaPartitions = tracked(partitions);
+        if (sagaPartitions.isEmpty()) return;
+        sagaPartitions.forEach(ownership::revoked);
+        int evicted = cache.evictUnowned();
+        log.info("Saga partitions revoked {}, evicted {} cached aggregates", sagaPartitions, evicted);
+    }
+
+    private List<TopicPartition> tracked(Collection<TopicPartition> partitions) {
+        return partitions.stream().filter(p -> ownership.tracks(p.topic())).toList();
+    }
+}
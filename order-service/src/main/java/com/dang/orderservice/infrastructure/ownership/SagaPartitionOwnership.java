@@ -0,0 +1,51 @@
+package com.dang.orderservice.infrastructure.ownership;
+
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.utils.Utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Partition của topic inventory/payment events mà instance này đang giữ. Event được key theo orderId
+ * => mọi bước saga của 1 order rơi vào cùng partition, tức cùng instance (chừng nào chưa rebalance).
+ *
+ * Giữ partition ở bất kỳ topic nào trong 2 topic là đủ: mặc định (range assignor, số partition bằng nhau)
+ * cùng chỉ số partition của 2 topic về cùng consumer; lệch thì chỉ giảm tỉ lệ hit, không sai (ghi có version).
+ */
+public class SagaPartitionOwnership {
+
+    private final Set<String> topics;
+    private final Set<TopicPartition> owned = ConcurrentHashMap.newKeySet();
+    private final Map<String, Integer> partitionCounts = new ConcurrentHashMap<>();
+
+    public SagaPartitionOwnership(Collection<String> topics) {
+        this.topics = Set.copyOf(topics);
+    }
+
+    public boolean tracks(String topic) {
+        return topics.contains(topic);
+    }
+
+    void assigned(TopicPartition partition, int partitionCount) {
+        partitionCounts.put(partition.topic(), partitionCount);
+        owned.add(partition);
+    }
+
+    void revoked(TopicPartition partition) {
+        owned.remove(partition);
+    }
+
+    public boolean owns(String orderId) {
+        if (owned.isEmpty()) return false;
+        byte[] key = orderId.getBytes(StandardCharsets.UTF_8);
+        int hash = Utils.toPositive(Utils.murmur2(key)); // giống partitioner mặc định của producer với key != null
+        for (Map.Entry<String, Integer> topic : partitionCounts.entrySet()) {
+            if (owned.contains(new TopicPartition(topic.getKey(), hash % topic.getValue()))) return true;
+        }
+        return false;
+    }
+}
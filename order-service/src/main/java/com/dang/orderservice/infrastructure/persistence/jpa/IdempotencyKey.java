@@ -0,0 +1,41 @@
+package com.dang.orderservice.infrastructure.persistence.jpa;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Getter;
+
+import java.time.Instant;
+
+/**
+ * Idempotency-Key của POST /api/orders: scope = customerId + ":" + key => order đã tạo cho key đó.
+ * request_hash để phát hiện client dùng lại key cho request khác.
+ */
+@Getter
+@Entity
+@Table(
+        name = "idempotency_keys",
+        indexes = @Index(name = "idx_idempotency_keys_expires", columnList = "expires_at")
+)
+public class IdempotencyKey {
+
+    @Id
+    @Column(name = "scope_key", length = 200)
+    private String scopeKey;
+
+    @Column(name = "order_id", nullable = false, length = 36)
+    private String orderId;
+
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    protected IdempotencyKey() {}
+}
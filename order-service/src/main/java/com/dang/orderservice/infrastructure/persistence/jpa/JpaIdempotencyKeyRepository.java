@@ -0,0 +1,49 @@
+package com.dang.orderservice.infrastructure.persistence.jpa;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public interface JpaIdempotencyKeyRepository extends JpaRepository<IdempotencyKey, String> {
+
+    /**
+     * Giữ key cho order mới (hoặc lấy lại key đã hết hạn). 0 row => key đang thuộc về request khác;
+     * nếu request đó chưa commit thì Postgres chờ nó xong rồi mới trả về, nên duplicate giữa các instance
+     * cũng bị xếp hàng sau request đầu tiên.
+     */
+    @Modifying
+    @Query(
+            value = """
+                    INSERT INTO idempotency_keys (scope_key, order_id, request_hash, created_at, expires_at)
+                    VALUES (?1, ?2, ?3, ?4, ?5)
+                    ON CONFLICT (scope_key) DO UPDATE
+                    SET order_id = EXCLUDED.order_id, request_hash = EXCLUDED.request_hash,
+                        created_at = EXCLUDED.created_at, expires_at = EXCLUDED.expires_at
+                    WHERE idempotency_keys.expires_at <= EXCLUDED.created_at
+                    """,
+            nativeQuery = true
+    )
+    int claim(String scopeKey, String orderId, String requestHash, Instant now, Instant expiresAt);
+
+    @Query("select k from IdempotencyKey k where k.scopeKey = ?1 and k.expiresAt > ?2")
+    Optional<IdempotencyKey> findLive(String scopeKey, Instant now);
+
+    @Modifying
+    @Query(
+            value = """
+                    DELETE FROM idempotency_keys
+                    WHERE scope_key IN (
+                        SELECT scope_key
+                        FROM idempotency_keys
+                        WHERE expires_at < ?1
+                        LIMIT ?2
+                        FOR UPDATE SKIP LOCKED
+                    )
+                    """,
+            nativeQuery = true
+    )
+    int purgeExpiredBefore(Instant now, int limit);
+}
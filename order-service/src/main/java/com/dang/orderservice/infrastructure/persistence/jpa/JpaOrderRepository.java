@@ -1,10 +1,66 @@
 package com.dang.orderservice.infrastructure.persistence.jpa;
 
+import com.dang.orderservice.application.dtos.OrderSummaryResponse;
 import com.dang.orderservice.domain.model.aggregates.Order;
 import com.dang.orderservice.domain.model.valueobjects.OrderId;
+import com.dang.orderservice.domain.model.valueobjects.OrderStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.List;
+
 @Repository
 public interface JpaOrderRepository extends JpaRepository<Order, OrderId> {
+
+    /**
+     * Trang đầu lịch sử order của customer (mới nhất trước). Trả List => Spring Data không chạy COUNT.
+     */
+    @Query("""
+            select new com.dang.orderservice.application.dtos.OrderSummaryResponse(
+                o.id.value, o.status, o.total.amountMinor, o.total.currency, o.createdAt)
+            from Order o
+            where o.customerId.value = ?1
+              and (?2 is null or o.status = ?2)
+            order by o.createdAt desc, o.id.value desc
+            """)
+    List<OrderSummaryResponse> findHistory(String customerId, OrderStatus status, Pageable page);
+
+    /**
+     * Trang kế tiếp: seek theo (created_at, order_id) của dòng cuối trang trước => trang sâu tốn như trang đầu.
+     */
+    @Query("""
+            select new com.dang.orderservice.application.dtos.OrderSummaryResponse(
+                o.id.value, o.status, o.total.amountMinor, o.total.currency, o.createdAt)
+            from Order o
+            where o.customerId.value = ?1
+              and (?2 is null or o.status = ?2)
+              and (o.createdAt, o.id.value) < (?3, ?4)
+            order by o.createdAt desc, o.id.value desc
+            """)
+    List<OrderSummaryResponse> findHistoryBefore(String customerId, OrderStatus status,
+                                                 Instant beforeCreatedAt, String beforeOrderId, Pageable page);
+
+    /**
+     * Ghi state của order lấy từ cache (không có trong persistence context) mà không SELECT trước như merge.
+     * Chỉ các cột saga được đổi; 0 dòng => version lệch (instance/handler khác đã ghi).
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "orders"))
+    @Query(
+            value = """
+                    UPDATE orders
+                    SET status = ?2, inventory_reserved = ?3, paid = ?4, cancel_reason = ?5, version = version + 1
+                    WHERE order_id = ?1 AND version = ?6
+                    """,
+            nativeQuery = true
+    )
+    int updateState(String orderId, String status, boolean inventoryReserved, boolean paid, String cancelReason,
+                    long expectedVersion);
 }
@@ -2,13 +2,47 @@ package com.dang.orderservice.infrastructure.persistence.jpa;
 
 import com.dang.orderservice.domain.model.aggregates.OrderSaga;
 import com.dang.orderservice.domain.model.valueobjects.SagaStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface JpaOrderSagaRepository extends JpaRepository<OrderSaga, String> {
 
     Optional<OrderSaga> findFirstByOrderIdAndStatusOrderByCreatedAtDesc(String orderId, SagaStatus status);
+
+    // saga đang chạy, mới nhất trước: nạp cache khi nhận partition
+    List<OrderSaga> findByStatusInOrderByCreatedAtDesc(Collection<SagaStatus> statuses, Pageable page);
+
+    /**
+     * Như {@link JpaOrderRepository#updateState}: ghi saga lấy từ cache, không SELECT trước, có kiểm tra version.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "order_sagas"))
+    @Query(
+            value = """
+                    UPDATE order_sagas
+                    SET status = ?2, inventory_reserved = ?3, payment_captured = ?4, inventory_reserve_failed = ?5,
+                        payment_capture_failed = ?6, timed_out = ?7, inventory_compensation_required = ?8,
+                        payment_compensation_required = ?9, inventory_compensation_done = ?10,
+                        payment_compensation_done = ?11, failure_reason = ?12, updated_at = ?13, version = version + 1
+                    WHERE id = ?1 AND version = ?14
+                    """,
+            nativeQuery = true
+    )
+    int updateState(String sagaId, String status, boolean inventoryReserved, boolean paymentCaptured,
+                    boolean inventoryReserveFailed, boolean paymentCaptureFailed, boolean timedOut,
+                    boolean inventoryCompensationRequired, boolean paymentCompensationRequired,
+                    boolean inventoryCompensationDone, boolean paymentCompensationDone,
+                    String failureReason, Instant updatedAt, long expectedVersion);
 }
@@ -0,0 +1,27 @@
+package com.dang.orderservice.infrastructure.persistence.jpa;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.time.Instant;
+
+public interface JpaOrderViewRepository extends JpaRepository<OrderView, String> {
+
+    // chỉ đụng order_views => không ép flush các insert order/lines đang chờ batch
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "order_views"))
+    @Query(
+            value = """
+                    INSERT INTO order_views (order_id, customer_id, status, document, updated_at)
+                    VALUES (?1, ?2, ?3, CAST(?4 AS jsonb), ?5)
+                    ON CONFLICT (order_id) DO UPDATE
+                    SET status = EXCLUDED.status, document = EXCLUDED.document, updated_at = EXCLUDED.updated_at
+                    """,
+            nativeQuery = true
+    )
+    int upsert(String orderId, String customerId, String status, String document, Instant now);
+}
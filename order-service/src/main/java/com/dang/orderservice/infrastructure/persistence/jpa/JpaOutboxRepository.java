@@ -1,22 +1,36 @@
 package com.dang.orderservice.infrastructure.persistence.jpa;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 
 
 
 public interface JpaOutboxRepository extends JpaRepository<OutboxMessage, String> {
 
+    /**
+     * Như {@link #lockNextLaneBatch}: bỏ qua row nếu cùng key còn row PENDING cũ hơn đang chờ retry
+     * (row bị sender hoãn vẫn PENDING và tới hạn, không có guard thì batch sau gửi nó trước row fail).
+     */
     @Query(
             value = """
                     SELECT *
-                    FROM outbox_messages
-                    WHERE status = 'PENDING'
-                      AND next_attempt_at <= ?1
-                    ORDER BY created_at
+                    FROM outbox_messages m
+                    WHERE m.status = 'PENDING'
+                      AND m.next_attempt_at <= ?1
+                      AND NOT EXISTS (
+                          SELECT 1
+                          FROM outbox_messages p
+                          WHERE p.message_key = m.message_key
+                            AND p.status = 'PENDING'
+                            AND p.created_at < m.created_at
+                            AND p.next_attempt_at > ?1
+                      )
+                    ORDER BY m.created_at
                     FOR UPDATE SKIP LOCKED
                     LIMIT ?2
                     """,
@@ -27,18 +41,92 @@ public interface JpaOutboxRepository extends JpaRepository<OutboxMessage, String
     @Query(
             value = """
                     SELECT *
-                    FROM outbox_messages
-                    WHERE status = 'PENDING'
-                      AND next_attempt_at <= ?1
-                    ORDER BY created_at
+                    FROM outbox_messages m
+                    WHERE m.status = 'PENDING'
+                      AND m.next_attempt_at <= ?1
+                      AND NOT EXISTS (
+                          SELECT 1
+                          FROM outbox_messages p
+                          WHERE p.message_key = m.message_key
+                            AND p.status = 'PENDING'
+                            AND p.created_at < m.created_at
+                            AND p.next_attempt_at > ?1
+                      )
+                    ORDER BY m.created_at
                     LIMIT ?2
                     """,
             nativeQuery = true
     )
     List<OutboxMessage> findNextBatchNoLock(Instant now, int limit);
 
-    List<OutboxMessage> findTop100ByStatusAndNextAttemptAtLessThanEqualOrderByCreatedAtAsc(
-            OutboxStatus status,
-            Instant now
-    );
+    /**
+     * Lane = hash(message_key) mod lanes. Bỏ qua row nếu cùng key còn row PENDING cũ hơn đang chờ retry,
+     * để message sau không vượt mặt message trước của cùng order.
+     */
+    @Query(
+            value = """
+                    SELECT *
+                    FROM outbox_messages m
+                    WHERE m.status = 'PENDING'
+                      AND m.next_attempt_at <= ?1
+                      AND (hashtext(m.message_key) & 2147483647) % ?2 = ?3
+                      AND NOT EXISTS (
+                          SELECT 1
+                          FROM outbox_messages p
+                          WHERE p.message_key = m.message_key
+                            AND p.status = 'PENDING'
+                            AND p.created_at < m.created_at
+                            AND p.next_attempt_at > ?1
+                      )
+                    ORDER BY m.created_at
+                    FOR UPDATE SKIP LOCKED
+                    LIMIT ?4
+                    """,
+            nativeQuery = true
+    )
+    List<OutboxMessage> lockNextLaneBatch(Instant now, int lanes, int lane, int limit);
+
+    /**
+     * Advisory lock theo lane (tự nhả khi transaction kết thúc): mỗi lane chỉ 1 worker
+     * trên toàn cluster drain tại 1 thời điểm, nên nhiều pod không đảo thứ tự của cùng key.
+     */
+    @Query(value = "SELECT pg_try_advisory_xact_lock(?1, ?2)", nativeQuery = true)
+    boolean tryLockLane(int lockSpace, int lane);
+
+    long countByStatus(OutboxStatus status);
+
+    @Query("select min(m.createdAt) from OutboxMessage m where m.status = ?1")
+    Instant findOldestCreatedAt(OutboxStatus status);
+
+    @Modifying
+    @Query("""
+            update OutboxMessage m
+            set m.status = ?2, m.lastError = null, m.updatedAt = ?3
+            where m.id in ?1
+            """)
+    int markSent(Collection<String> ids, OutboxStatus status, Instant now);
+
+    /**
+     * Xoá tối đa ?2 row SENT tạo trước ?1 (row đang bị lock thì bỏ qua, lần sau xoá).
+     */
+    @Modifying
+    @Query(
+            value = """
+                    DELETE FROM outbox_messages
+                    WHERE id IN (
+                        SELECT id
+                        FROM outbox_messages
+                        WHERE status = 'SENT'
+                          AND created_at < ?1
+                        ORDER BY created_at
+                        LIMIT ?2
+                        FOR UPDATE SKIP LOCKED
+                    )
+                    """,
+            nativeQuery = true
+    )
+    int purgeSentBefore(Instant cutoff, int limit);
+
+    @Query(value = "SELECT pg_total_relation_size('outbox_messages')", nativeQuery = true)
+    long tableSizeBytes();
 }
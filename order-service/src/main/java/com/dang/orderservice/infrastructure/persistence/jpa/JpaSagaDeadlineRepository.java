@@ -0,0 +1,56 @@
+package com.dang.orderservice.infrastructure.persistence.jpa;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface JpaSagaDeadlineRepository extends JpaRepository<SagaDeadline, String> {
+
+    /**
+     * Keyset theo (due_at, saga_id) trong [from, to): nạp cửa sổ deadline sắp tới vào timing wheel.
+     */
+    @Query(
+            value = """
+                    SELECT *
+                    FROM saga_deadlines
+                    WHERE due_at < ?4
+                      AND (due_at, saga_id) > (?1, ?2)
+                      AND due_at >= ?3
+                    ORDER BY due_at, saga_id
+                    LIMIT ?5
+                    """,
+            nativeQuery = true
+    )
+    List<SagaDeadline> findWindowAfter(Instant afterDueAt, String afterSagaId, Instant from, Instant to, int limit);
+
+    /**
+     * Đặt/dời deadline bằng 1 câu lệnh (không SELECT trước rồi merge) vì mỗi lần lưu saga đều gọi.
+     * Khai báo query space: native query mặc định flush cả session => phá JDBC batch của order/saga/outbox.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "saga_deadlines"))
+    @Query(
+            value = """
+                    INSERT INTO saga_deadlines (saga_id, due_at, attempt, updated_at)
+                    VALUES (?1, ?2, ?3, ?4)
+                    ON CONFLICT (saga_id) DO UPDATE
+                    SET due_at = EXCLUDED.due_at, attempt = EXCLUDED.attempt, updated_at = EXCLUDED.updated_at
+                    """,
+            nativeQuery = true
+    )
+    int upsert(String sagaId, Instant dueAt, int attempt, Instant now);
+
+    /**
+     * Claim deadline trong cùng transaction với timeout handler: row bị lock tới khi commit, handler luôn dời
+     * hoặc xoá deadline => instance khác update lại thấy due_at đã đổi (0 row). Handler lỗi => rollback, giữ nguyên.
+     */
+    @Modifying
+    @Query("update SagaDeadline d set d.updatedAt = ?3 where d.sagaId = ?1 and d.dueAt = ?2")
+    int claim(String sagaId, Instant expectedDueAt, Instant now);
+}
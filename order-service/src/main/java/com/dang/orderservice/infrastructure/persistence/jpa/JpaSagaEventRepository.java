@@ -0,0 +1,47 @@
+package com.dang.orderservice.infrastructure.persistence.jpa;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface JpaSagaEventRepository extends JpaRepository<SagaEvent, SagaEvent.Key> {
+
+    @Query("select e from SagaEvent e where e.sagaId = ?1 and e.seq > ?2 order by e.seq")
+    List<SagaEvent> findTail(String sagaId, long afterSeq);
+
+    /**
+     * Tail sau snapshot (chưa có snapshot => toàn bộ) của nhiều saga trong 1 query.
+     */
+    @Query("""
+            select e from SagaEvent e
+            where e.sagaId in ?1
+              and e.seq > coalesce((select s.seq from SagaSnapshot s where s.sagaId = e.sagaId), 0)
+            order by e.sagaId, e.seq
+            """)
+    List<SagaEvent> findTailsAfterSnapshot(Collection<String> sagaIds);
+
+    @Query("select distinct e.sagaId from SagaEvent e where e.orderId = ?1")
+    List<String> findSagaIdsByOrderId(String orderId);
+
+    /**
+     * INSERT thuần (không merge/SELECT trước); trùng (saga_id, seq) => lỗi unique, transaction rollback.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "saga_events"))
+    @Query(
+            value = """
+                    INSERT INTO saga_events (saga_id, seq, order_id, step, status, set_flags, cleared_flags, failure_reason, occurred_at)
+                    VALUES (?1, ?2, ?3, ?4, ?5, ?6, ?7, ?8, ?9)
+                    """,
+            nativeQuery = true
+    )
+    int append(String sagaId, long seq, String orderId, String step, String status,
+               int setFlags, int clearedFlags, String failureReason, Instant occurredAt);
+}
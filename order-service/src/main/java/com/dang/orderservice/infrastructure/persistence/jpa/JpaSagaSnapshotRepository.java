@@ -0,0 +1,32 @@
+package com.dang.orderservice.infrastructure.persistence.jpa;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.time.Instant;
+
+public interface JpaSagaSnapshotRepository extends JpaRepository<SagaSnapshot, String> {
+
+    /**
+     * Chỉ tiến lên: snapshot cũ hơn cái đang có (instance khác đã compact xa hơn) thì bỏ qua.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "saga_snapshots"))
+    @Query(
+            value = """
+                    INSERT INTO saga_snapshots (saga_id, seq, order_id, status, flags, failure_reason, created_at, updated_at)
+                    VALUES (?1, ?2, ?3, ?4, ?5, ?6, ?7, ?8)
+                    ON CONFLICT (saga_id) DO UPDATE
+                    SET seq = EXCLUDED.seq, status = EXCLUDED.status, flags = EXCLUDED.flags,
+                        failure_reason = EXCLUDED.failure_reason, updated_at = EXCLUDED.updated_at
+                    WHERE saga_snapshots.seq < EXCLUDED.seq
+                    """,
+            nativeQuery = true
+    )
+    int upsert(String sagaId, long seq, String orderId, String status, int flags, String failureReason,
+               Instant createdAt, Instant updatedAt);
+}
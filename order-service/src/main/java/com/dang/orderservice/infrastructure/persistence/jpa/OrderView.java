@@ -0,0 +1,41 @@
+package com.dang.orderservice.infrastructure.persistence.jpa;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Getter;
+
+import java.time.Instant;
+
+/**
+ * Read model của order: 1 row / order, document = OrderResponse (kèm lines) dạng JSONB.
+ * Ghi bằng upsert trong cùng transaction với mọi lần lưu Order, đọc chỉ cần 1 lookup theo PK.
+ */
+@Getter
+@Entity
+@Table(
+        name = "order_views",
+        indexes = @Index(name = "idx_order_views_customer", columnList = "customer_id")
+)
+public class OrderView {
+
+    @Id
+    @Column(name = "order_id", length = 36)
+    private String orderId;
+
+    @Column(name = "customer_id", nullable = false)
+    private String customerId;
+
+    @Column(nullable = false, length = 32)
+    private String status;
+
+    @Column(nullable = false, columnDefinition = "jsonb")
+    private String document;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    protected OrderView() {}
+}
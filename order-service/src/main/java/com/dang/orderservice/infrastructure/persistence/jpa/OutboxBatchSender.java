@@ -0,0 +1,143 @@
+package com.dang.orderservice.infrastructure.persistence.jpa;
+
+import com.dang.sagakafka.SagaKafkaHeaders;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gửi 1 batch outbox lên Kafka, tách khỏi phần DB để OutboxPublishService chỉ lo lock/update trạng thái.
+ */
+@Component
+public class OutboxBatchSender {
+
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final OutboxProperties props;
+
+    public OutboxBatchSender(KafkaTemplate<String, byte[]> kafkaTemplate, OutboxProperties props) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.props = props;
+    }
+
+    public Result send(List<OutboxMessage> batch) {
+        return props.isPipelined() ? sendPipelined(batch) : sendSequential(batch);
+    }
+
+    /**
+     * Mỗi row chờ broker ack rồi mới gửi row tiếp theo => batch N row tốn N round trip.
+     * Row của 1 key đã fail trong batch thì các row sau cùng key bị hoãn (giữ thứ tự theo orderId).
+     */
+    public Result sendSequential(List<OutboxMessage> batch) {
+        Result result = new Result(batch.size());
+        Set<String> failedKeys = new HashSet<>();
+        for (OutboxMessage msg : batch) {
+            if (failedKeys.contains(msg.getMessageKey())) {
+                result.deferred.add(msg);
+                continue;
+            }
+            try {
+                kafkaTemplate.send(toRecord(msg))
+                        .get(props.getSendTimeoutMs(), TimeUnit.MILLISECONDS);
+                result.sent.add(msg);
+            } catch (Exception ex) {
+                result.failed.put(msg, unwrap(ex));
+                failedKeys.add(msg.getMessageKey());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gửi không chờ (producer tự gom vào cùng request), sau đó chờ tất cả future với chung 1 deadline.
+     * Chia theo đợt: đợt k gồm row thứ k của mỗi key, nên row sau của 1 key chỉ được gửi khi row trước đã ack;
+     * key đã fail thì các row sau bị hoãn như {@link #sendSequential}. Batch phần lớn khác key => ~1 round trip.
+     */
+    public Result sendPipelined(List<OutboxMessage> batch) {
+        Result result = new Result(batch.size());
+        Set<String> failedKeys = new HashSet<>();
+        for (List<OutboxMessage> wave : waves(batch)) {
+            List<OutboxMessage> inFlight = new ArrayList<>(wave.size());
+            List<CompletableFuture<?>> futures = new ArrayList<>(wave.size());
+            for (OutboxMessage msg : wave) {
+                if (failedKeys.contains(msg.getMessageKey())) {
+                    result.deferred.add(msg);
+                    continue;
+                }
+                inFlight.add(msg);
+                try {
+                    futures.add(kafkaTemplate.send(toRecord(msg)));
+                } catch (Exception ex) {
+                    futures.add(CompletableFuture.failedFuture(ex));
+                }
+            }
+
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(props.getSendTimeoutMs());
+            for (int i = 0; i < inFlight.size(); i++) {
+                OutboxMessage msg = inFlight.get(i);
+                try {
+                    long remaining = Math.max(0, deadline - System.nanoTime());
+                    futures.get(i).get(remaining, TimeUnit.NANOSECONDS);
+                    result.sent.add(msg);
+                } catch (Exception ex) {
+                    result.failed.put(msg, unwrap(ex));
+                    failedKeys.add(msg.getMessageKey());
+                }
+            }
+        }
+        return result;
+    }
+
+    // đợt k = row thứ k (theo thứ tự batch) của mỗi key
+    private static List<List<OutboxMessage>> waves(List<OutboxMessage> batch) {
+        List<List<OutboxMessage>> waves = new ArrayList<>();
+        Map<String, Integer> seen = new HashMap<>();
+        for (OutboxMessage msg : batch) {
+            int k = seen.merge(msg.getMessageKey(), 1, Integer::sum) - 1;
+            if (k == waves.size()) waves.add(new ArrayList<>());
+            waves.get(k).add(msg);
+        }
+        return waves;
+    }
+
+    private static ProducerRecord<String, byte[]> toRecord(OutboxMessage msg) {
+        return SagaKafkaHeaders.record(msg.getTopic(), msg.getMessageKey(), msg.payloadBytes(),
+                msg.envelope().orElse(null), msg.contentType());
+    }
+
+    private static Exception unwrap(Exception ex) {
+        if (ex instanceof ExecutionException && ex.getCause() instanceof Exception cause) {
+            return cause;
+        }
+        return ex;
+    }
+
+    public static final class Result {
+        private final List<OutboxMessage> sent;
+        private final Map<OutboxMessage, Exception> failed = new LinkedHashMap<>();
+        // không gửi (key phía trước đã fail), giữ PENDING cho lần sau
+        private final List<OutboxMessage> deferred = new ArrayList<>();
+
+        private Result(int size) {
+            this.sent = new ArrayList<>(size);
+        }
+
+        public List<OutboxMessage> sent() { return sent; }
+        public Map<OutboxMessage, Exception> failed() { return failed; }
+        public List<OutboxMessage> deferred() { return deferred; }
+
+        public List<String> sentIds() {
+            return sent.stream().map(OutboxMessage::getId).toList();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.dang.orderservice.infrastructure.persistence.jpa;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Dọn row SENT cũ hơn retention theo từng batch nhỏ (mỗi batch 1 transaction riêng).
+ * Metric: outbox.purged.rows (counter), outbox.table.size.bytes (gauge, cập nhật sau mỗi lượt dọn).
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.outbox.housekeeping", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxHousekeeper {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxHousekeeper.class);
+
+    private final JpaOutboxRepository outboxRepository;
+    private final OutboxProperties props;
+    private final TransactionTemplate tx;
+    private final Counter purgedRows;
+    private final AtomicLong tableSizeBytes = new AtomicLong();
+
+    public OutboxHousekeeper(JpaOutboxRepository outboxRepository,
+                             OutboxProperties props,
+                             PlatformTransactionManager transactionManager,
+                             MeterRegistry meterRegistry) {
+        this.outboxRepository = outboxRepository;
+        this.props = props;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.purgedRows = Counter.builder("outbox.purged.rows")
+                .description("Số row SENT đã xoá khỏi outbox_messages")
+                .register(meterRegistry);
+        Gauge.builder("outbox.table.size.bytes", tableSizeBytes, AtomicLong::get)
+                .description("pg_total_relation_size(outbox_messages), gồm index")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.housekeeping.interval-ms:60000}")
+    public void purge() {
+        OutboxProperties.Housekeeping hk = props.getHousekeeping();
+        Instant cutoff = Instant.now().minus(Duration.ofHours(hk.getRetentionHours()));
+
+        long total = 0;
+        try {
+            for (int i = 0; i < hk.getMaxBatchesPerRun(); i++) {
+                Integer deleted = tx.execute(status -> outboxRepository.purgeSentBefore(cutoff, hk.getBatchSize()));
+                int n = deleted == null ? 0 : deleted;
+                purgedRows.increment(n);
+                total += n;
+                if (n < hk.getBatchSize()) break;
+
+                Thread.sleep(hk.getPauseMs()); // throttle: chừa IO cho relay/insert
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // chỉ khi purge không lỗi: query size lỗi (DB down) trong finally sẽ che mất exception gốc
+        tableSizeBytes.set(outboxRepository.tableSizeBytes());
+
+        if (total > 0) {
+            log.info("Outbox housekeeping purged {} SENT rows older than {}", total, cutoff);
+        }
+    }
+}
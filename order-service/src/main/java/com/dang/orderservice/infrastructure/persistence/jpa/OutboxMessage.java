@@ -7,11 +7,21 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.Id;
 import jakarta.persistence.Index;
 import jakarta.persistence.Lob;
+import jakarta.persistence.PostPersist;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import com.dang.sagamessages.codec.SagaBinaryCodec;
+import com.dang.sagamessages.envelope.SagaEnvelope;
+import com.dang.sagamessages.envelope.SagaHeaders;
+import com.dang.sagamessages.envelope.SagaMessageType;
+import com.dang.sagamessages.id.TimeOrderedIds;
+import lombok.AccessLevel;
 import lombok.Getter;
+import org.springframework.data.domain.Persistable;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
-import java.util.UUID;
+import java.util.Optional;
 
 @Getter
 @Entity
@@ -19,10 +29,12 @@ import java.util.UUID;
         name = "outbox_messages",
         indexes = {
                 // Use snake_case column names explicitly to avoid depending on Hibernate naming strategy
-                @Index(name = "idx_outbox_status_next", columnList = "status,next_attempt_at,created_at")
+                @Index(name = "idx_outbox_status_next", columnList = "status,next_attempt_at,created_at"),
+                // lane relay: check row PENDING trước đó của cùng key
+                @Index(name = "idx_outbox_key_created", columnList = "message_key,created_at")
         }
 )
-public class OutboxMessage {
+public class OutboxMessage implements Persistable<String> {
 
     @Id
     @Column(length = 36)
@@ -34,9 +46,13 @@ public class OutboxMessage {
     @Column(name = "message_key", nullable = false, length = 200)
     private String messageKey;
 
+    // JSON; với row binary thì rỗng, dữ liệu nằm ở payload_bin
     @Column(nullable = false, columnDefinition = "text")
     private String payload;
 
+    @Column(name = "payload_bin")
+    private byte[] payloadBin;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false, length = 16)
     private OutboxStatus status;
@@ -56,10 +72,35 @@ public class OutboxMessage {
     @Column(name = "last_error", length = 2000)
     private String lastError;
 
+    // metadata envelope (gửi qua Kafka header); null với row cũ
+    @Column(name = "message_id", length = 36)
+    private String messageId;
+
+    @Column(name = "message_type", length = 80)
+    private String messageType;
+
+    @Column(name = "saga_id", length = 80)
+    private String sagaId;
+
+    // id sinh sẵn => persist thẳng thay vì merge (SELECT theo id trước mỗi insert)
+    @Transient
+    @Getter(AccessLevel.NONE)
+    private boolean newMessage;
+
     protected OutboxMessage() {}
 
+    @Override
+    public boolean isNew() {
+        return newMessage;
+    }
+
+    @PostPersist
+    void markPersisted() {
+        this.newMessage = false;
+    }
+
     private OutboxMessage(String topic, String messageKey, String payload) {
-        this.id = UUID.randomUUID().toString();
+        this.id = TimeOrderedIds.nextString();
         this.topic = topic;
         this.messageKey = messageKey;
         this.payload = payload;
@@ -71,11 +112,43 @@ public class OutboxMessage {
         this.createdAt = now;
         this.updatedAt = now;
         this.nextAttemptAt = now;
+        this.newMessage = true;
     }
 
     public static OutboxMessage pending(String topic, String messageKey, String payload) {
         return new OutboxMessage(topic, messageKey, payload);
     }
+
+    public static OutboxMessage pending(String topic, String messageKey, String payload, SagaEnvelope envelope) {
+        OutboxMessage msg = new OutboxMessage(topic, messageKey, payload);
+        msg.messageId = envelope.messageId();
+        msg.messageType = envelope.type().typeName();
+        msg.sagaId = envelope.sagaId();
+        return msg;
+    }
+
+    public static OutboxMessage pendingBinary(String topic, String messageKey, byte[] payload, SagaEnvelope envelope) {
+        OutboxMessage msg = pending(topic, messageKey, "", envelope);
+        msg.payloadBin = payload;
+        return msg;
+    }
+
+    public byte[] payloadBytes() {
+        return payloadBin != null ? payloadBin : payload.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public String contentType() {
+        return payloadBin != null ? SagaBinaryCodec.CONTENT_TYPE : SagaHeaders.JSON_CONTENT_TYPE;
+    }
+
+    /**
+     * Dựng lại envelope từ cột đã lưu; occurredAt lấy theo created_at của row.
+     */
+    public Optional<SagaEnvelope> envelope() {
+        return SagaMessageType.fromTypeName(messageType)
+                .map(type -> new SagaEnvelope(messageId, type, type.schemaVersion(), sagaId, messageKey, createdAt));
+    }
+
     public void markSent() {
         this.status = OutboxStatus.SENT;
         this.lastError = null;
@@ -0,0 +1,72 @@
+package com.dang.orderservice.infrastructure.persistence.jpa;
+
+import com.dang.sagamessages.metrics.SagaMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Metric của outbox relay (dùng cho HPA scale theo backlog):
+ * outbox.pending, outbox.oldest.pending.age (gauge), outbox.publish.latency (created_at -> broker ack),
+ * outbox.retries, outbox.failures.permanent (counter).
+ * Gauge backlog được refresh theo lịch để scrape không chạm DB.
+ */
+@Component
+public class OutboxMetrics {
+
+    private final JpaOutboxRepository outboxRepository;
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong oldestPendingAgeMs = new AtomicLong();
+    private final Timer publishLatency;
+    private final Counter retries;
+    private final Counter permanentFailures;
+
+    public OutboxMetrics(JpaOutboxRepository outboxRepository, MeterRegistry meterRegistry) {
+        this.outboxRepository = outboxRepository;
+
+        Gauge.builder("outbox.pending", pending, AtomicLong::get)
+                .description("Số row PENDING chưa gửi")
+                .register(meterRegistry);
+        Gauge.builder("outbox.oldest.pending.age", oldestPendingAgeMs, v -> v.get() / 1000.0)
+                .description("Tuổi của row PENDING cũ nhất")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        this.publishLatency = Timer.builder("outbox.publish.latency")
+                .description("Từ lúc insert outbox tới lúc broker ack")
+                // cùng bucket với saga.hop => broker/poll = saga.hop - outbox.publish.latency
+                .serviceLevelObjectives(SagaMetrics.HOP_SLO)
+                .register(meterRegistry);
+        this.retries = Counter.builder("outbox.retries")
+                .description("Số lần gửi lỗi và được hẹn retry")
+                .register(meterRegistry);
+        this.permanentFailures = Counter.builder("outbox.failures.permanent")
+                .description("Số row chuyển FAILED sau max-retry")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.metrics.refresh-ms:5000}")
+    public void refreshBacklog() {
+        pending.set(outboxRepository.countByStatus(OutboxStatus.PENDING));
+        Instant oldest = outboxRepository.findOldestCreatedAt(OutboxStatus.PENDING);
+        oldestPendingAgeMs.set(oldest == null ? 0 : Math.max(0, Duration.between(oldest, Instant.now()).toMillis()));
+    }
+
+    public void recordSent(OutboxMessage msg, Instant ackedAt) {
+        publishLatency.record(Duration.between(msg.getCreatedAt(), ackedAt));
+    }
+
+    public void recordRetry() {
+        retries.increment();
+    }
+
+    public void recordPermanentFailure() {
+        permanentFailures.increment();
+    }
+}
@@ -0,0 +1,101 @@
+package com.dang.orderservice.infrastructure.persistence.jpa;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+
+/**
+ * LISTEN trên 1 connection riêng (không lấy từ Hikari pool vì giữ vĩnh viễn),
+ * có notification thì drain outbox ngay thay vì chờ poll-ms.
+ */
+@Component
+@ConditionalOnExpression("${app.outbox.enabled:false} and ${app.outbox.notify.enabled:false}")
+public class OutboxNotificationListener implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxNotificationListener.class);
+
+    private final OutboxPublisher publisher;
+    private final OutboxProperties props;
+
+    @Value("${spring.datasource.url}") private String url;
+    @Value("${spring.datasource.username}") private String username;
+    @Value("${spring.datasource.password}") private String password;
+
+    private volatile boolean running;
+    private Thread thread;
+
+    public OutboxNotificationListener(OutboxPublisher publisher, OutboxProperties props) {
+        this.publisher = publisher;
+        this.props = props;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        thread = Thread.ofPlatform().daemon().name("outbox-listen").start(this::loop);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (thread != null) thread.interrupt();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void loop() {
+        while (running) {
+            try (Connection conn = DriverManager.getConnection(url, username, password)) {
+                try (Statement st = conn.createStatement()) {
+                    st.execute("LISTEN " + props.getNotify().getChannel());
+                }
+                PGConnection pg = conn.unwrap(PGConnection.class);
+                log.info("Outbox LISTEN started channel={}", props.getNotify().getChannel());
+
+                // vừa (re)connect: có thể đã lỡ notification => drain 1 lần
+                drainSafely();
+
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications((int) props.getNotify().getListenTimeoutMs());
+                    if (notifications != null && notifications.length > 0) {
+                        drainSafely();
+                    }
+                }
+            } catch (Exception ex) {
+                if (!running) return;
+                log.warn("Outbox LISTEN connection lost, reconnect in {}ms: {}",
+                        props.getNotify().getReconnectDelayMs(), ex.getMessage());
+                sleep(props.getNotify().getReconnectDelayMs());
+            }
+        }
+    }
+
+    private void drainSafely() {
+        try {
+            // scheduler đang drain thì chỉ báo cho nó, không drain song song
+            publisher.drain();
+        } catch (Exception ex) {
+            log.error("Outbox drain after NOTIFY failed", ex);
+        }
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
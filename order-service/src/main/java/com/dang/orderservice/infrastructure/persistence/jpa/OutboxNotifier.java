@@ -0,0 +1,49 @@
+package com.dang.orderservice.infrastructure.persistence.jpa;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.FlushModeType;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Phát pg_notify trong transaction đang ghi outbox. Postgres chỉ giao notification khi commit
+ * (rollback thì bỏ), nên relay không bao giờ bị đánh thức bởi row chưa tồn tại.
+ */
+@Component
+public class OutboxNotifier {
+
+    private static final Object TX_KEY = OutboxNotifier.class.getName() + ".notified";
+
+    private final OutboxProperties props;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    public OutboxNotifier(OutboxProperties props) {
+        this.props = props;
+    }
+
+    public void notifyOnCommit() {
+        if (!props.getNotify().isEnabled()) return;
+
+        // 1 transaction ghi nhiều row outbox chỉ cần notify 1 lần
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            if (TransactionSynchronizationManager.hasResource(TX_KEY)) return;
+            TransactionSynchronizationManager.bindResource(TX_KEY, Boolean.TRUE);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(TX_KEY);
+                }
+            });
+        }
+
+        // NOTIFY chỉ phát khi commit => không cần flush insert outbox trước (giữ JDBC batch)
+        em.createNativeQuery("select pg_notify(?1, '')")
+                .setFlushMode(FlushModeType.COMMIT)
+                .setParameter(1, props.getNotify().getChannel())
+                .getSingleResult();
+    }
+}
@@ -9,6 +9,13 @@ public class OutboxProperties {
     private int batchSize = 100;
     private int maxRetry = 50;
     private boolean useSkipLocked = true;
+    // gửi cả batch không chờ từng row, rồi chờ ack chung + update SENT bằng 1 statement
+    private boolean pipelined = false;
+    private long sendTimeoutMs = 10000;
+    // > 1: hash message_key vào N lane, mỗi lane 1 worker riêng (giữ thứ tự theo key)
+    private int lanes = 1;
+    private final Notify notify = new Notify();
+    private final Housekeeping housekeeping = new Housekeeping();
 
     public boolean isEnabled() { return enabled; }
     public void setEnabled(boolean enabled) { this.enabled = enabled; }
@@ -24,4 +31,71 @@ public class OutboxProperties {
 
     public boolean isUseSkipLocked() { return useSkipLocked; }
     public void setUseSkipLocked(boolean useSkipLocked) { this.useSkipLocked = useSkipLocked; }
+
+    public boolean isPipelined() { return pipelined; }
+    public void setPipelined(boolean pipelined) { this.pipelined = pipelined; }
+
+    public long getSendTimeoutMs() { return sendTimeoutMs; }
+    public void setSendTimeoutMs(long sendTimeoutMs) { this.sendTimeoutMs = sendTimeoutMs; }
+
+    public int getLanes() { return lanes; }
+    public void setLanes(int lanes) { this.lanes = lanes; }
+
+    public Notify getNotify() { return notify; }
+
+    public Housekeeping getHousekeeping() { return housekeeping; }
+
+    /**
+     * LISTEN/NOTIFY: insert outbox => pg_notify trong cùng transaction, relay được đánh thức ngay khi commit.
+     * poll-ms lúc này chỉ còn là fallback chậm.
+     */
+    public static class Notify {
+        private boolean enabled = false;
+        private String channel = "outbox_messages";
+        private long listenTimeoutMs = 5000;
+        private long reconnectDelayMs = 2000;
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public String getChannel() { return channel; }
+        public void setChannel(String channel) { this.channel = channel; }
+
+        public long getListenTimeoutMs() { return listenTimeoutMs; }
+        public void setListenTimeoutMs(long listenTimeoutMs) { this.listenTimeoutMs = listenTimeoutMs; }
+
+        public long getReconnectDelayMs() { return reconnectDelayMs; }
+        public void setReconnectDelayMs(long reconnectDelayMs) { this.reconnectDelayMs = reconnectDelayMs; }
+    }
+
+    /**
+     * Xoá dần row SENT quá hạn để bảng/index không phình mãi.
+     * Mỗi batch 1 transaction ngắn, nghỉ pause-ms giữa các batch để không giành IO với relay.
+     */
+    public static class Housekeeping {
+        private boolean enabled = true;
+        private long intervalMs = 60000;
+        private long retentionHours = 72;
+        private int batchSize = 1000;
+        private long pauseMs = 200;
+        private int maxBatchesPerRun = 100;
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public long getIntervalMs() { return intervalMs; }
+        public void setIntervalMs(long intervalMs) { this.intervalMs = intervalMs; }
+
+        public long getRetentionHours() { return retentionHours; }
+        public void setRetentionHours(long retentionHours) { this.retentionHours = retentionHours; }
+
+        public int getBatchSize() { return batchSize; }
+        public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+
+        public long getPauseMs() { return pauseMs; }
+        public void setPauseMs(long pauseMs) { this.pauseMs = pauseMs; }
+
+        public int getMaxBatchesPerRun() { return maxBatchesPerRun; }
+        public void setMaxBatchesPerRun(int maxBatchesPerRun) { this.maxBatchesPerRun = maxBatchesPerRun; }
+    }
 }
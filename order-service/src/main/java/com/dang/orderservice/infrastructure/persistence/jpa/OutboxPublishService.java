@@ -2,69 +2,99 @@ package com.dang.orderservice.infrastructure.persistence.jpa;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
+import java.util.Map;
 
 @Component
 public class OutboxPublishService {
 
     private static final Logger log = LoggerFactory.getLogger(OutboxPublishService.class);
 
+    // namespace cho advisory lock của lane (tránh đụng lock khác trong cùng DB)
+    private static final int LANE_LOCK_SPACE = 0x0b0c;
+
     private final JpaOutboxRepository outboxRepository;
     private final OutboxProperties props;
-    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final OutboxBatchSender sender;
+    private final OutboxMetrics metrics;
 
     public OutboxPublishService(JpaOutboxRepository outboxRepository,
                                 OutboxProperties props,
-                                KafkaTemplate<String, String> kafkaTemplate) {
+                                OutboxBatchSender sender,
+                                OutboxMetrics metrics) {
         this.outboxRepository = outboxRepository;
         this.props = props;
-        this.kafkaTemplate = kafkaTemplate;
+        this.sender = sender;
+        this.metrics = metrics;
     }
 
+    /**
+     * @return số row đã lấy ra trong batch (để caller biết còn backlog hay không)
+     */
     @Transactional
-    public void publishBatch() {
+    public int publishBatch() {
         Instant now = Instant.now();
 
         List<OutboxMessage> batch = props.isUseSkipLocked()
                 ? outboxRepository.lockNextBatch(now, props.getBatchSize())
                 : outboxRepository.findNextBatchNoLock(now, props.getBatchSize());
 
-        if (batch.isEmpty()) return;
+        return process(batch);
+    }
+
+    /**
+     * Drain 1 lane (hash(message_key) mod lanes). Trả 0 nếu pod khác đang giữ lane này.
+     */
+    @Transactional
+    public int publishLane(int lane, int lanes) {
+        if (!outboxRepository.tryLockLane(LANE_LOCK_SPACE, lane)) return 0;
+
+        List<OutboxMessage> batch = outboxRepository.lockNextLaneBatch(Instant.now(), lanes, lane, props.getBatchSize());
+        return process(batch);
+    }
+
+    private int process(List<OutboxMessage> batch) {
+        if (batch.isEmpty()) return 0;
 
-        for (OutboxMessage msg : batch) {
-            try {
-                kafkaTemplate.send(msg.getTopic(), msg.getMessageKey(), msg.getPayload())
-                        .get(10, TimeUnit.SECONDS);
+        OutboxBatchSender.Result result = sender.send(batch);
 
-                msg.markSent();
+        // SENT: 1 statement cho cả batch thay vì N lần dirty-check update
+        if (!result.sent().isEmpty()) {
+            Instant ackedAt = Instant.now();
+            outboxRepository.markSent(result.sentIds(), OutboxStatus.SENT, ackedAt);
+            result.sent().forEach(msg -> metrics.recordSent(msg, ackedAt));
+        }
 
-            } catch (Exception ex) {
+        for (Map.Entry<OutboxMessage, Exception> failure : result.failed().entrySet()) {
+            scheduleRetryOrFail(failure.getKey(), failure.getValue());
+        }
+        // Row retry/failed vẫn managed trong persistence context, commit sẽ flush update.
+        // Row deferred không đổi gì, vẫn PENDING.
+        return batch.size();
+    }
 
-                boolean lastAttempt = (msg.getAttempts() + 1) >= props.getMaxRetry();
+    private void scheduleRetryOrFail(OutboxMessage msg, Exception ex) {
+        boolean lastAttempt = (msg.getAttempts() + 1) >= props.getMaxRetry();
 
-                if (lastAttempt) {
-                    msg.markFailedPermanently(ex.getMessage());
-                    log.error("Outbox permanently failed id={} topic={} key={} attempts={}",
-                            msg.getId(), msg.getTopic(), msg.getMessageKey(), msg.getAttempts(), ex);
-                } else {
-                    long backoffSec = Math.min(60, 1L << Math.min(6, msg.getAttempts()));
-                    Instant next = Instant.now().plus(Duration.ofSeconds(backoffSec));
+        if (lastAttempt) {
+            msg.markFailedPermanently(ex.getMessage());
+            metrics.recordPermanentFailure();
+            log.error("Outbox permanently failed id={} topic={} key={} attempts={}",
+                    msg.getId(), msg.getTopic(), msg.getMessageKey(), msg.getAttempts(), ex);
+        } else {
+            long backoffSec = Math.min(60, 1L << Math.min(6, msg.getAttempts()));
+            Instant next = Instant.now().plus(Duration.ofSeconds(backoffSec));
 
-                    msg.markRetry(ex.getMessage(), next);
+            msg.markRetry(ex.getMessage(), next);
+            metrics.recordRetry();
 
-                    log.warn("Outbox retry scheduled id={} attempts={} nextInSec={}",
-                            msg.getId(), msg.getAttempts(), backoffSec);
-                }
-            }
+            log.warn("Outbox retry scheduled id={} attempts={} nextInSec={}",
+                    msg.getId(), msg.getAttempts(), backoffSec);
         }
-        // Không cần saveAll nếu entity đang managed trong persistence context.
-        // Transaction commit sẽ flush update status/attempts/nextAttemptAt.
     }
 }
@@ -1,21 +1,132 @@
 package com.dang.orderservice.infrastructure.persistence.jpa;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 @Component
 @ConditionalOnProperty(prefix = "app.outbox", name = "enabled", havingValue = "true")
-public class OutboxPublisher {
+public class OutboxPublisher implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxPublisher.class);
 
     private final OutboxPublishService publishService;
+    private final OutboxProperties props;
+    private final List<Lane> lanes = new ArrayList<>();
+    // 1 lane: chỉ 1 thread drain tại 1 thời điểm; thread khác chỉ báo "còn việc" cho thread đang drain
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean drainRequested = new AtomicBoolean();
 
-    public OutboxPublisher(OutboxPublishService publishService) {
+    private volatile boolean running;
+
+    public OutboxPublisher(OutboxPublishService publishService, OutboxProperties props) {
         this.publishService = publishService;
+        this.props = props;
+        if (props.getLanes() > 1) {
+            for (int i = 0; i < props.getLanes(); i++) {
+                lanes.add(new Lane(i, props.getLanes()));
+            }
+        }
     }
 
+    // bật notify thì đây chỉ là fallback (poll-ms nên để lớn)
     @Scheduled(fixedDelayString = "${app.outbox.poll-ms:1000}")
     public void tick() {
-        publishService.publishBatch();
+        drain();
+    }
+
+    /**
+     * 1 lane: lấy batch liên tục tới khi hết backlog (batch cuối không đầy), chạy trên thread gọi.
+     * Scheduler và LISTEN thread gọi cùng lúc thì chỉ 1 thread drain: 2 thread cùng drain thì SKIP LOCKED
+     * cho thread thứ 2 lấy row sau của cùng message_key khi row trước còn đang gửi => đảo thứ tự.
+     * Nhiều lane: chỉ đánh thức worker của từng lane, không block caller.
+     */
+    public void drain() {
+        if (lanes.isEmpty()) {
+            drainRequested.set(true);
+            // thread đang drain thấy drainRequested sẽ chạy thêm 1 vòng => không lỡ notification tới giữa chừng
+            while (drainRequested.get() && draining.compareAndSet(false, true)) {
+                try {
+                    drainRequested.set(false);
+                    while (publishService.publishBatch() >= props.getBatchSize()) {
+                        // còn backlog => lấy tiếp
+                    }
+                } finally {
+                    draining.set(false);
+                }
+            }
+            return;
+        }
+        for (Lane lane : lanes) {
+            lane.signal();
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        for (Lane lane : lanes) {
+            lane.thread = Thread.ofVirtual().name("outbox-lane-" + lane.index).start(lane);
+            lane.signal(); // drain backlog lúc khởi động
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        for (Lane lane : lanes) {
+            if (lane.thread != null) lane.thread.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Mỗi lane có đúng 1 worker => các message cùng key (cùng lane) luôn được gửi tuần tự.
+     */
+    private final class Lane implements Runnable {
+        private final int index;
+        private final int count;
+        // gộp nhiều tín hiệu thành 1 lần drain
+        private final Semaphore wakeup = new Semaphore(0);
+        private Thread thread;
+
+        Lane(int index, int count) {
+            this.index = index;
+            this.count = count;
+        }
+
+        void signal() {
+            if (wakeup.availablePermits() == 0) wakeup.release();
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                try {
+                    wakeup.acquire();
+                    wakeup.drainPermits();
+                    while (running && publishService.publishLane(index, count) >= props.getBatchSize()) {
+                        // còn backlog trong lane => lấy tiếp
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Exception ex) {
+                    log.error("Outbox lane {} drain failed", index, ex);
+                }
+            }
+        }
     }
 }
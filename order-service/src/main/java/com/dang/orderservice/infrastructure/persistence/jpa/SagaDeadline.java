@@ -0,0 +1,39 @@
+package com.dang.orderservice.infrastructure.persistence.jpa;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Getter;
+
+import java.time.Instant;
+
+/**
+ * Deadline của bước saga đang chờ phản hồi. Timing wheel chỉ giữ deadline gần, bảng này là nguồn gốc
+ * (sống sót qua restart, nạp dần theo khoảng due_at).
+ */
+@Getter
+@Entity
+@Table(
+        name = "saga_deadlines",
+        indexes = @Index(name = "idx_saga_deadlines_due", columnList = "due_at,saga_id")
+)
+public class SagaDeadline {
+
+    @Id
+    @Column(name = "saga_id", length = 36)
+    private String sagaId;
+
+    @Column(name = "due_at", nullable = false)
+    private Instant dueAt;
+
+    // số lần đã timeout liên tiếp ở bước hiện tại
+    @Column(nullable = false)
+    private int attempt;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    protected SagaDeadline() {}
+}
@@ -0,0 +1,66 @@
+package com.dang.orderservice.infrastructure.persistence.jpa;
+
+import com.dang.orderservice.domain.model.valueobjects.SagaStatus;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Getter;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * 1 bước của saga (chỉ INSERT, không bao giờ UPDATE): phần trạng thái thay đổi so với bước trước.
+ * status / failure_reason null = không đổi; cờ boolean theo bit của OrderSaga (set rồi cleared).
+ * PK (saga_id, seq): 2 instance cùng ghi 1 saga => trùng seq => transaction sau rollback và retry.
+ */
+@Getter
+@Entity
+@IdClass(SagaEvent.Key.class)
+@Table(
+        name = "saga_events",
+        indexes = @Index(name = "idx_saga_events_order", columnList = "order_id")
+)
+public class SagaEvent {
+
+    @Id
+    @Column(name = "saga_id", length = 36)
+    private String sagaId;
+
+    @Id
+    @Column(nullable = false)
+    private long seq;
+
+    @Column(name = "order_id", nullable = false, length = 36)
+    private String orderId;
+
+    // mô tả bước cho audit, vd "CANCEL_FLOW +PAYMENT_CAPTURE_FAILED +INVENTORY_COMPENSATION_REQUIRED"
+    @Column(nullable = false, length = 300)
+    private String step;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 32)
+    private SagaStatus status;
+
+    @Column(name = "set_flags", nullable = false)
+    private int setFlags;
+
+    @Column(name = "cleared_flags", nullable = false)
+    private int clearedFlags;
+
+    @Column(name = "failure_reason")
+    private String failureReason;
+
+    @Column(name = "occurred_at", nullable = false)
+    private Instant occurredAt;
+
+    protected SagaEvent() {}
+
+    public record Key(String sagaId, long seq) implements Serializable {
+    }
+}
@@ -0,0 +1,49 @@
+package com.dang.orderservice.infrastructure.persistence.jpa;
+
+import com.dang.orderservice.domain.model.valueobjects.SagaStatus;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+
+import java.time.Instant;
+
+/**
+ * Trạng thái saga đã gộp tới seq: load = snapshot + saga_events có seq lớn hơn.
+ */
+@Getter
+@Entity
+@Table(name = "saga_snapshots")
+public class SagaSnapshot {
+
+    @Id
+    @Column(name = "saga_id", length = 36)
+    private String sagaId;
+
+    @Column(nullable = false)
+    private long seq;
+
+    @Column(name = "order_id", nullable = false, length = 36)
+    private String orderId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private SagaStatus status;
+
+    @Column(nullable = false)
+    private int flags;
+
+    @Column(name = "failure_reason")
+    private String failureReason;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    protected SagaSnapshot() {}
+}
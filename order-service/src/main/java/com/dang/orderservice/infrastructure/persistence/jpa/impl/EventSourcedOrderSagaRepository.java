@@ -0,0 +1,307 @@
+package com.dang.orderservice.infrastructure.persistence.jpa.impl;
+
+import com.dang.orderservice.domain.model.aggregates.OrderSaga;
+import com.dang.orderservice.domain.model.valueobjects.SagaStatus;
+import com.dang.orderservice.domain.repository.OrderSagaRepository;
+import com.dang.orderservice.infrastructure.persistence.jpa.JpaOrderSagaRepository;
+import com.dang.orderservice.infrastructure.persistence.jpa.JpaSagaEventRepository;
+import com.dang.orderservice.infrastructure.persistence.jpa.JpaSagaSnapshotRepository;
+import com.dang.orderservice.infrastructure.persistence.jpa.SagaEvent;
+import com.dang.orderservice.infrastructure.persistence.jpa.SagaSnapshot;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.jspecify.annotations.Nullable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Saga lưu dạng event: mỗi save = INSERT 1 row saga_events chứa phần thay đổi (không UPDATE order_sagas).
+ * Load = state trong cache (hoặc saga_snapshots) + tail saga_events có seq lớn hơn.
+ *
+ * State ghi trong transaction chỉ vào cache sau commit (rollback thì bỏ), trong lúc đó giữ ở map gắn với transaction.
+ * Saga có tail dài hoặc đã kết thúc được đánh dấu để {@code SagaSnapshotCompactor} ghi snapshot.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.saga.store", name = "type", havingValue = "events")
+public class EventSourcedOrderSagaRepository implements OrderSagaRepository {
+
+    // theo thứ tự bit của OrderSaga.stateFlags()
+    private static final String[] FLAG_NAMES = {
+            "INVENTORY_RESERVED", "PAYMENT_CAPTURED", "PARALLEL", "INVENTORY_RESERVE_FAILED",
+            "PAYMENT_CAPTURE_FAILED", "TIMED_OUT", "INVENTORY_COMPENSATION_REQUIRED",
+            "PAYMENT_COMPENSATION_REQUIRED", "INVENTORY_COMPENSATION_DONE", "PAYMENT_COMPENSATION_DONE",
+            "CANCEL_SAGA"
+    };
+
+    private final JpaSagaEventRepository events;
+    private final JpaSagaSnapshotRepository snapshots;
+    private final JpaOrderSagaRepository legacy;
+    private final Cache<String, SagaState> states;
+    private final Set<String> snapshotDue = ConcurrentHashMap.newKeySet();
+    private final int snapshotEvery;
+
+    public EventSourcedOrderSagaRepository(JpaSagaEventRepository events,
+                                           JpaSagaSnapshotRepository snapshots,
+                                           JpaOrderSagaRepository legacy,
+                                           @Value("${app.saga.store.cache-size:100000}") long cacheSize,
+                                           @Value("${app.saga.store.snapshot-every:16}") int snapshotEvery) {
+        this.events = events;
+        this.snapshots = snapshots;
+        this.legacy = legacy;
+        this.snapshotEvery = snapshotEvery;
+        this.states = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .build();
+    }
+
+    @Override
+    public OrderSaga save(OrderSaga saga) {
+        String sagaId = saga.getId();
+        SagaState before = pendingOrCached(sagaId);
+        if (before == null && !saga.isNew()) {
+            before = load(sagaId);
+        }
+
+        int flags = saga.stateFlags();
+        Instant now = saga.getUpdatedAt() != null ? saga.getUpdatedAt() : Instant.now();
+        SagaState after;
+        if (before == null) {
+            events.append(sagaId, 1, saga.getOrderId(), step(saga.getStatus(), flags, 0), saga.getStatus().name(),
+                    flags, 0, saga.getFailureReason(), now);
+            after = new SagaState(sagaId, saga.getOrderId(), saga.getStatus(), flags, saga.getFailureReason(),
+                    now, now, 1, 0);
+        } else {
+            SagaStatus status = saga.getStatus() != before.status() ? saga.getStatus() : null;
+            int set = flags & ~before.flags();
+            int cleared = before.flags() & ~flags;
+            String reason = saga.getFailureReason() != null && !saga.getFailureReason().equals(before.failureReason())
+                    ? saga.getFailureReason() : null;
+            if (status == null && set == 0 && cleared == 0 && reason == null) {
+                return saga; // không đổi gì => không ghi
+            }
+
+            long seq = before.seq() + 1;
+            try {
+                events.append(sagaId, seq, before.orderId(), step(status, set, cleared),
+                        status == null ? null : status.name(), set, cleared, reason, now);
+            } catch (DataIntegrityViolationException ex) {
+                // trùng (saga_id, seq): instance/handler khác đã ghi trước => state trong cache đã cũ.
+                // Báo như optimistic lock để @RetryOnConflict chạy lại từ đầu với tail mới nhất.
+                states.invalidate(sagaId);
+                throw new OptimisticLockingFailureException("Saga " + sagaId + " already has event seq " + seq, ex);
+            }
+            after = before.apply(seq, status, set, cleared, reason, now);
+        }
+
+        stage(after);
+        return saga;
+    }
+
+    @Override
+    public Optional<OrderSaga> findById(String sagaId) {
+        Map<String, SagaState> pending = pending(false);
+        if (pending != null && pending.containsKey(sagaId)) {
+            return Optional.of(pending.get(sagaId).toSaga());
+        }
+        SagaState state = load(sagaId);
+        if (state != null) return Optional.of(state.toSaga());
+        return legacy.findById(sagaId).map(EventSourcedOrderSagaRepository::detach);
+    }
+
+    /**
+     * Batch listener preload: snapshot của saga chưa có trong cache + tail của tất cả, tổng cộng 2 query.
+     */
+    @Override
+    public List<OrderSaga> findAllById(Collection<String> sagaIds) {
+        Map<String, SagaState> pending = pending(false);
+        Map<String, SagaState> base = new LinkedHashMap<>();
+        List<String> toRead = new ArrayList<>();
+        List<String> missing = new ArrayList<>();
+        for (String id : sagaIds) {
+            if (pending != null && pending.containsKey(id)) {
+                base.put(id, pending.get(id));
+                continue;
+            }
+            SagaState cached = states.getIfPresent(id);
+            if (cached == null) missing.add(id);
+            else base.put(id, cached);
+            toRead.add(id);
+        }
+        if (!missing.isEmpty()) {
+            for (SagaSnapshot s : snapshots.findAllById(missing)) {
+                base.put(s.getSagaId(), SagaState.of(s));
+            }
+        }
+        if (!toRead.isEmpty()) {
+            Map<String, List<SagaEvent>> tails = new HashMap<>();
+            for (SagaEvent e : events.findTailsAfterSnapshot(toRead)) {
+                tails.computeIfAbsent(e.getSagaId(), k -> new ArrayList<>()).add(e);
+            }
+            for (String id : toRead) {
+                List<SagaEvent> tail = tails.getOrDefault(id, List.of());
+                SagaState cached = base.get(id);
+                // instance khác đã snapshot xa hơn state trong cache => tail sau snapshot bị hở, đọc lại theo seq
+                SagaState state = cached != null && !tail.isEmpty() && tail.getFirst().getSeq() > cached.seq() + 1
+                        ? fold(cached, events.findTail(id, cached.seq()))
+                        : fold(cached, tail);
+                if (state != null) {
+                    base.put(id, state);
+                    cacheCommitted(state);
+                }
+            }
+        }
+        List<OrderSaga> found = new ArrayList<>(base.values().stream().map(SagaState::toSaga).toList());
+        if (found.size() < sagaIds.size()) {
+            List<String> notInStore = sagaIds.stream().filter(id -> !base.containsKey(id)).toList();
+            legacy.findAllById(notInStore).forEach(s -> found.add(detach(s)));
+        }
+        return found;
+    }
+
+    @Override
+    public Optional<OrderSaga> findLatestByOrderIdAndStatus(String orderId, SagaStatus status) {
+        Optional<OrderSaga> fromEvents = findAllById(events.findSagaIdsByOrderId(orderId)).stream()
+                .filter(s -> s.getStatus() == status)
+                .max(Comparator.comparing(OrderSaga::getCreatedAt));
+        if (fromEvents.isPresent()) return fromEvents;
+        return legacy.findFirstByOrderIdAndStatusOrderByCreatedAtDesc(orderId, status)
+                .map(EventSourcedOrderSagaRepository::detach);
+    }
+
+    // ===== snapshot compaction (SagaSnapshotCompactor) =====
+
+    /** Lấy tối đa {@code max} saga cần snapshot (đã commit, còn trong cache). */
+    List<SagaState> takeSnapshotDue(int max) {
+        List<SagaState> due = new ArrayList<>();
+        Iterator<String> it = snapshotDue.iterator();
+        while (it.hasNext() && due.size() < max) {
+            String id = it.next();
+            it.remove();
+            SagaState state = states.getIfPresent(id);
+            if (state != null && state.seq() > state.snapshotSeq()) due.add(state);
+        }
+        return due;
+    }
+
+    void snapshotWritten(SagaState state) {
+        states.asMap().computeIfPresent(state.sagaId(),
+                (id, current) -> current.withSnapshotSeq(Math.max(current.snapshotSeq(), state.seq())));
+    }
+
+    // ===== internals =====
+
+    private @Nullable SagaState load(String sagaId) {
+        SagaState base = states.getIfPresent(sagaId);
+        if (base == null) {
+            base = snapshots.findById(sagaId).map(SagaState::of).orElse(null);
+        }
+        SagaState state = fold(base, events.findTail(sagaId, base == null ? 0 : base.seq()));
+        if (state != null) cacheCommitted(state);
+        return state;
+    }
+
+    /**
+     * Saga cũ còn trong order_sagas (trước khi bật event store): trả bản sao không managed để Hibernate
+     * không UPDATE row cũ; lần save đầu tiên ghi đủ trạng thái vào seq 1.
+     */
+    private static OrderSaga detach(OrderSaga managed) {
+        return OrderSaga.restore(managed.getId(), managed.getOrderId(), managed.getStatus(), managed.stateFlags(),
+                managed.getFailureReason(), managed.getCreatedAt(), managed.getUpdatedAt());
+    }
+
+    private static @Nullable SagaState fold(@Nullable SagaState base, List<SagaEvent> tail) {
+        SagaState state = base;
+        for (SagaEvent e : tail) {
+            if (state != null && e.getSeq() <= state.seq()) continue;
+            state = state == null ? SagaState.first(e) : state.apply(e);
+        }
+        return state;
+    }
+
+    private void cacheCommitted(SagaState state) {
+        states.asMap().merge(state.sagaId(), state, (old, loaded) -> loaded.seq() >= old.seq() ? loaded : old);
+        markIfSnapshotDue(state);
+    }
+
+    private void markIfSnapshotDue(SagaState state) {
+        long tail = state.seq() - state.snapshotSeq();
+        if (tail >= snapshotEvery || (state.isTerminal() && tail > 0)) {
+            snapshotDue.add(state.sagaId());
+        }
+    }
+
+    private @Nullable SagaState pendingOrCached(String sagaId) {
+        Map<String, SagaState> pending = pending(false);
+        if (pending != null && pending.containsKey(sagaId)) return pending.get(sagaId);
+        return states.getIfPresent(sagaId);
+    }
+
+    private void stage(SagaState state) {
+        Map<String, SagaState> pending = pending(true);
+        if (pending == null) {
+            cacheCommitted(state); // không có transaction: INSERT đã auto-commit
+        } else {
+            pending.put(state.sagaId(), state);
+        }
+    }
+
+    /**
+     * State đã append trong transaction hiện tại; chỉ đưa vào cache khi commit thành công.
+     */
+    @SuppressWarnings("unchecked")
+    private @Nullable Map<String, SagaState> pending(boolean create) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return null;
+        Map<String, SagaState> pending = (Map<String, SagaState>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null && create) {
+            Map<String, SagaState> staged = new HashMap<>();
+            TransactionSynchronizationManager.bindResource(this, staged);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(EventSourcedOrderSagaRepository.this);
+                    if (status == STATUS_COMMITTED) {
+                        staged.values().forEach(EventSourcedOrderSagaRepository.this::cacheCommitted);
+                    } else {
+                        staged.keySet().forEach(states::invalidate); // có thể đã lệch seq với DB
+                    }
+                }
+            });
+            pending = staged;
+        }
+        return pending;
+    }
+
+    private static String step(SagaStatus status, int set, int cleared) {
+        StringBuilder sb = new StringBuilder(status == null ? "" : status.name());
+        appendFlags(sb, '+', set);
+        appendFlags(sb, '-', cleared);
+        return sb.isEmpty() ? "UPDATED" : sb.toString();
+    }
+
+    private static void appendFlags(StringBuilder sb, char sign, int flags) {
+        for (int bit = 0; bit < FLAG_NAMES.length; bit++) {
+            if ((flags & (1 << bit)) != 0) {
+                if (!sb.isEmpty()) sb.append(' ');
+                sb.append(sign).append(FLAG_NAMES[bit]);
+            }
+        }
+    }
+}
@@ -1,29 +1,42 @@
 package com.dang.orderservice.infrastructure.persistence.jpa.impl;
 
+import com.dang.orderservice.application.port.OrderViewPort;
 import com.dang.orderservice.domain.model.aggregates.Order;
 import com.dang.orderservice.domain.model.valueobjects.OrderId;
 import com.dang.orderservice.domain.repository.OrderRepository;
 import com.dang.orderservice.infrastructure.persistence.jpa.JpaOrderRepository;
 import org.springframework.stereotype.Component;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Component
 public class OrderRepositoryImpl implements OrderRepository {
 
     private final JpaOrderRepository jpa;
+    private final OrderViewPort views;
 
-    public OrderRepositoryImpl(JpaOrderRepository jpa) {
+    public OrderRepositoryImpl(JpaOrderRepository jpa, OrderViewPort views) {
         this.jpa = jpa;
+        this.views = views;
     }
 
     @Override
     public Order save(Order order) {
-        return jpa.save(order);
+        Order saved = jpa.save(order);
+        // mọi đường ghi order đều qua đây => projection luôn cùng transaction với state change
+        views.project(saved);
+        return saved;
     }
 
     @Override
     public Optional<Order> findById(OrderId id) {
         return jpa.findById(id);
     }
+
+    @Override
+    public List<Order> findAllById(Collection<OrderId> ids) {
+        return jpa.findAllById(ids);
+    }
 }
@@ -4,11 +4,15 @@ import com.dang.orderservice.domain.model.aggregates.OrderSaga;
 import com.dang.orderservice.domain.model.valueobjects.SagaStatus;
 import com.dang.orderservice.domain.repository.OrderSagaRepository;
 import com.dang.orderservice.infrastructure.persistence.jpa.JpaOrderSagaRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Component
+@ConditionalOnProperty(prefix = "app.saga.store", name = "type", havingValue = "row", matchIfMissing = true)
 public class OrderSagaRepositoryImpl implements OrderSagaRepository {
 
     private final JpaOrderSagaRepository jpa;
@@ -27,6 +31,11 @@ public class OrderSagaRepositoryImpl implements OrderSagaRepository {
         return jpa.findById(sagaId);
     }
 
+    @Override
+    public List<OrderSaga> findAllById(Collection<String> sagaIds) {
+        return jpa.findAllById(sagaIds);
+    }
+
     @Override
     public Optional<OrderSaga> findLatestByOrderIdAndStatus(String orderId, SagaStatus status) {
         return jpa.findFirstByOrderIdAndStatusOrderByCreatedAtDesc(orderId, status);
@@ -0,0 +1,55 @@
+package com.dang.orderservice.infrastructure.persistence.jpa.impl;
+
+import com.dang.orderservice.infrastructure.persistence.jpa.JpaSagaSnapshotRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Gộp tail saga_events vào saga_snapshots cho saga có tail dài (hoặc đã kết thúc) => load lạnh chỉ đọc
+ * 1 snapshot + vài event. Event không bị xoá (giữ làm audit trail).
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.saga.store", name = "type", havingValue = "events")
+public class SagaSnapshotCompactor {
+
+    private static final Logger log = LoggerFactory.getLogger(SagaSnapshotCompactor.class);
+
+    private final EventSourcedOrderSagaRepository sagas;
+    private final JpaSagaSnapshotRepository snapshots;
+    private final TransactionTemplate tx;
+
+    @Value("${app.saga.store.compact-batch-size:500}")
+    private int batchSize;
+
+    public SagaSnapshotCompactor(EventSourcedOrderSagaRepository sagas,
+                                 JpaSagaSnapshotRepository snapshots,
+                                 PlatformTransactionManager transactionManager) {
+        this.sagas = sagas;
+        this.snapshots = snapshots;
+        this.tx = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(fixedDelayString = "${app.saga.store.compact-interval-ms:30000}")
+    public void compact() {
+        int written = 0;
+        List<SagaState> due;
+        while (!(due = sagas.takeSnapshotDue(batchSize)).isEmpty()) {
+            List<SagaState> batch = due;
+            tx.executeWithoutResult(status -> batch.forEach(s -> snapshots.upsert(s.sagaId(), s.seq(), s.orderId(),
+                    s.status().name(), s.flags(), s.failureReason(), s.createdAt(), s.updatedAt())));
+            batch.forEach(sagas::snapshotWritten);
+            written += batch.size();
+        }
+        if (written > 0) {
+            log.debug("Saga snapshot compaction wrote {} snapshots", written);
+        }
+    }
+}
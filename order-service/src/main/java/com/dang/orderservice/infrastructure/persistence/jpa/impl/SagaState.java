@@ -0,0 +1,60 @@
+package com.dang.orderservice.infrastructure.persistence.jpa.impl;
+
+import com.dang.orderservice.domain.model.aggregates.OrderSaga;
+import com.dang.orderservice.domain.model.valueobjects.SagaStatus;
+import com.dang.orderservice.infrastructure.persistence.jpa.SagaEvent;
+import com.dang.orderservice.infrastructure.persistence.jpa.SagaSnapshot;
+
+import java.time.Instant;
+
+/**
+ * Trạng thái saga đã gộp tới {@code seq} (bất biến, an toàn để cache dùng chung giữa các thread).
+ * {@code snapshotSeq}: seq của snapshot đã ghi, khoảng cách tới seq = độ dài tail phải đọc khi load lạnh.
+ */
+public record SagaState(
+        String sagaId,
+        String orderId,
+        SagaStatus status,
+        int flags,
+        String failureReason,
+        Instant createdAt,
+        Instant updatedAt,
+        long seq,
+        long snapshotSeq
+) {
+
+    static SagaState of(SagaSnapshot s) {
+        return new SagaState(s.getSagaId(), s.getOrderId(), s.getStatus(), s.getFlags(), s.getFailureReason(),
+                s.getCreatedAt(), s.getUpdatedAt(), s.getSeq(), s.getSeq());
+    }
+
+    /** Event đầu tiên (seq 1) mang đủ trạng thái ban đầu. */
+    static SagaState first(SagaEvent e) {
+        return new SagaState(e.getSagaId(), e.getOrderId(), e.getStatus(), e.getSetFlags() & ~e.getClearedFlags(),
+                e.getFailureReason(), e.getOccurredAt(), e.getOccurredAt(), e.getSeq(), 0);
+    }
+
+    SagaState apply(SagaEvent e) {
+        return apply(e.getSeq(), e.getStatus(), e.getSetFlags(), e.getClearedFlags(), e.getFailureReason(), e.getOccurredAt());
+    }
+
+    SagaState apply(long seq, SagaStatus newStatus, int set, int cleared, String reason, Instant at) {
+        return new SagaState(sagaId, orderId,
+                newStatus != null ? newStatus : status,
+                (flags | set) & ~cleared,
+                reason != null ? reason : failureReason,
+                createdAt, at, seq, snapshotSeq);
+    }
+
+    SagaState withSnapshotSeq(long snapshotSeq) {
+        return new SagaState(sagaId, orderId, status, flags, failureReason, createdAt, updatedAt, seq, snapshotSeq);
+    }
+
+    boolean isTerminal() {
+        return status == SagaStatus.COMPLETED || status == SagaStatus.FAILED;
+    }
+
+    OrderSaga toSaga() {
+        return OrderSaga.restore(sagaId, orderId, status, flags, failureReason, createdAt, updatedAt);
+    }
+}
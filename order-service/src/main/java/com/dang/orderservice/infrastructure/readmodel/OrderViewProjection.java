@@ -0,0 +1,119 @@
+package com.dang.orderservice.infrastructure.readmodel;
+
+import com.dang.orderservice.application.dtos.OrderResponse;
+import com.dang.orderservice.application.dtos.OrderSummaryResponse;
+import com.dang.orderservice.application.port.OrderViewPort;
+import com.dang.orderservice.application.service.OrderResponseMapper;
+import com.dang.orderservice.domain.model.aggregates.Order;
+import com.dang.orderservice.domain.model.valueobjects.OrderId;
+import com.dang.orderservice.domain.model.valueobjects.OrderStatus;
+import com.dang.orderservice.infrastructure.persistence.jpa.JpaOrderRepository;
+import com.dang.orderservice.infrastructure.persistence.jpa.JpaOrderViewRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.jspecify.annotations.Nullable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Read side của order: order_views (JSONB) + cache Caffeine giới hạn size/TTL phía trước.
+ * Cache bị xoá sau commit mỗi lần order đổi trạng thái; instance khác chỉ thấy thay đổi khi TTL hết
+ * => ttl-ms là độ trễ tối đa của GET giữa các instance.
+ */
+@Component
+public class OrderViewProjection implements OrderViewPort {
+
+    private final JpaOrderViewRepository views;
+    private final JpaOrderRepository orders;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readTx;
+    private final Cache<String, OrderResponse> cache;
+
+    public OrderViewProjection(JpaOrderViewRepository views,
+                               JpaOrderRepository orders,
+                               ObjectMapper objectMapper,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${app.orders.view-cache.max-size:100000}") long maxSize,
+                               @Value("${app.orders.view-cache.ttl-ms:10000}") long ttlMs) {
+        this.views = views;
+        this.orders = orders;
+        this.objectMapper = objectMapper;
+        this.readTx = new TransactionTemplate(transactionManager);
+        this.readTx.setReadOnly(true);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .build();
+    }
+
+    @Override
+    public void project(Order order) {
+        OrderResponse response = OrderResponseMapper.toResponse(order);
+        try {
+            views.upsert(response.orderId(), response.customerId(), response.status(),
+                    objectMapper.writeValueAsString(response), Instant.now());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to project order " + response.orderId(), e);
+        }
+        invalidateAfterCommit(response.orderId());
+    }
+
+    /**
+     * Cache hit: không đụng DB (không mở transaction). Miss: 1 lookup theo PK trên order_views;
+     * order cũ chưa có projection thì đọc từ bảng orders như trước.
+     */
+    @Override
+    public Optional<OrderResponse> find(String orderId) {
+        return Optional.ofNullable(cache.get(orderId, this::load));
+    }
+
+    @Override
+    public List<OrderSummaryResponse> history(String customerId, @Nullable OrderStatus status,
+                                              @Nullable Instant beforeCreatedAt, @Nullable String beforeOrderId, int limit) {
+        PageRequest page = PageRequest.ofSize(limit);
+        return beforeCreatedAt == null || beforeOrderId == null
+                ? orders.findHistory(customerId, status, page)
+                : orders.findHistoryBefore(customerId, status, beforeCreatedAt, beforeOrderId, page);
+    }
+
+    private OrderResponse load(String orderId) {
+        var view = views.findById(orderId);
+        if (view.isPresent()) {
+            try {
+                return objectMapper.readValue(view.get().getDocument(), OrderResponse.class);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Corrupted order view " + orderId, e);
+            }
+        }
+        // lines là lazy collection => cần transaction để map
+        return readTx.execute(status -> orders.findById(OrderId.of(orderId))
+                .map(OrderResponseMapper::toResponse)
+                .orElse(null));
+    }
+
+    private void invalidateAfterCommit(String orderId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cache.invalidate(orderId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                // load đang chạy song song (đọc bản cũ) bị chặn tới khi xong rồi mới xoá => không giữ lại bản cũ
+                cache.invalidate(orderId);
+            }
+        });
+    }
+}
@@ -2,14 +2,35 @@ package com.dang.orderservice.interfaces;
 
 import com.dang.orderservice.application.commands.CancelOrderCommand;
 import com.dang.orderservice.application.commands.CreateOrderCommand;
+import com.dang.orderservice.application.dtos.OrderBatchItemResult;
+import com.dang.orderservice.application.dtos.OrderHistoryResponse;
 import com.dang.orderservice.application.dtos.OrderResponse;
+import com.dang.orderservice.application.exceptions.BadRequestException;
+import com.dang.orderservice.application.service.IdempotentOrderService;
+import com.dang.orderservice.application.service.OrderBatchService;
 import com.dang.orderservice.application.service.OrderApplicationService;
 import com.dang.orderservice.application.saga.OrderSagaOrchestrator;
+import com.dang.orderservice.domain.model.valueobjects.OrderId;
+import com.dang.orderservice.infrastructure.outcome.OrderOutcomeRegistry;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/orders")
@@ -17,18 +38,109 @@ public class OrderController {
 
     private final OrderApplicationService orderApp;
     private final OrderSagaOrchestrator saga;
+    private final OrderOutcomeRegistry outcomes;
+    private final IdempotentOrderService idempotentOrders;
+    private final OrderBatchService batchOrders;
+    private final ObjectMapper objectMapper;
 
-    public OrderController(OrderApplicationService orderApp, OrderSagaOrchestrator saga) {
+    @Value("${app.orders.max-wait-ms:30000}")
+    private long maxWaitMs;
+
+    public OrderController(OrderApplicationService orderApp,
+                           OrderSagaOrchestrator saga,
+                           OrderOutcomeRegistry outcomes,
+                           IdempotentOrderService idempotentOrders,
+                           OrderBatchService batchOrders,
+                           ObjectMapper objectMapper) {
         this.orderApp = orderApp;
         this.saga = saga;
+        this.outcomes = outcomes;
+        this.idempotentOrders = idempotentOrders;
+        this.batchOrders = batchOrders;
+        this.objectMapper = objectMapper;
     }
 
+    /**
+     * {@code ?wait=5s}: giữ request (async, không chiếm thread) tới khi saga CONFIRMED / CANCELLED,
+     * hết hạn thì trả trạng thái hiện tại (thường là PENDING). Không có wait => trả PENDING ngay như cũ.
+     * Header Idempotency-Key: client retry cùng key nhận lại order đã tạo, không tạo order/saga mới.
+     */
     @PostMapping
-    public ResponseEntity<OrderResponse> create(@RequestBody @Valid CreateOrderCommand command) {
-        OrderResponse response = orderApp.create(command);
-        // create saga start theo orderId
-        saga.startCreateOrderSaga(response.orderId());
-        return ResponseEntity.created(URI.create("/api/orders/" + response.orderId())).body(response);
+    public DeferredResult<ResponseEntity<OrderResponse>> create(@RequestBody @Valid CreateOrderCommand command,
+                                                                @RequestParam(required = false) String wait,
+                                                                @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey) {
+        long waitMs = parseWaitMs(wait);
+        OrderId orderId = OrderId.generate();
+
+        if (waitMs <= 0) {
+            DeferredResult<ResponseEntity<OrderResponse>> result = new DeferredResult<>();
+            result.setResult(created(createOrder(orderId, command, idempotencyKey)));
+            return result;
+        }
+
+        // đăng ký trước khi commit để không lỡ kết quả về nhanh
+        String id = orderId.value();
+        CompletableFuture<OrderResponse> outcome = outcomes.await(id);
+        DeferredResult<ResponseEntity<OrderResponse>> result = new DeferredResult<>(waitMs);
+        result.onCompletion(() -> outcomes.release(id, outcome));
+
+        OrderResponse response;
+        try {
+            response = createOrder(orderId, command, idempotencyKey);
+        } catch (RuntimeException ex) {
+            outcomes.release(id, outcome);
+            throw ex;
+        }
+        if (!response.orderId().equals(id)) {
+            // retry trùng Idempotency-Key: order cũ, trả trạng thái hiện tại luôn
+            outcomes.release(id, outcome);
+            result.setResult(created(response));
+            return result;
+        }
+        // timeout chạy trên thread của container, không có SecurityContext => không đi qua getOrder (check chủ đơn)
+        result.onTimeout(() -> result.setResult(created(orderApp.latestOf(response))));
+        outcome.thenAccept(settled -> result.setResult(created(settled)));
+        return result;
+    }
+
+    private OrderResponse createOrder(OrderId orderId, CreateOrderCommand command, String idempotencyKey) {
+        return idempotencyKey == null
+                ? orderApp.createAndStartSaga(orderId, command)
+                : idempotentOrders.create(orderId, command, idempotencyKey);
+    }
+
+    /**
+     * Tạo nhiều order trong 1 request: body là JSON array hoặc NDJSON các CreateOrderCommand, đọc dần (không buffer cả body).
+     * Response NDJSON, mỗi dòng 1 OrderBatchItemResult, flush sau mỗi chunk để client thấy tiến độ.
+     */
+    @PostMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public void createBatch(InputStream body, HttpServletResponse response) throws IOException {
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        OutputStream out = response.getOutputStream();
+
+        int[] written = {0};
+        try (MappingIterator<CreateOrderCommand> commands = objectMapper.readerFor(CreateOrderCommand.class).readValues(body)) {
+            batchOrders.ingest(commands, results -> {
+                writeLines(out, results);
+                written[0] += results.size();
+            });
+        } catch (RuntimeException ex) {
+            // input hỏng / vượt giới hạn giữa chừng: các chunk trước đã commit, báo lỗi ở dòng cuối rồi dừng
+            writeLines(out, List.of(new OrderBatchItemResult(written[0], "REJECTED", null, List.of(String.valueOf(ex.getMessage())))));
+        }
+    }
+
+    private void writeLines(OutputStream out, List<OrderBatchItemResult> results) {
+        try {
+            for (OrderBatchItemResult r : results) {
+                out.write(objectMapper.writeValueAsBytes(r));
+                out.write('\n');
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     @PostMapping("/{orderId}/cancel")
@@ -44,6 +156,31 @@ public class OrderController {
         return ResponseEntity.ok(response);
     }
 
+    private long parseWaitMs(String wait) {
+        if (wait == null || wait.isBlank()) return 0;
+        try {
+            Duration d = DurationStyle.detectAndParse(wait);
+            return Math.min(Math.max(d.toMillis(), 0), maxWaitMs);
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException("Invalid wait: " + wait);
+        }
+    }
+
+    private static ResponseEntity<OrderResponse> created(OrderResponse response) {
+        return ResponseEntity.created(URI.create("/api/orders/" + response.orderId())).body(response);
+    }
+
+    /**
+     * Lịch sử order mới nhất trước, phân trang bằng cursor ?before= (nextBefore của trang trước).
+     */
+    @GetMapping
+    public ResponseEntity<OrderHistoryResponse> history(@RequestParam(required = false) String customerId,
+                                                        @RequestParam(required = false) String status,
+                                                        @RequestParam(required = false) String before,
+                                                        @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(orderApp.history(customerId, status, before, limit));
+    }
+
     @GetMapping("/{orderId}")
     public ResponseEntity<OrderResponse> get(@PathVariable String orderId) {
         return ResponseEntity.ok(orderApp.getOrder(orderId));
@@ -0,0 +1,215 @@
+package com.dang.orderservice.application.saga;
+
+import com.dang.orderservice.application.exceptions.SagaEventTooEarlyException;
+import com.dang.orderservice.application.port.InventoryCommandPort;
+import com.dang.orderservice.application.port.OrderOutcomePort;
+import com.dang.orderservice.application.port.PaymentCommandPort;
+import com.dang.orderservice.application.port.SagaDeadlinePort;
+import com.dang.orderservice.application.port.SagaMetricsPort;
+import com.dang.orderservice.domain.model.aggregates.Order;
+import com.dang.orderservice.domain.model.aggregates.OrderSaga;
+import com.dang.orderservice.domain.model.valueobjects.CustomerId;
+import com.dang.orderservice.domain.model.valueobjects.OrderId;
+import com.dang.orderservice.domain.model.valueobjects.OrderStatus;
+import com.dang.orderservice.domain.model.valueobjects.ShippingAddress;
+import com.dang.orderservice.domain.repository.OrderRepository;
+import com.dang.orderservice.domain.repository.OrderSagaRepository;
+import com.dang.sagamessages.message.inventory.InventoryEvents;
+import com.dang.sagamessages.message.payment.PaymentEvents;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class OrderSagaTransitionsTest {
+
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final OrderSagaRepository sagaRepository = mock(OrderSagaRepository.class);
+    private final InventoryCommandPort inventory = mock(InventoryCommandPort.class);
+    private final PaymentCommandPort payment = mock(PaymentCommandPort.class);
+    private final SagaDeadlinePort deadlines = mock(SagaDeadlinePort.class);
+    private final OrderOutcomePort outcomes = mock(OrderOutcomePort.class);
+    private final SagaMetricsPort metrics = mock(SagaMetricsPort.class);
+
+    private final OrderSagaOrchestrator orchestrator = orchestrator();
+
+    /**
+     * Sinh 1 test cho mỗi ô (phase, event) x attempt của timeout: ô phải được khai báo, dispatch không throw
+     * (trừ ô defer: throw để đi retry tier),
+     * saga/order được save tối đa 1 lần, saga kết thúc thì deadline bị huỷ, phase kết thúc thì không ghi gì.
+     */
+    @TestFactory
+    List<DynamicTest> everyPhaseEventPairIsDeclaredAndSafe() {
+        List<DynamicTest> tests = new ArrayList<>();
+        for (SagaPhase phase : SagaPhase.values()) {
+            for (SagaEventType event : SagaEventType.values()) {
+                int[] attempts = event == SagaEventType.TIMEOUT ? new int[]{0, 2} : new int[]{0};
+                for (int attempt : attempts) {
+                    tests.add(DynamicTest.dynamicTest(phase + " x " + event + (attempt > 0 ? " (last attempt)" : ""),
+                            () -> assertCell(phase, event, attempt)));
+                }
+            }
+        }
+        return tests;
+    }
+
+    private void assertCell(SagaPhase phase, SagaEventType event, int attempt) {
+        clearInvocations(orderRepository, sagaRepository, inventory, payment, deadlines, outcomes);
+        assertThat(orchestrator.transitions().isDeclared(phase, event)).as("declared").isTrue();
+
+        Order order = order();
+        OrderSaga saga = sagaIn(phase, order);
+        assertThat(SagaPhase.of(saga)).isEqualTo(phase);
+        when(sagaRepository.findById(saga.getId())).thenReturn(Optional.of(saga));
+        when(orderRepository.findById(any())).thenReturn(Optional.of(order));
+
+        if (orchestrator.transitions().isDeferred(phase, event)) {
+            assertThatThrownBy(() -> fire(event, saga, attempt)).isInstanceOf(SagaEventTooEarlyException.class);
+        } else {
+            fire(event, saga, attempt);
+        }
+
+        verify(sagaRepository, atMost(1)).save(any());
+        verify(orderRepository, atMost(1)).save(any());
+        if (phase.isTerminal()) {
+            verify(sagaRepository, never()).save(any());
+            verify(orderRepository, never()).save(any());
+            verifyNoInteractions(inventory, payment);
+        }
+        if (!phase.isTerminal() && SagaPhase.of(saga).isTerminal()) {
+            verify(deadlines).cancel(saga.getId());
+        }
+    }
+
+    @Test
+    void sequentialHappyPathConfirmsOrder() {
+        Order order = order();
+        OrderSaga saga = OrderSaga.startCreate("s-1", order.getId().value());
+        when(sagaRepository.findById("s-1")).thenReturn(Optional.of(saga));
+        when(orderRepository.findById(any())).thenReturn(Optional.of(order));
+
+        orchestrator.onInventoryReserved(new InventoryEvents.InventoryReservedEvent("s-1", order.getId().value(), Instant.now()));
+        verify(payment).sendCapturePayment(any());
+
+        orchestrator.onPaymentCaptured(new PaymentEvents.PaymentCapturedEvent("s-1", order.getId().value(), Instant.now()));
+        orchestrator.onPaymentCaptured(new PaymentEvents.PaymentCapturedEvent("s-1", order.getId().value(), Instant.now()));
+
+        assertThat(saga.isCompleted()).isTrue();
+        assertThat(order.getStatus()).isEqualTo(OrderStatus.CONFIRMED);
+        verify(outcomes, times(1)).settled(order);
+    }
+
+    @Test
+    void compensationResultBeforeCancelFlowIsRetriedNotDropped() {
+        Order order = order();
+        OrderSaga saga = OrderSaga.startCreateParallel("s-3", order.getId().value());
+        when(sagaRepository.findById("s-3")).thenReturn(Optional.of(saga));
+        when(orderRepository.findById(any())).thenReturn(Optional.of(order));
+        var released = new InventoryEvents.InventoryReleasedEvent("s-3", order.getId().value(), Instant.now());
+
+        assertThatThrownBy(() -> orchestrator.onInventoryReleased(released)).isInstanceOf(SagaEventTooEarlyException.class);
+        verify(sagaRepository, never()).save(any());
+
+        orchestrator.onInventoryReserved(new InventoryEvents.InventoryReservedEvent("s-3", order.getId().value(), Instant.now()));
+        orchestrator.onPaymentCaptureFailed(new PaymentEvents.PaymentCaptureFailedEvent("s-3", order.getId().value(), "declined", Instant.now()));
+        assertThat(SagaPhase.of(saga)).isEqualTo(SagaPhase.CANCEL_PARALLEL);
+
+        // retry tier giao lại => lúc này mới áp dụng
+        orchestrator.onInventoryReleased(released);
+        assertThat(saga.isInventoryCompensationDone()).isTrue();
+    }
+
+    @Test
+    void parallelLateCaptureAfterReserveFailureIsRefunded() {
+        Order order = order();
+        OrderSaga saga = OrderSaga.startCreateParallel("s-2", order.getId().value());
+        when(sagaRepository.findById("s-2")).thenReturn(Optional.of(saga));
+        when(orderRepository.findById(any())).thenReturn(Optional.of(order));
+
+        orchestrator.onInventoryFailed("s-2", order.getId().value(), "out of stock");
+        assertThat(SagaPhase.of(saga)).isEqualTo(SagaPhase.CANCEL_PARALLEL);
+
+        // JSON cũ: success tới sau khi create đã fail => vẫn là capture tới muộn, không phải refund
+        orchestrator.onPaymentSuccess("s-2", order.getId().value());
+        verify(payment).sendRefundPayment(any());
+
+        orchestrator.onPaymentRefunded(new PaymentEvents.PaymentRefundedEvent("s-2", order.getId().value(), Instant.now()));
+        assertThat(saga.isCompleted()).isTrue();
+        assertThat(order.getStatus()).isEqualTo(OrderStatus.CANCELLED);
+    }
+
+    private void fire(SagaEventType event, OrderSaga saga, int attempt) {
+        String sagaId = saga.getId();
+        String orderId = saga.getOrderId();
+        Instant now = Instant.now();
+        switch (event) {
+            case INVENTORY_RESERVED -> orchestrator.onInventoryReserved(new InventoryEvents.InventoryReservedEvent(sagaId, orderId, now));
+            case INVENTORY_RESERVE_FAILED -> orchestrator.onInventoryReserveFailed(new InventoryEvents.InventoryReserveFailedEvent(sagaId, orderId, "x", now));
+            case INVENTORY_RELEASED -> orchestrator.onInventoryReleased(new InventoryEvents.InventoryReleasedEvent(sagaId, orderId, now));
+            case INVENTORY_RELEASE_FAILED -> orchestrator.onInventoryReleaseFailed(new InventoryEvents.InventoryReleaseFailedEvent(sagaId, orderId, "x", now));
+            case PAYMENT_CAPTURED -> orchestrator.onPaymentCaptured(new PaymentEvents.PaymentCapturedEvent(sagaId, orderId, now));
+            case PAYMENT_CAPTURE_FAILED -> orchestrator.onPaymentCaptureFailed(new PaymentEvents.PaymentCaptureFailedEvent(sagaId, orderId, "x", now));
+            case PAYMENT_REFUNDED -> orchestrator.onPaymentRefunded(new PaymentEvents.PaymentRefundedEvent(sagaId, orderId, now));
+            case PAYMENT_REFUND_FAILED -> orchestrator.onPaymentRefundFailed(new PaymentEvents.PaymentRefundFailedEvent(sagaId, orderId, "x", now));
+            case TIMEOUT -> orchestrator.onSagaTimeout(sagaId, attempt);
+        }
+    }
+
+    private static OrderSaga sagaIn(SagaPhase phase, Order order) {
+        String orderId = order.getId().value();
+        return switch (phase) {
+            case CREATE -> OrderSaga.startCreate("s-" + phase, orderId);
+            case CREATE_PARALLEL -> OrderSaga.startCreateParallel("s-" + phase, orderId);
+            case CANCEL -> {
+                order.markInventoryReserved();
+                order.markPaid();
+                OrderSaga saga = OrderSaga.startCancel("s-" + phase, orderId);
+                saga.planCompensation(order);
+                yield saga;
+            }
+            case CANCEL_PARALLEL -> {
+                OrderSaga saga = OrderSaga.startCreateParallel("s-" + phase, orderId);
+                saga.onPaymentCaptureFailed("declined");
+                saga.switchToCancelFlow("declined", order);
+                yield saga;
+            }
+            case COMPLETED -> {
+                OrderSaga saga = OrderSaga.startCreate("s-" + phase, orderId);
+                saga.complete();
+                yield saga;
+            }
+            case FAILED -> {
+                OrderSaga saga = OrderSaga.startCreate("s-" + phase, orderId);
+                saga.fail("boom");
+                yield saga;
+            }
+        };
+    }
+
+    private static Order order() {
+        Order order = Order.create(OrderId.generate(), CustomerId.of("c-1"),
+                ShippingAddress.of("A", "0900000000", "1 Street", null, "HCM", null, "70000", "vn"), "VND");
+        order.addLine("SKU-1", 2, new BigDecimal("10.00"));
+        return order;
+    }
+
+    private OrderSagaOrchestrator orchestrator() {
+        when(orderRepository.getRequired(any())).thenCallRealMethod();
+        when(sagaRepository.getRequired(anyString())).thenCallRealMethod();
+        OrderSagaOrchestrator o = new OrderSagaOrchestrator(orderRepository, sagaRepository, inventory, payment, deadlines, outcomes, metrics);
+        ReflectionTestUtils.setField(o, "stepTimeoutMs", 30_000L);
+        ReflectionTestUtils.setField(o, "maxTimeoutRetries", 2);
+        return o;
+    }
+}
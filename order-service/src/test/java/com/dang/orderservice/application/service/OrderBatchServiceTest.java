@@ -0,0 +1,56 @@
+package com.dang.orderservice.application.service;
+
+import com.dang.orderservice.application.commands.CreateOrderCommand;
+import com.dang.orderservice.application.dtos.OrderBatchItemResult;
+import com.dang.orderservice.application.dtos.OrderResponse;
+import com.dang.orderservice.application.exceptions.BadRequestException;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OrderBatchServiceTest {
+
+    private final OrderApplicationService orderApp = mock(OrderApplicationService.class);
+    private final Validator validator = mock(Validator.class);
+    private final OrderBatchService service = new OrderBatchService(orderApp, validator);
+
+    @Test
+    void itemsReadBeforeMaxItemsStillGetAResult() {
+        ReflectionTestUtils.setField(service, "chunkSize", 2);
+        ReflectionTestUtils.setField(service, "maxItems", 3);
+        when(validator.validate(any())).thenReturn(Set.of());
+        int[] seq = {0};
+        when(orderApp.createAndStartSagaBatch(anyList())).thenAnswer(inv -> {
+            List<CreateOrderCommand> commands = inv.getArgument(0);
+            return commands.stream().map(c -> response("o-" + seq[0]++)).toList();
+        });
+        List<OrderBatchItemResult> results = new ArrayList<>();
+
+        assertThatThrownBy(() -> service.ingest(List.of(command(), command(), command(), command()).iterator(), results::addAll))
+                .isInstanceOf(BadRequestException.class);
+
+        // item 0..2 có kết quả => dòng REJECTED ở index 3 đúng là item đầu tiên bị bỏ
+        assertThat(results).extracting(OrderBatchItemResult::index).containsExactly(0, 1, 2);
+        assertThat(results).extracting(OrderBatchItemResult::status).containsOnly("CREATED");
+    }
+
+    private static CreateOrderCommand command() {
+        return new CreateOrderCommand(List.of(new CreateOrderCommand.Item("SKU-1", 1, BigDecimal.ONE)), "VND", null);
+    }
+
+    private static OrderResponse response(String orderId) {
+        return new OrderResponse(orderId, "c-1", "PENDING", BigDecimal.ONE, "VND", false, false, null, null, null, List.of());
+    }
+}
@@ -0,0 +1,112 @@
+package com.dang.orderservice.benchmark;
+
+import com.dang.orderservice.domain.model.valueobjects.Money;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tính tổng order cho giỏ nhiều dòng: Money cũ (BigDecimal, mỗi dòng Money.of().multiply() rồi add)
+ * so với Money minor unit (long, addTimes).
+ *
+ * Chạy: main() trong IDE (classpath test), thêm -prof gc để xem số byte cấp phát / op.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderTotalBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int lines;
+
+    private BigDecimal[] unitPrices;
+    private int[] quantities;
+    private String currency;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random rnd = new Random(42);
+        unitPrices = new BigDecimal[lines];
+        quantities = new int[lines];
+        for (int i = 0; i < lines; i++) {
+            unitPrices[i] = BigDecimal.valueOf(100 + rnd.nextInt(1_000_000), 2);
+            quantities[i] = 1 + rnd.nextInt(10);
+        }
+        // đọc từ request => chuỗi mới mỗi lần, không phải literal đã intern
+        currency = new String("vnd ".toCharArray());
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalMoney() {
+        LegacyMoney total = LegacyMoney.zero(currency);
+        for (int i = 0; i < lines; i++) {
+            total = total.add(LegacyMoney.of(unitPrices[i], total.currency()).multiply(quantities[i]));
+        }
+        return total.amount();
+    }
+
+    @Benchmark
+    public long minorUnitMoney() {
+        Money total = Money.zero(currency);
+        for (int i = 0; i < lines; i++) {
+            total = total.addTimes(Money.toMinor(unitPrices[i]), quantities[i]);
+        }
+        return total.amountMinor();
+    }
+
+    /**
+     * Bản Money trước khi đổi sang minor unit (giữ nguyên logic) để so sánh.
+     */
+    static final class LegacyMoney {
+        private final BigDecimal amount;
+        private final String currency;
+
+        private LegacyMoney(BigDecimal amount, String currency) {
+            if (amount == null) throw new IllegalArgumentException("amount is required");
+            if (amount.signum() < 0) throw new IllegalArgumentException("amount must be >= 0");
+            if (currency == null || currency.isBlank()) throw new IllegalArgumentException("currency is required");
+            this.amount = amount;
+            this.currency = currency.strip().toUpperCase();
+        }
+
+        static LegacyMoney of(BigDecimal amount, String currency) {
+            return new LegacyMoney(amount, currency);
+        }
+
+        static LegacyMoney zero(String currency) {
+            return new LegacyMoney(BigDecimal.ZERO, currency);
+        }
+
+        LegacyMoney add(LegacyMoney other) {
+            if (!this.currency.equals(other.currency)) throw new IllegalArgumentException("Currency mismatch");
+            return new LegacyMoney(this.amount.add(other.amount), this.currency);
+        }
+
+        LegacyMoney multiply(int quantity) {
+            if (quantity <= 0) throw new IllegalArgumentException("quantity must be > 0");
+            return new LegacyMoney(this.amount.multiply(BigDecimal.valueOf(quantity)), this.currency);
+        }
+
+        BigDecimal amount() {
+            return amount;
+        }
+
+        String currency() {
+            return currency;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(OrderTotalBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
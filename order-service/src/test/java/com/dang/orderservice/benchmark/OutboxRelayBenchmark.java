@@ -0,0 +1,131 @@
+package com.dang.orderservice.benchmark;
+
+import com.dang.orderservice.infrastructure.persistence.jpa.OutboxBatchSender;
+import com.dang.orderservice.infrastructure.persistence.jpa.OutboxMessage;
+import com.dang.orderservice.infrastructure.persistence.jpa.OutboxProperties;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * So sánh rows/sec của relay tuần tự (send().get() từng row) với relay pipelined.
+ * Broker giả: ack toàn bộ record đang in-flight sau mỗi {@code brokerRttMicros}.
+ *
+ * Chạy: main() trong IDE (classpath test), score = rows/sec.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class OutboxRelayBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+
+    @Param({"500", "2000"})
+    public long brokerRttMicros;
+
+    private StandInBroker broker;
+    private OutboxBatchSender sender;
+    private List<OutboxMessage> batch;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        broker = new StandInBroker(brokerRttMicros);
+        broker.start();
+
+        OutboxProperties props = new OutboxProperties();
+        props.setBatchSize(BATCH_SIZE);
+        sender = new OutboxBatchSender(new KafkaTemplate<>(() -> broker.producer), props);
+
+        batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            String orderId = UUID.randomUUID().toString();
+            batch.add(OutboxMessage.pending("inventory.commands", orderId,
+                    "{\"sagaId\":\"" + UUID.randomUUID() + "\",\"orderId\":\"" + orderId + "\"}"));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        broker.stop();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public int sequentialLoop() {
+        return sender.sendSequential(batch).sent().size();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public int pipelinedBatch() {
+        return sender.sendPipelined(batch).sent().size();
+    }
+
+    /**
+     * MockProducer không auto-complete; 1 thread nền đóng vai broker ack theo chu kỳ RTT.
+     */
+    static final class StandInBroker {
+        final StandInProducer producer = new StandInProducer();
+        private final long rttNanos;
+        private volatile boolean running;
+        private Thread thread;
+
+        StandInBroker(long rttMicros) {
+            this.rttNanos = TimeUnit.MICROSECONDS.toNanos(rttMicros);
+        }
+
+        void start() {
+            running = true;
+            thread = Thread.ofPlatform().daemon().name("stand-in-broker").start(() -> {
+                while (running) {
+                    LockSupport.parkNanos(rttNanos);
+                    producer.ackInFlight();
+                }
+            });
+        }
+
+        void stop() {
+            running = false;
+            thread.interrupt();
+        }
+    }
+
+    static final class StandInProducer extends MockProducer<String, byte[]> {
+        StandInProducer() {
+            super(false, null, new StringSerializer(), new ByteArraySerializer());
+        }
+
+        synchronized void ackInFlight() {
+            while (completeNext()) {
+                // ack hết record đang chờ
+            }
+            clear(); // không giữ lịch sử sent để tránh phình heap
+        }
+
+        @Override
+        public void close(Duration timeout) {
+            // KafkaTemplate đóng producer sau mỗi send khi factory không phải CloseSafeProducer
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(OutboxRelayBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
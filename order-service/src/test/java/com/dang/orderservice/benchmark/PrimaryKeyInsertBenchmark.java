@@ -0,0 +1,106 @@
+package com.dang.orderservice.benchmark;
+
+import com.dang.sagamessages.id.TimeOrderedIds;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Insert throughput vào bảng có PK varchar(36) (giống orders/outbox_messages) với id v4 ngẫu nhiên
+ * so với {@link TimeOrderedIds} (v7). Bảng được nạp sẵn {@code preloadRows} row để index lớn hơn cache;
+ * cuối trial in ra kích thước index + leaf density (pgstattuple nếu có).
+ *
+ * Cần Postgres thật: -Dbench.jdbc.url / bench.jdbc.user / bench.jdbc.password
+ * (mặc định DB order_service của docker-compose). Chạy: main() trong IDE (classpath test), score = rows/sec.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class PrimaryKeyInsertBenchmark {
+
+    private static final int BATCH_SIZE = 500;
+
+    @Param({"v4", "v7"})
+    public String idType;
+
+    @Param({"1000000"})
+    public int preloadRows;
+
+    private Connection connection;
+    private PreparedStatement insert;
+    private String table;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(
+                System.getProperty("bench.jdbc.url", "jdbc:postgresql://localhost:5432/order_service"),
+                System.getProperty("bench.jdbc.user", "order_user"),
+                System.getProperty("bench.jdbc.password", "123456"));
+        table = "pk_bench_" + idType;
+
+        try (Statement st = connection.createStatement()) {
+            st.execute("drop table if exists " + table);
+            st.execute("create table " + table + " (id varchar(36) primary key, created_at timestamptz not null default now(), payload text)");
+        }
+        insert = connection.prepareStatement("insert into " + table + " (id, payload) values (?, ?)");
+
+        connection.setAutoCommit(false);
+        for (int i = 0; i < preloadRows; i += BATCH_SIZE) {
+            insertBatch();
+        }
+        try (Statement st = connection.createStatement()) {
+            st.execute("analyze " + table);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement st = connection.createStatement()) {
+            try (ResultSet rs = st.executeQuery("select count(*), pg_relation_size('" + table + "_pkey') from " + table)) {
+                rs.next();
+                System.out.printf("%n[%s] rows=%d pkey=%d MB%n", idType, rs.getLong(1), rs.getLong(2) / (1024 * 1024));
+            }
+            try (ResultSet rs = st.executeQuery("select avg_leaf_density, leaf_fragmentation from pgstatindex('" + table + "_pkey')")) {
+                rs.next();
+                System.out.printf("[%s] avg_leaf_density=%.1f%% leaf_fragmentation=%.1f%%%n", idType, rs.getDouble(1), rs.getDouble(2));
+            } catch (SQLException ignored) {
+                connection.rollback(); // pgstattuple chưa được cài
+            }
+            st.execute("drop table if exists " + table);
+            connection.commit();
+        } finally {
+            connection.close();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void insertBatch() throws SQLException {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            insert.setString(1, "v7".equals(idType) ? TimeOrderedIds.nextString() : UUID.randomUUID().toString());
+            insert.setString(2, "{}");
+            insert.addBatch();
+        }
+        insert.executeBatch();
+        connection.commit();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PrimaryKeyInsertBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,147 @@
+package com.dang.orderservice.benchmark;
+
+import com.dang.orderservice.application.saga.OrderSagaOrchestrator;
+import com.dang.orderservice.application.saga.SagaContext;
+import com.dang.orderservice.application.saga.SagaEventType;
+import com.dang.orderservice.application.saga.SagaPhase;
+import com.dang.orderservice.application.saga.SagaTransitionTable;
+import com.dang.orderservice.domain.model.aggregates.Order;
+import com.dang.orderservice.domain.model.aggregates.OrderSaga;
+import com.dang.orderservice.domain.model.valueobjects.CustomerId;
+import com.dang.orderservice.domain.model.valueobjects.OrderId;
+import com.dang.orderservice.domain.model.valueobjects.SagaStatus;
+import com.dang.orderservice.domain.model.valueobjects.ShippingAddress;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chi phí chọn handler cho 1 event (không tính load/persist): bảng chuyển (phase + 2 lần index + guard)
+ * so với chuỗi if theo status/parallel/flags như orchestrator cũ. Trộn ngẫu nhiên mọi cặp (phase, event)
+ * để branch predictor không học thuộc.
+ *
+ * Chạy: main() trong IDE (classpath test), score = ns/event.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SagaDispatchBenchmark {
+
+    private static final int EVENTS = 1024;
+
+    private SagaTransitionTable<SagaPhase, SagaEventType, SagaContext> table;
+    private SagaContext[] contexts;
+    private SagaEventType[] events;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        table = new OrderSagaOrchestrator(null, null, null, null, null, null, null).transitions();
+
+        Order order = Order.create(OrderId.generate(), CustomerId.of("c-1"),
+                ShippingAddress.of("A", "0900000000", "1 Street", null, "HCM", null, "70000", "VN"), "VND");
+        order.markInventoryReserved();
+
+        Random random = new Random(42);
+        contexts = new SagaContext[EVENTS];
+        events = new SagaEventType[EVENTS];
+        for (int i = 0; i < EVENTS; i++) {
+            OrderSaga saga = saga(SagaPhase.values()[random.nextInt(SagaPhase.values().length)], order, "s-" + i);
+            contexts[i] = new SagaContext(saga, saga.getOrderId(), "x", 0, null);
+            events[i] = SagaEventType.values()[random.nextInt(SagaEventType.values().length - 1)]; // không lấy TIMEOUT
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public void transitionTable(Blackhole bh) {
+        for (int i = 0; i < EVENTS; i++) {
+            SagaContext ctx = contexts[i];
+            bh.consume(table.find(SagaPhase.of(ctx.saga()), events[i], ctx));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public void ifChain(Blackhole bh) {
+        for (int i = 0; i < EVENTS; i++) {
+            bh.consume(legacyRoute(contexts[i].saga(), events[i]));
+        }
+    }
+
+    /** Cùng các nhánh như handler cũ (trước khi có bảng), trả về id handler thay vì chạy nó. */
+    private static int legacyRoute(OrderSaga saga, SagaEventType event) {
+        if (saga.isCompleted() || saga.isFailed()) return 0;
+        SagaStatus status = saga.getStatus();
+        switch (event) {
+            case INVENTORY_RESERVED -> {
+                if (saga.isInventoryReservedDone()) return 0;
+                if (status == SagaStatus.CANCEL_FLOW) return saga.isParallel() ? 1 : 0;
+                if (status != SagaStatus.CREATE_FLOW) return 0;
+                return saga.isParallel() ? 2 : 3;
+            }
+            case INVENTORY_RESERVE_FAILED -> {
+                if (saga.isParallel()) {
+                    if (saga.isInventoryOutcomeKnown()) return 0;
+                    return status == SagaStatus.CANCEL_FLOW ? 4 : 5;
+                }
+                return status == SagaStatus.CREATE_FLOW ? 6 : 0;
+            }
+            case INVENTORY_RELEASED -> {
+                if (status != SagaStatus.CANCEL_FLOW) return 0;
+                return saga.isInventoryCompensationDone() ? 0 : 7;
+            }
+            case INVENTORY_RELEASE_FAILED -> {
+                return status == SagaStatus.CANCEL_FLOW ? 8 : 0;
+            }
+            case PAYMENT_CAPTURED -> {
+                if (saga.isPaymentCapturedDone()) return 0;
+                if (status == SagaStatus.CANCEL_FLOW) return saga.isParallel() ? 9 : 0;
+                return status == SagaStatus.CREATE_FLOW ? 10 : 0;
+            }
+            case PAYMENT_CAPTURE_FAILED -> {
+                if (status == SagaStatus.CANCEL_FLOW) {
+                    return saga.isParallel() && !saga.isPaymentOutcomeKnown() ? 11 : 0;
+                }
+                return status == SagaStatus.CREATE_FLOW ? 12 : 0;
+            }
+            case PAYMENT_REFUNDED -> {
+                if (status != SagaStatus.CANCEL_FLOW) return 0;
+                return saga.isPaymentCompensationDone() ? 0 : 13;
+            }
+            case PAYMENT_REFUND_FAILED -> {
+                return status == SagaStatus.CANCEL_FLOW ? 14 : 0;
+            }
+            default -> {
+                return 0;
+            }
+        }
+    }
+
+    private static OrderSaga saga(SagaPhase phase, Order order, String sagaId) {
+        String orderId = order.getId().value();
+        OrderSaga saga = phase == SagaPhase.CREATE_PARALLEL || phase == SagaPhase.CANCEL_PARALLEL
+                ? OrderSaga.startCreateParallel(sagaId, orderId)
+                : OrderSaga.startCreate(sagaId, orderId);
+        switch (phase) {
+            case CANCEL, CANCEL_PARALLEL -> saga.switchToCancelFlow("cancel", order);
+            case COMPLETED -> saga.complete();
+            case FAILED -> saga.fail("boom");
+            default -> { }
+        }
+        return saga;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SagaDispatchBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,31 @@
+package com.dang.orderservice.domain.model.aggregates;
+
+import com.dang.orderservice.domain.model.valueobjects.CustomerId;
+import com.dang.orderservice.domain.model.valueobjects.OrderId;
+import com.dang.orderservice.domain.model.valueobjects.ShippingAddress;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderSagaTest {
+
+    @Test
+    void restoreFromStateFlagsKeepsEveryFlag() {
+        Order order = Order.create(OrderId.generate(), CustomerId.of("c-1"),
+                ShippingAddress.of("A", "0900000000", "1 Street", null, "HCM", null, "70000", "VN"), "VND");
+        order.markPaid();
+
+        OrderSaga saga = OrderSaga.startCreateParallel("s-1", order.getId().value());
+        saga.onPaymentCaptured();
+        saga.onParallelInventoryReserveFailed("out of stock");
+        saga.switchToCancelFlow("out of stock", order);
+        saga.requireCompensationForPendingSteps("timeout");
+
+        OrderSaga restored = OrderSaga.restore(saga.getId(), saga.getOrderId(), saga.getStatus(), saga.stateFlags(),
+                saga.getFailureReason(), saga.getCreatedAt(), saga.getUpdatedAt());
+
+        assertThat(restored).usingRecursiveComparison().ignoringFields("newAggregate").isEqualTo(saga);
+        assertThat(restored.isNew()).isFalse();
+        assertThat(Integer.bitCount(saga.stateFlags())).isGreaterThan(3);
+    }
+}
@@ -0,0 +1,48 @@
+package com.dang.orderservice.domain.model.valueobjects;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MoneyTest {
+
+    private final Money.MinorUnitsConverter converter = new Money.MinorUnitsConverter();
+
+    @Test
+    void convertsExactlyBetweenColumnAndMinorUnits() {
+        assertThat(Money.toMinor(new BigDecimal("12.3"))).isEqualTo(1230);
+        assertThat(Money.toMinor(new BigDecimal("12.30"))).isEqualTo(1230);
+        assertThat(Money.toMinor(new BigDecimal("1.2E+3"))).isEqualTo(120_000);
+        assertThat(converter.convertToDatabaseColumn(1230L)).isEqualByComparingTo("12.30");
+        assertThat(converter.convertToDatabaseColumn(1230L).scale()).isEqualTo(2);
+        assertThat(converter.convertToEntityAttribute(new BigDecimal("99999.99"))).isEqualTo(9_999_999L);
+
+        assertThatThrownBy(() -> Money.toMinor(new BigDecimal("0.005")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void addsLinesLikeBigDecimalAndNormalizesCurrency() {
+        Money total = Money.zero(" vnd ")
+                .addTimes(Money.toMinor(new BigDecimal("19.99")), 3)
+                .add(Money.of(new BigDecimal("0.03"), "VND").multiply(2));
+
+        assertThat(total.amount()).isEqualByComparingTo(new BigDecimal("19.99").multiply(BigDecimal.valueOf(3)).add(new BigDecimal("0.06")));
+        assertThat(total.currency()).isEqualTo("VND");
+        assertThat(total).isEqualTo(Money.of(new BigDecimal("60.03"), "vnd"));
+
+        assertThatThrownBy(() -> total.add(Money.zero("USD")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsOverflowInsteadOfWrapping() {
+        Money big = Money.ofMinor(Long.MAX_VALUE / 2 + 1, "USD");
+
+        assertThatThrownBy(() -> big.multiply(2)).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> big.add(big)).isInstanceOf(ArithmeticException.class);
+    }
+}
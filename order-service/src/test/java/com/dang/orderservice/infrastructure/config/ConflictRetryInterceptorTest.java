@@ -0,0 +1,78 @@
+package com.dang.orderservice.infrastructure.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConflictRetryInterceptorTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void conflictIsRetriedUntilSuccess() {
+        Handler handler = proxy(new Handler(2, new OptimisticLockingFailureException("stale")));
+
+        handler.handle();
+
+        assertThat(handler.calls()).isEqualTo(3);
+        assertThat(registry.counter("order.conflicts", "handler", "Handler.handle", "outcome", "retried").count()).isEqualTo(2);
+        assertThat(registry.counter("order.conflicts.recovered", "handler", "Handler.handle").count()).isEqualTo(1);
+    }
+
+    @Test
+    void exhaustedConflictPropagatesOriginalException() {
+        Handler handler = proxy(new Handler(Integer.MAX_VALUE, new OptimisticLockingFailureException("stale")));
+
+        assertThatThrownBy(handler::handle).isInstanceOf(OptimisticLockingFailureException.class);
+        assertThat(handler.calls()).isEqualTo(4);
+        assertThat(registry.counter("order.conflicts", "handler", "Handler.handle", "outcome", "exhausted").count()).isEqualTo(1);
+    }
+
+    @Test
+    void otherFailuresAreNotRetried() {
+        Handler handler = proxy(new Handler(1, new IllegalStateException("bug")));
+
+        assertThatThrownBy(handler::handle).isInstanceOf(IllegalStateException.class);
+        assertThat(handler.calls()).isEqualTo(1);
+        assertThat(registry.find("order.conflicts").counters()).isEmpty();
+    }
+
+    private Handler proxy(Handler target) {
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        beans.addBean("meterRegistry", registry);
+        ConflictRetryInterceptor interceptor = new ConflictRetryInterceptor(3, Duration.ofMillis(1), Duration.ZERO,
+                1.0, Duration.ofMillis(1), beans.getBeanProvider(MeterRegistry.class));
+        ProxyFactory factory = new ProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAdvice(interceptor);
+        return (Handler) factory.getProxy();
+    }
+
+    static class Handler {
+        private final AtomicInteger calls = new AtomicInteger();
+        private final int failures;
+        private final RuntimeException failure;
+
+        Handler(int failures, RuntimeException failure) {
+            this.failures = failures;
+            this.failure = failure;
+        }
+
+        public void handle() {
+            if (calls.incrementAndGet() <= failures) throw failure;
+        }
+
+        public int calls() {
+            return calls.get();
+        }
+    }
+}
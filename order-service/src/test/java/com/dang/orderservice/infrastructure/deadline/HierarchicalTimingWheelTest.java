@@ -0,0 +1,62 @@
+package com.dang.orderservice.infrastructure.deadline;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HierarchicalTimingWheelTest {
+
+    @Test
+    void firesEachTimerOnceAtItsTickAcrossLevels() {
+        // tầng 0: 10ms x 8 = 80ms, tầng 1: 640ms, tầng 2: 5120ms
+        HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(10, 8, 3, 1_000);
+        Random random = new Random(42);
+        List<Long> expected = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            long due = 1_000 + 10 + random.nextInt((int) wheel.horizonMs() - 10);
+            expected.add(due);
+            wheel.schedule(due, due);
+        }
+
+        List<long[]> fired = new ArrayList<>();
+        for (long now = 1_000; now <= 7_000; now += 10) {
+            long at = now;
+            wheel.advance(now, due -> fired.add(new long[]{due, at}));
+        }
+
+        assertThat(fired).hasSize(expected.size());
+        assertThat(wheel.size()).isZero();
+        for (long[] f : fired) {
+            // không fire trước tick chứa deadline, không trễ quá 1 tick
+            assertThat(f[1]).isGreaterThanOrEqualTo(f[0] - (f[0] % 10));
+            assertThat(f[1]).isLessThan(f[0] + 10);
+        }
+    }
+
+    @Test
+    void firesOverdueTimerOnNextAdvance() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(100, 16, 2, 10_000);
+        List<String> fired = new ArrayList<>();
+
+        wheel.schedule("late", 9_000);
+        wheel.advance(10_000, fired::add);
+
+        assertThat(fired).containsExactly("late");
+    }
+
+    @Test
+    void dropsTimerBeyondHorizon() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(100, 4, 2, 0);
+        List<String> fired = new ArrayList<>();
+
+        wheel.schedule("far", wheel.horizonMs() + 1_000);
+        wheel.advance(0, fired::add);
+
+        assertThat(wheel.size()).isZero();
+        assertThat(fired).isEmpty();
+    }
+}
@@ -0,0 +1,44 @@
+package com.dang.orderservice.infrastructure.messaging;
+
+import com.dang.orderservice.domain.model.aggregates.OrderSaga;
+import com.dang.orderservice.domain.model.valueobjects.OrderStatus;
+import com.dang.sagamessages.message.payment.PaymentEvents;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SagaLatencyMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final SagaLatencyMetrics metrics = new SagaLatencyMetrics(registry);
+
+    @Test
+    void handlerFailureIsRecordedAsErrorAndRethrown() {
+        var evt = new PaymentEvents.PaymentRefundedEvent("s-1", "o-1", Instant.now().minusMillis(200));
+
+        assertThatThrownBy(() -> metrics.record(evt, () -> { throw new IllegalStateException("boom"); }))
+                .isInstanceOf(IllegalStateException.class);
+
+        Timer hop = registry.get("saga.hop").tags("step", "payment_refunded", "flow", "cancel").timer();
+        assertThat(hop.count()).isEqualTo(1);
+        assertThat(hop.totalTime(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(200);
+        assertThat(registry.get("saga.handler").tags("step", "payment_refunded", "outcome", "error").timer().count()).isEqualTo(1);
+        assertThat(registry.get("saga.handler").tags("step", "payment_refunded", "outcome", "ok").timer().count()).isZero();
+    }
+
+    @Test
+    void endToEndIsTaggedByFlowOfTheSaga() {
+        OrderSaga cancel = OrderSaga.startCancel("s-2", "o-2");
+        cancel.complete();
+
+        metrics.sagaFinished(cancel, OrderStatus.CANCELLED);
+
+        assertThat(registry.get("saga.e2e").tags("flow", "cancel", "outcome", "cancelled").timer().count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,113 @@
+package com.dang.orderservice.infrastructure.ownership;
+
+import com.dang.orderservice.domain.model.aggregates.OrderSaga;
+import com.dang.orderservice.domain.repository.OrderSagaRepository;
+import com.dang.orderservice.infrastructure.persistence.jpa.JpaOrderRepository;
+import com.dang.orderservice.infrastructure.persistence.jpa.JpaOrderSagaRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class OwnedOrderSagaRepositoryTest {
+
+    private final OrderSagaRepository delegate = mock(OrderSagaRepository.class);
+    private final JpaOrderSagaRepository jpa = mock(JpaOrderSagaRepository.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final SagaPartitionOwnership ownership = new SagaPartitionOwnership(List.of("inventory.events"));
+    private final OwnedSagaStateCache cache = new OwnedSagaStateCache(ownership, mock(JpaOrderRepository.class), jpa,
+            mock(PlatformTransactionManager.class), registry, false, 100);
+    private final OwnedOrderSagaRepository repository = new OwnedOrderSagaRepository(delegate, jpa, cache);
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void ownedSagaIsServedFromMemoryAndWrittenByVersion() {
+        ownership.assigned(new TopicPartition("inventory.events", 0), 1);
+        OrderSaga stored = OrderSaga.startCreate("s-1", "o-1");
+        ReflectionTestUtils.setField(stored, "newAggregate", false);
+        when(delegate.findById("s-1")).thenReturn(Optional.of(stored));
+        when(delegate.save(any())).thenAnswer(inv -> inv.getArgument(0));
+
+        // lần đầu: miss, đọc DB
+        inTransaction(TransactionSynchronization.STATUS_COMMITTED, () -> repository.getRequired("s-1"));
+        verify(delegate).findById("s-1");
+
+        // các bước sau: không đọc DB, UPDATE theo version đã cache
+        when(jpa.updateState(eq("s-1"), anyString(), anyBoolean(), anyBoolean(), anyBoolean(), anyBoolean(),
+                anyBoolean(), anyBoolean(), anyBoolean(), anyBoolean(), anyBoolean(), any(), any(), eq(0L))).thenReturn(1);
+        inTransaction(TransactionSynchronization.STATUS_COMMITTED, () -> {
+            OrderSaga saga = repository.getRequired("s-1");
+            assertThat(saga).isNotSameAs(stored);
+            assertThat(repository.getRequired("s-1")).isSameAs(saga); // identity trong transaction
+            saga.onInventoryReserved();
+            return repository.save(saga);
+        });
+        verify(delegate, times(1)).findById("s-1");
+
+        // instance khác đã ghi version 1 => 0 dòng => optimistic lock, bỏ bản trong RAM
+        assertThatThrownBy(() -> inTransaction(TransactionSynchronization.STATUS_ROLLED_BACK, () -> {
+            OrderSaga saga = repository.getRequired("s-1");
+            assertThat(saga.isInventoryReservedDone()).isTrue();
+            return repository.save(saga);
+        })).isInstanceOf(OptimisticLockingFailureException.class);
+        verify(jpa).updateState(eq("s-1"), anyString(), anyBoolean(), anyBoolean(), anyBoolean(), anyBoolean(),
+                anyBoolean(), anyBoolean(), anyBoolean(), anyBoolean(), anyBoolean(), any(), any(), eq(1L));
+
+        inTransaction(TransactionSynchronization.STATUS_COMMITTED, () -> repository.getRequired("s-1"));
+        verify(delegate, times(2)).findById("s-1");
+        assertThat(registry.counter("order.ownership.cache", "aggregate", "saga", "result", "hit").count()).isEqualTo(2);
+        assertThat(registry.counter("order.ownership.cache", "aggregate", "saga", "result", "miss").count()).isEqualTo(2);
+    }
+
+    @Test
+    void revokedPartitionIsEvictedAndUnownedSagaIsNotCached() {
+        TopicPartition partition = new TopicPartition("inventory.events", 0);
+        ownership.assigned(partition, 1);
+        OrderSaga stored = OrderSaga.startCreate("s-2", "o-2");
+        ReflectionTestUtils.setField(stored, "newAggregate", false);
+        when(delegate.findById("s-2")).thenReturn(Optional.of(stored));
+
+        inTransaction(TransactionSynchronization.STATUS_COMMITTED, () -> repository.getRequired("s-2"));
+        ownership.revoked(partition);
+        assertThat(cache.evictUnowned()).isEqualTo(1);
+
+        inTransaction(TransactionSynchronization.STATUS_COMMITTED, () -> repository.getRequired("s-2"));
+        inTransaction(TransactionSynchronization.STATUS_COMMITTED, () -> repository.getRequired("s-2"));
+        verify(delegate, times(3)).findById("s-2");
+    }
+
+    private static <T> T inTransaction(int outcome, Supplier<T> work) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            return work.get();
+        } catch (RuntimeException ex) {
+            outcome = TransactionSynchronization.STATUS_ROLLED_BACK;
+            throw ex;
+        } finally {
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            TransactionSynchronizationManager.clearSynchronization();
+            TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, outcome);
+        }
+    }
+}
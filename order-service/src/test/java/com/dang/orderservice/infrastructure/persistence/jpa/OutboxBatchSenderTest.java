@@ -0,0 +1,49 @@
+package com.dang.orderservice.infrastructure.persistence.jpa;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OutboxBatchSenderTest {
+
+    private final KafkaTemplate<String, byte[]> kafkaTemplate = kafkaTemplateMock();
+    private final List<String> sentPayloads = new ArrayList<>();
+
+    @Test
+    void pipelinedDefersLaterRowsOfAKeyWhoseEarlierRowFailed() {
+        when(kafkaTemplate.send(ArgumentMatchers.<ProducerRecord<String, byte[]>>any())).thenAnswer(inv -> {
+            ProducerRecord<String, byte[]> record = inv.getArgument(0);
+            String payload = new String(record.value());
+            sentPayloads.add(payload);
+            return payload.equals("msg1")
+                    ? CompletableFuture.failedFuture(new IllegalStateException("broker down"))
+                    : CompletableFuture.completedFuture((SendResult<String, byte[]>) null);
+        });
+        OutboxMessage msg1 = OutboxMessage.pending("inventory.commands", "o-1", "msg1");
+        OutboxMessage other = OutboxMessage.pending("inventory.commands", "o-2", "other");
+        OutboxMessage msg2 = OutboxMessage.pending("inventory.commands", "o-1", "msg2");
+
+        OutboxBatchSender.Result result = new OutboxBatchSender(kafkaTemplate, new OutboxProperties())
+                .sendPipelined(List.of(msg1, other, msg2));
+
+        assertThat(sentPayloads).containsExactly("msg1", "other");
+        assertThat(result.failed()).containsOnlyKeys(msg1);
+        assertThat(result.sent()).containsExactly(other);
+        assertThat(result.deferred()).containsExactly(msg2);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static KafkaTemplate<String, byte[]> kafkaTemplateMock() {
+        return mock(KafkaTemplate.class);
+    }
+}
@@ -0,0 +1,49 @@
+package com.dang.orderservice.infrastructure.persistence.jpa;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OutboxPublisherTest {
+
+    @Test
+    void concurrentDrainOnlySignalsTheThreadAlreadyDraining() throws Exception {
+        OutboxPublishService publishService = mock(OutboxPublishService.class);
+        CountDownLatch firstBatchStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirstBatch = new CountDownLatch(1);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        AtomicInteger calls = new AtomicInteger();
+        when(publishService.publishBatch()).thenAnswer(inv -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                if (calls.incrementAndGet() == 1) {
+                    firstBatchStarted.countDown();
+                    releaseFirstBatch.await(5, TimeUnit.SECONDS);
+                }
+                return 0;
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        });
+        OutboxPublisher publisher = new OutboxPublisher(publishService, new OutboxProperties());
+
+        Thread scheduler = Thread.ofVirtual().start(publisher::drain);
+        assertThat(firstBatchStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        publisher.drain(); // LISTEN thread: trả về ngay, không claim song song
+        assertThat(calls.get()).isEqualTo(1);
+
+        releaseFirstBatch.countDown();
+        scheduler.join(5_000);
+
+        assertThat(maxInFlight.get()).isEqualTo(1);
+        assertThat(calls.get()).isEqualTo(2); // thread đang drain chạy thêm 1 vòng cho tín hiệu tới giữa chừng
+    }
+}
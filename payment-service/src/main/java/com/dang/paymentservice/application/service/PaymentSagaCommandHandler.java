@@ -43,6 +43,16 @@ public class PaymentSagaCommandHandler {
             return;
         }
 
+        // saga đã timeout và refund trước khi capture tới (command tới muộn / bị gửi lại) => không capture nữa
+        if (operationRepository.findBySagaIdAndOrderIdAndType(cmd.sagaId(), cmd.orderId(), PaymentOperationType.REFUND).isPresent()) {
+            String reason = "Capture skipped: saga already compensated";
+            operationRepository.save(PaymentOperation.failed(cmd.sagaId(), cmd.orderId(), PaymentOperationType.CAPTURE, reason));
+            outbox.add("Payment", cmd.orderId(), "PaymentCaptureFailedEvent",
+                    new PaymentEvents.PaymentCaptureFailedEvent(cmd.sagaId(), cmd.orderId(), reason, Instant.now())
+            );
+            return;
+        }
+
         try {
             Payment payment = paymentRepository.findByOrderId(OrderId.of(cmd.orderId()))
                     .orElseGet(() -> Payment.createNew(
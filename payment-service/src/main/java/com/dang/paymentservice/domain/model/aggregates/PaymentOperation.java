@@ -2,10 +2,10 @@ package com.dang.paymentservice.domain.model.aggregates;
 
 import com.dang.paymentservice.domain.model.valueobjects.PaymentOperationStatus;
 import com.dang.paymentservice.domain.model.valueobjects.PaymentOperationType;
+import com.dang.sagamessages.id.TimeOrderedIds;
 import jakarta.persistence.*;
 
 import java.time.Instant;
-import java.util.UUID;
 
 @Entity
 @Table(
@@ -45,7 +45,7 @@ public class PaymentOperation {
 
     private PaymentOperation(String sagaId, String orderId, PaymentOperationType type,
                              PaymentOperationStatus status, String reason) {
-        this.id = UUID.randomUUID().toString();
+        this.id = TimeOrderedIds.nextString();
         this.sagaId = sagaId;
         this.orderId = orderId;
         this.type = type;
@@ -1,11 +1,11 @@
 package com.dang.paymentservice.domain.model.valueobjects;
 
+import com.dang.sagamessages.id.TimeOrderedIds;
 import jakarta.persistence.Column;
 import jakarta.persistence.Embeddable;
 
 import java.io.Serializable;
 import java.util.Objects;
-import java.util.UUID;
 
 @Embeddable
 public class OrderId implements Serializable {
@@ -27,7 +27,7 @@ public class OrderId implements Serializable {
     }
 
     public static OrderId generate() {
-        return new OrderId(UUID.randomUUID().toString());
+        return new OrderId(TimeOrderedIds.nextString());
     }
 
     public String value() {
@@ -1,11 +1,11 @@
 package com.dang.paymentservice.domain.model.valueobjects;
 
+import com.dang.sagamessages.id.TimeOrderedIds;
 import jakarta.persistence.Column;
 import jakarta.persistence.Embeddable;
 
 import java.io.Serializable;
 import java.util.Objects;
-import java.util.UUID;
 
 @Embeddable
 public class PaymentId implements Serializable {
@@ -27,7 +27,7 @@ public class PaymentId implements Serializable {
     }
 
     public static PaymentId generate() {
-        return new PaymentId(UUID.randomUUID().toString());
+        return new PaymentId(TimeOrderedIds.nextString());
     }
 
     public String value() {
@@ -1,5 +1,6 @@
 package com.dang.paymentservice.infrastructure.messaging;
 
+import com.dang.sagakafka.KeyOrderedDispatcher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
@@ -9,6 +10,8 @@ import org.springframework.kafka.listener.ContainerProperties;
 @Configuration
 public class KafkaConsumerConfig {
 
+    public static final String KEY_ORDERED_CONTAINER_FACTORY = "keyOrderedListenerContainerFactory";
+
     @Bean
     public ConcurrentKafkaListenerContainerFactory<String, Object> kafkaListenerContainerFactory(
             ConsumerFactory<String, Object> consumerFactory
@@ -18,4 +21,16 @@ public class KafkaConsumerConfig {
         factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
         return factory;
     }
-}
\ No newline at end of file
+
+    // batch listener: cả poll giao cho KeyOrderedDispatcher, ack/nack 1 lần theo poll
+    @Bean(name = KEY_ORDERED_CONTAINER_FACTORY)
+    public ConcurrentKafkaListenerContainerFactory<String, Object> keyOrderedListenerContainerFactory(
+            ConsumerFactory<String, Object> consumerFactory
+    ) {
+        var factory = new ConcurrentKafkaListenerContainerFactory<String, Object>();
+        factory.setConsumerFactory(consumerFactory);
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        return factory;
+    }
+}
@@ -0,0 +1,52 @@
+package com.dang.paymentservice.infrastructure.messaging;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Drain outbox theo batch tới khi hết backlog; gọi từ scheduler (fallback poll) và LISTEN thread.
+ * Chỉ 1 thread drain tại 1 thời điểm: 2 thread cùng drain thì SKIP LOCKED cho thread thứ 2 lấy row sau
+ * của cùng aggregate khi row trước còn đang gửi => đảo thứ tự event của 1 order.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.outbox", name = "enabled", havingValue = "true")
+public class OutboxDrainer {
+
+    private final OutboxKafkaPublisher publisher;
+
+    @Value("${app.outbox.batch-size:100}") private int batchSize;
+
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean drainRequested = new AtomicBoolean();
+
+    public OutboxDrainer(OutboxKafkaPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.poll-ms:1000}")
+    public void tick() {
+        drain();
+    }
+
+    /**
+     * Đang có thread drain => chỉ báo "còn việc" rồi trả về ngay, thread đó chạy thêm 1 vòng.
+     */
+    public void drain() {
+        drainRequested.set(true);
+        while (drainRequested.get() && draining.compareAndSet(false, true)) {
+            try {
+                drainRequested.set(false);
+                // gọi qua proxy => mỗi batch 1 transaction riêng
+                while (publisher.publishBatch() >= batchSize) {
+                    // cả batch gửi được => có thể còn backlog, lấy tiếp; có row fail thì để poll sau thử lại
+                }
+            } finally {
+                draining.set(false);
+            }
+        }
+    }
+}
@@ -1,8 +1,13 @@
 package com.dang.paymentservice.infrastructure.messaging;
 
 import com.dang.paymentservice.application.service.PaymentSagaCommandHandler;
+import com.dang.sagakafka.KeyOrderedDispatcher;
+import com.dang.sagakafka.SagaRetryRouter;
+import com.dang.sagamessages.message.SagaMessage;
 import com.dang.sagamessages.message.payment.PaymentCommands;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -10,73 +15,118 @@ import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @Component
 public class PaymentCommandsListener {
 
     private static final Logger log = LoggerFactory.getLogger(PaymentCommandsListener.class);
 
+    private static final TypeReference<Map<String, Object>> JSON_MAP = new TypeReference<>() {};
+
+    private static final String RETRY_LISTENER_ID = "payment-commands-retry";
+
     private final PaymentSagaCommandHandler handler;
+    private final KeyOrderedDispatcher dispatcher;
+    private final SagaRetryRouter retryRouter;
+    private final SagaPayloadCodec codec;
     private final ObjectMapper objectMapper;
+    private final SagaCommandMetrics metrics;
 
-    public PaymentCommandsListener(PaymentSagaCommandHandler handler, ObjectMapper objectMapper) {
+    public PaymentCommandsListener(PaymentSagaCommandHandler handler,
+                                   KeyOrderedDispatcher dispatcher,
+                                   SagaRetryRouter retryRouter,
+                                   SagaPayloadCodec codec,
+                                   ObjectMapper objectMapper,
+                                   SagaCommandMetrics metrics) {
         this.handler = handler;
+        this.dispatcher = dispatcher;
+        this.retryRouter = retryRouter;
+        this.codec = codec;
         this.objectMapper = objectMapper;
+        this.metrics = metrics;
     }
 
-    @KafkaListener(topics = "${app.saga.topics.payment-commands}", groupId = "payment-service")
-    public void listen(ConsumerRecord<String, String> record, Acknowledgment ack) {
-        try {
-            String json = record.value();
-            if (json == null || json.isBlank()) {
-                ack.acknowledge();
-                return;
-            }
+    @KafkaListener(
+            topics = "${app.saga.topics.payment-commands}",
+            groupId = "payment-service",
+            containerFactory = KafkaConsumerConfig.KEY_ORDERED_CONTAINER_FACTORY
+    )
+    public void listen(List<ConsumerRecord<String, byte[]>> records, Acknowledgment ack) {
+        // song song theo orderId, tuần tự trong cùng orderId; record lỗi sang retry topic, không chặn partition
+        int failed = dispatcher.dispatch(records, this::handle);
+        if (failed < 0) {
+            ack.acknowledge();
+        } else {
+            ack.nack(failed, dispatcher.retryBackoff());
+        }
+    }
 
-            Map<String, Object> m = objectMapper.readValue(json, Map.class);
+    // retry tier: tới hạn mới xử lý lại, lỗi tiếp thì sang tier sau / parking lot
+    @KafkaListener(
+            id = RETRY_LISTENER_ID,
+            topics = "#{@sagaRetryRouter.retryTopics('${app.saga.topics.payment-commands}')}",
+            groupId = "payment-service"
+    )
+    public void listenRetry(ConsumerRecord<String, byte[]> record, Acknowledgment ack, Consumer<?, ?> consumer) {
+        retryRouter.onRetry(RETRY_LISTENER_ID, record, ack, consumer, this::handle);
+    }
 
-            String sagaId = (String) m.get("sagaId");
-            String orderId = (String) m.get("orderId");
+    private void handle(ConsumerRecord<String, byte[]> record) throws IOException {
+        byte[] value = record.value();
+        if (value == null || value.length == 0) return;
 
-            if (sagaId == null || orderId == null) {
-                log.warn("Payment command missing sagaId/orderId: {}", m);
-                ack.acknowledge();
-                return;
+        // binary hoặc có header type => deserialize thẳng ra record (BigDecimal giữ nguyên precision)
+        Optional<SagaMessage> typed = codec.decodeTyped(value, record.headers());
+        if (typed.isPresent()) {
+            switch (typed.get()) {
+                case PaymentCommands.CapturePaymentCommand cmd -> metrics.record(cmd, () -> handler.handleCapture(cmd));
+                case PaymentCommands.RefundPaymentCommand cmd -> metrics.record(cmd, () -> handler.handleRefund(cmd));
+                default -> log.warn("Payment ignored unexpected message type={} key={}",
+                        typed.get().getClass().getSimpleName(), record.key());
             }
+            return;
+        }
 
-            Object customerIdObj = m.get("customerId");
-            Object amountObj = m.get("amount");
-            Object currencyObj = m.get("currency");
-
-            // CAPTURE
-            if (customerIdObj != null && amountObj != null && currencyObj != null) {
-                String customerId = String.valueOf(customerIdObj);
-                BigDecimal amount = new BigDecimal(String.valueOf(amountObj)); // no double precision loss
-                String currency = String.valueOf(currencyObj);
-
-                handler.handleCapture(new PaymentCommands.CapturePaymentCommand(
-                        sagaId, orderId, customerId, amount, currency, Instant.now()
-                ));
-                ack.acknowledge();
-                return;
-            }
+        // legacy: JSON không có header => đoán theo field (không đo: occurredAt không tin cậy)
+        Map<String, Object> m = objectMapper.readValue(value, JSON_MAP);
 
-            // REFUND
-            String reason = (String) m.get("reason");
-            handler.handleRefund(new PaymentCommands.RefundPaymentCommand(
-                    sagaId,
-                    orderId,
-                    (reason == null || reason.isBlank()) ? "Refund requested" : reason,
-                    Instant.now()
-            ));
+        String sagaId = (String) m.get("sagaId");
+        String orderId = (String) m.get("orderId");
 
-            ack.acknowledge();
-        } catch (Exception ex) {
-            log.error("Failed to process payment command: {}", record.value(), ex);
-            // don't ack => retry
+        if (sagaId == null || orderId == null) {
+            log.warn("Payment command missing sagaId/orderId: {}", m);
+            return;
+        }
+
+        Object customerIdObj = m.get("customerId");
+        Object amountObj = m.get("amount");
+        Object currencyObj = m.get("currency");
+
+        // CAPTURE
+        if (customerIdObj != null && amountObj != null && currencyObj != null) {
+            String customerId = String.valueOf(customerIdObj);
+            BigDecimal amount = new BigDecimal(String.valueOf(amountObj)); // no double precision loss
+            String currency = String.valueOf(currencyObj);
+
+            handler.handleCapture(new PaymentCommands.CapturePaymentCommand(
+                    sagaId, orderId, customerId, amount, currency, Instant.now()
+            ));
+            return;
         }
+
+        // REFUND
+        String reason = (String) m.get("reason");
+        handler.handleRefund(new PaymentCommands.RefundPaymentCommand(
+                sagaId,
+                orderId,
+                (reason == null || reason.isBlank()) ? "Refund requested" : reason,
+                Instant.now()
+        ));
     }
 }
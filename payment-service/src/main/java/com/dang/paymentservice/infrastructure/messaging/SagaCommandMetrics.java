@@ -0,0 +1,72 @@
+package com.dang.paymentservice.infrastructure.messaging;
+
+import com.dang.sagamessages.envelope.SagaMessageType;
+import com.dang.sagamessages.message.SagaMessage;
+import com.dang.sagamessages.metrics.SagaMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Phía payment-service của histogram saga: saga.hop{step,flow} (order-service tạo command -> nhận ở đây)
+ * và saga.handler{step,flow,outcome}. Bucket SLO dùng chung ở {@link SagaMetrics}.
+ */
+@Component
+public class SagaCommandMetrics {
+
+    private static final EnumSet<SagaMessageType> CONSUMED = EnumSet.of(SagaMessageType.CAPTURE_PAYMENT, SagaMessageType.REFUND_PAYMENT);
+
+    private final Map<SagaMessageType, Timer> hops = new EnumMap<>(SagaMessageType.class);
+    private final Map<SagaMessageType, Timer> handled = new EnumMap<>(SagaMessageType.class);
+    private final Map<SagaMessageType, Timer> errors = new EnumMap<>(SagaMessageType.class);
+
+    public SagaCommandMetrics(MeterRegistry meterRegistry) {
+        for (SagaMessageType type : CONSUMED) {
+            hops.put(type, Timer.builder(SagaMetrics.HOP)
+                    .description("Từ lúc service gửi tạo message tới lúc service nhận bắt đầu xử lý (outbox + broker)")
+                    .tag(SagaMetrics.TAG_STEP, SagaMetrics.step(type))
+                    .tag(SagaMetrics.TAG_FLOW, SagaMetrics.flow(type))
+                    .serviceLevelObjectives(SagaMetrics.HOP_SLO)
+                    .register(meterRegistry));
+            handled.put(type, handlerTimer(meterRegistry, type, "ok"));
+            errors.put(type, handlerTimer(meterRegistry, type, "error"));
+        }
+    }
+
+    /** Chạy handler của 1 command, ghi hop + thời gian xử lý. */
+    public void record(SagaMessage message, Runnable handler) {
+        SagaMessageType type = SagaMessageType.of(message);
+        Timer hop = hops.get(type);
+        if (hop == null) {
+            handler.run();
+            return;
+        }
+        if (message.occurredAt() != null) {
+            hop.record(SagaMetrics.since(message.occurredAt(), Instant.now()));
+        }
+        long start = System.nanoTime();
+        boolean ok = false;
+        try {
+            handler.run();
+            ok = true;
+        } finally {
+            (ok ? handled : errors).get(type).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static Timer handlerTimer(MeterRegistry meterRegistry, SagaMessageType type, String outcome) {
+        return Timer.builder(SagaMetrics.HANDLER)
+                .description("Thời gian handler xử lý 1 message saga")
+                .tag(SagaMetrics.TAG_STEP, SagaMetrics.step(type))
+                .tag(SagaMetrics.TAG_FLOW, SagaMetrics.flow(type))
+                .tag(SagaMetrics.TAG_OUTCOME, outcome)
+                .serviceLevelObjectives(SagaMetrics.HANDLER_SLO)
+                .register(meterRegistry);
+    }
+}
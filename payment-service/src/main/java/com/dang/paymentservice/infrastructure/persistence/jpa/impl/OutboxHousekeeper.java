@@ -0,0 +1,78 @@
+package com.dang.paymentservice.infrastructure.persistence.jpa.impl;
+
+import com.dang.paymentservice.infrastructure.persistence.jpa.JpaOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Dọn row PUBLISHED cũ hơn retention theo từng batch nhỏ (mỗi batch 1 transaction riêng).
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.outbox.housekeeping", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxHousekeeper {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxHousekeeper.class);
+
+    private final JpaOutboxRepository outboxRepo;
+    private final TransactionTemplate tx;
+    private final Counter purgedRows;
+    private final AtomicLong tableSizeBytes = new AtomicLong();
+
+    @Value("${app.outbox.housekeeping.retention-hours:72}") private long retentionHours;
+    @Value("${app.outbox.housekeeping.batch-size:1000}") private int batchSize;
+    @Value("${app.outbox.housekeeping.pause-ms:200}") private long pauseMs;
+    @Value("${app.outbox.housekeeping.max-batches-per-run:100}") private int maxBatchesPerRun;
+
+    public OutboxHousekeeper(JpaOutboxRepository outboxRepo,
+                             PlatformTransactionManager transactionManager,
+                             MeterRegistry meterRegistry) {
+        this.outboxRepo = outboxRepo;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.purgedRows = Counter.builder("outbox.purged.rows")
+                .description("Số row PUBLISHED đã xoá khỏi outbox_messages")
+                .register(meterRegistry);
+        Gauge.builder("outbox.table.size.bytes", tableSizeBytes, AtomicLong::get)
+                .description("pg_total_relation_size(outbox_messages), gồm index")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.housekeeping.interval-ms:60000}")
+    public void purge() {
+        Instant cutoff = Instant.now().minus(Duration.ofHours(retentionHours));
+
+        long total = 0;
+        try {
+            for (int i = 0; i < maxBatchesPerRun; i++) {
+                Integer deleted = tx.execute(status -> outboxRepo.purgePublishedBefore(cutoff, batchSize));
+                int n = deleted == null ? 0 : deleted;
+                purgedRows.increment(n);
+                total += n;
+                if (n < batchSize) break;
+
+                Thread.sleep(pauseMs); // throttle: chừa IO cho relay/insert
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // chỉ khi purge không lỗi: query size lỗi (DB down) trong finally sẽ che mất exception gốc
+        tableSizeBytes.set(outboxRepo.tableSizeBytes());
+
+        if (total > 0) {
+            log.info("Outbox housekeeping purged {} PUBLISHED rows older than {}", total, cutoff);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.dang.paymentservice.infrastructure.persistence.jpa.impl;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * pg_notify trong cùng transaction ghi outbox: Postgres chỉ giao khi commit, rollback thì bỏ.
+ */
+@Component
+public class OutboxNotifier {
+
+    private static final Object TX_KEY = OutboxNotifier.class.getName() + ".notified";
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Value("${app.outbox.notify.enabled:false}") private boolean enabled;
+    @Value("${app.outbox.notify.channel:outbox_messages}") private String channel;
+
+    public void notifyOnCommit() {
+        if (!enabled) return;
+
+        // 1 transaction ghi nhiều event chỉ cần notify 1 lần
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            if (TransactionSynchronizationManager.hasResource(TX_KEY)) return;
+            TransactionSynchronizationManager.bindResource(TX_KEY, Boolean.TRUE);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(TX_KEY);
+                }
+            });
+        }
+
+        em.createNativeQuery("select pg_notify(?1, '')")
+                .setParameter(1, channel)
+                .getSingleResult();
+    }
+}
@@ -1,8 +1,11 @@
 package com.dang.paymentservice.infrastructure.persistence.jpa.impl;
 
 import com.dang.paymentservice.application.port.OutboxPort;
+import com.dang.paymentservice.infrastructure.messaging.SagaPayloadCodec;
 import com.dang.paymentservice.infrastructure.persistence.jpa.JpaOutboxRepository;
 import com.dang.paymentservice.infrastructure.persistence.jpa.OutboxMessage;
+import com.dang.sagamessages.envelope.SagaEnvelope;
+import com.dang.sagamessages.message.SagaMessage;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.stereotype.Component;
 
@@ -11,17 +14,31 @@ public class OutboxPortImpl implements OutboxPort {
 
     private final JpaOutboxRepository outboxRepo;
     private final ObjectMapper objectMapper;
+    private final SagaPayloadCodec codec;
+    private final OutboxNotifier notifier;
 
-    public OutboxPortImpl(JpaOutboxRepository outboxRepo, ObjectMapper objectMapper) {
+    public OutboxPortImpl(JpaOutboxRepository outboxRepo, ObjectMapper objectMapper,
+                          SagaPayloadCodec codec, OutboxNotifier notifier) {
         this.outboxRepo = outboxRepo;
         this.objectMapper = objectMapper;
+        this.codec = codec;
+        this.notifier = notifier;
     }
 
     @Override
     public void add(String aggregateType, String aggregateId, String eventType, Object payload) {
         try {
-            String json = objectMapper.writeValueAsString(payload);
-            outboxRepo.save(OutboxMessage.newMessage(aggregateType, aggregateId, eventType, json));
+            OutboxMessage msg;
+            if (payload instanceof SagaMessage sagaMessage) {
+                SagaEnvelope envelope = SagaEnvelope.of(sagaMessage);
+                msg = codec.isBinary()
+                        ? OutboxMessage.newBinaryMessage(aggregateType, aggregateId, codec.encode(sagaMessage), envelope)
+                        : OutboxMessage.newMessage(aggregateType, aggregateId, objectMapper.writeValueAsString(payload), envelope);
+            } else {
+                msg = OutboxMessage.newMessage(aggregateType, aggregateId, eventType, objectMapper.writeValueAsString(payload));
+            }
+            outboxRepo.save(msg);
+            notifier.notifyOnCommit();
         } catch (Exception e) {
             throw new RuntimeException("Cannot write outbox message", e);
         }
@@ -0,0 +1,141 @@
+package com.dang.sagakafka;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Chia 1 poll theo lane = hash(key) % lanes, mỗi lane chạy tuần tự trên 1 virtual thread
+ * => các order khác nhau chạy song song, record cùng key (orderId) vẫn đúng thứ tự.
+ * Chờ hết các lane (barrier theo poll) rồi trả về index nhỏ nhất bị lỗi để listener nack từ đó:
+ * offset chỉ được commit tới record thấp nhất chưa xong.
+ */
+@Component
+public class KeyOrderedDispatcher implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(KeyOrderedDispatcher.class);
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final SagaRetryRouter retryRouter;
+
+    @Value("${app.kafka.dispatcher.lanes:16}")
+    private int lanes;
+
+    @Value("${app.kafka.dispatcher.retry-backoff-ms:1000}")
+    private long retryBackoffMs;
+
+    public KeyOrderedDispatcher(SagaRetryRouter retryRouter) {
+        this.retryRouter = retryRouter;
+    }
+
+    @FunctionalInterface
+    public interface RecordHandler<V> {
+        void handle(ConsumerRecord<String, V> record) throws Exception;
+    }
+
+    @FunctionalInterface
+    public interface LaneHandler<V> {
+        void handle(List<ConsumerRecord<String, V>> records) throws Exception;
+    }
+
+    public Duration retryBackoff() {
+        return Duration.ofMillis(retryBackoffMs);
+    }
+
+    /**
+     * Xử lý từng record. Record lỗi được chuyển sang retry topic rồi lane chạy tiếp;
+     * chỉ khi không gửi được sang retry topic thì lane dừng ở đó (record sau cùng key không chạy trước nó).
+     *
+     * @return index (trong poll) của record lỗi đầu tiên chưa chuyển được, -1 nếu cả poll xong
+     */
+    public int dispatch(List<ConsumerRecord<String, byte[]>> records, RecordHandler<byte[]> handler) {
+        return run(records, (lane, indexes) -> {
+            for (int i : indexes) {
+                ConsumerRecord<String, byte[]> record = records.get(i);
+                try {
+                    handler.handle(record);
+                } catch (Exception ex) {
+                    if (!retryRouter.forward(record, ex)) return i;
+                }
+            }
+            return -1;
+        });
+    }
+
+    /**
+     * Giao cả lane cho handler (vd. xử lý nhiều event trong 1 transaction). Lane lỗi => nack từ record đầu lane.
+     */
+    public <V> int dispatchLanes(List<ConsumerRecord<String, V>> records, LaneHandler<V> handler) {
+        return run(records, (lane, indexes) -> {
+            try {
+                handler.handle(lane);
+                return -1;
+            } catch (Exception ex) {
+                log.error("Kafka lane of {} records failed, first offset={}", lane.size(), lane.get(0).offset(), ex);
+                return indexes.get(0);
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface LaneTask<V> {
+        int run(List<ConsumerRecord<String, V>> lane, List<Integer> indexes);
+    }
+
+    private <V> int run(List<ConsumerRecord<String, V>> records, LaneTask<V> task) {
+        if (records.isEmpty()) return -1;
+
+        int n = Math.max(1, Math.min(lanes, records.size()));
+        List<List<Integer>> indexes = new ArrayList<>(n);
+        for (int l = 0; l < n; l++) indexes.add(new ArrayList<>());
+        for (int i = 0; i < records.size(); i++) {
+            String key = records.get(i).key();
+            int l = key == null ? 0 : (key.hashCode() & Integer.MAX_VALUE) % n;
+            indexes.get(l).add(i);
+        }
+
+        List<Future<Integer>> futures = new ArrayList<>(n);
+        for (List<Integer> laneIndexes : indexes) {
+            if (laneIndexes.isEmpty()) continue;
+            List<ConsumerRecord<String, V>> lane = laneIndexes.stream().map(records::get).toList();
+            // 1 lane => chạy luôn trên thread consumer, khỏi tốn 1 lần chuyển thread
+            futures.add(n == 1
+                    ? CompletableFuture.completedFuture(task.run(lane, laneIndexes))
+                    : executor.submit(() -> task.run(lane, laneIndexes)));
+        }
+
+        int lowestFailed = -1;
+        for (Future<Integer> f : futures) {
+            int failed = await(f);
+            if (failed >= 0 && (lowestFailed < 0 || failed < lowestFailed)) lowestFailed = failed;
+        }
+        return lowestFailed;
+    }
+
+    private static int await(Future<Integer> f) {
+        try {
+            return f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for Kafka lanes", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Kafka lane crashed", e.getCause());
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.close();
+    }
+}
@@ -0,0 +1,13 @@
+package com.dang.sagakafka;
+
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Service @Import class này để có {@link KeyOrderedDispatcher} và {@link SagaRetryRouter}.
+ * Đăng ký bằng component scan để giữ tên bean {@code sagaRetryRouter} mà SpEL của @KafkaListener dùng.
+ */
+@Configuration(proxyBeanMethods = false)
+@ComponentScan(basePackageClasses = SagaKafkaConfiguration.class)
+public class SagaKafkaConfiguration {
+}
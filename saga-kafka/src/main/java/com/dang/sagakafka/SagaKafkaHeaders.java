@@ -0,0 +1,37 @@
+package com.dang.sagakafka;
+
+import com.dang.sagamessages.envelope.SagaEnvelope;
+import com.dang.sagamessages.envelope.SagaHeaders;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+/**
+ * Chuyển {@link SagaEnvelope} <-> Kafka headers (UTF-8).
+ */
+public final class SagaKafkaHeaders {
+    private SagaKafkaHeaders() {}
+
+    public static ProducerRecord<String, byte[]> record(String topic, String key, byte[] value,
+                                                        SagaEnvelope envelope, String contentType) {
+        Headers headers = new RecordHeaders();
+        if (envelope != null) {
+            envelope.toHeaders().forEach((name, v) -> headers.add(name, v.getBytes(StandardCharsets.UTF_8)));
+        }
+        headers.add(SagaHeaders.CONTENT_TYPE, contentType.getBytes(StandardCharsets.UTF_8));
+        return new ProducerRecord<>(topic, null, key, value, headers);
+    }
+
+    public static Optional<SagaEnvelope> read(Headers headers) {
+        return SagaEnvelope.fromHeaders(name -> lastValue(headers, name));
+    }
+
+    public static String lastValue(Headers headers, String name) {
+        Header h = headers.lastHeader(name);
+        return h == null ? null : new String(h.value(), StandardCharsets.UTF_8);
+    }
+}
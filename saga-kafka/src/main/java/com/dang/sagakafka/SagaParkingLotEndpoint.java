@@ -0,0 +1,157 @@
+package com.dang.sagakafka;
+
+import com.dang.sagamessages.envelope.SagaHeaders;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * /actuator/parkinglot: GET = số record đang nằm ở parking lot, POST {"max": n} = đẩy lại về topic gốc.
+ * Vị trí đã replay lưu bằng offset của consumer group riêng, nên replay nhiều lần không gửi trùng.
+ * Mỗi service tự khai báo bean với danh sách topic gốc của mình.
+ */
+@Endpoint(id = "parkinglot")
+public class SagaParkingLotEndpoint {
+
+    private static final Logger log = LoggerFactory.getLogger(SagaParkingLotEndpoint.class);
+
+    private static final Duration POLL_TIMEOUT = Duration.ofSeconds(1);
+
+    private final ConsumerFactory<String, byte[]> consumerFactory;
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final List<String> parkingLots;
+    private final String replayGroup;
+
+    @Value("${app.kafka.retry.send-timeout-ms:10000}")
+    private long sendTimeoutMs;
+
+    /**
+     * @param topics      topic gốc có retry tier (parking lot = {@code <topic>.parking-lot})
+     * @param replayGroup consumer group giữ vị trí đã replay
+     */
+    public SagaParkingLotEndpoint(ConsumerFactory<String, byte[]> consumerFactory,
+                                  KafkaTemplate<String, byte[]> kafkaTemplate,
+                                  SagaRetryRouter retryRouter,
+                                  List<String> topics,
+                                  String replayGroup) {
+        this.consumerFactory = consumerFactory;
+        this.kafkaTemplate = kafkaTemplate;
+        this.parkingLots = topics.stream().map(retryRouter::parkingLotTopic).toList();
+        this.replayGroup = replayGroup;
+    }
+
+    @ReadOperation
+    public Map<String, Long> parked() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        try (Consumer<String, byte[]> consumer = newConsumer()) {
+            for (String topic : parkingLots) {
+                Set<TopicPartition> partitions = partitions(consumer, topic);
+                Map<TopicPartition, Long> end = consumer.endOffsets(partitions);
+                Map<TopicPartition, Long> begin = consumer.beginningOffsets(partitions);
+                Map<TopicPartition, OffsetAndMetadata> committed = consumer.committed(partitions);
+                long pending = 0;
+                for (TopicPartition tp : partitions) {
+                    OffsetAndMetadata c = committed.get(tp);
+                    pending += end.get(tp) - (c != null ? c.offset() : begin.get(tp));
+                }
+                result.put(topic, pending);
+            }
+        }
+        return result;
+    }
+
+    @WriteOperation
+    public Map<String, Integer> replay(@Nullable Integer max) {
+        int limit = max == null || max <= 0 ? 100 : max;
+        Map<String, Integer> result = new LinkedHashMap<>();
+        try (Consumer<String, byte[]> consumer = newConsumer()) {
+            for (String topic : parkingLots) {
+                int replayed = replay(consumer, topic, limit);
+                result.put(topic, replayed);
+                limit -= replayed;
+                if (limit <= 0) break;
+            }
+        }
+        return result;
+    }
+
+    private int replay(Consumer<String, byte[]> consumer, String topic, int limit) {
+        Set<TopicPartition> partitions = partitions(consumer, topic);
+        if (partitions.isEmpty()) return 0;
+
+        consumer.assign(partitions);
+        Map<TopicPartition, OffsetAndMetadata> committed = consumer.committed(partitions);
+        for (TopicPartition tp : partitions) {
+            OffsetAndMetadata c = committed.get(tp);
+            if (c != null) consumer.seek(tp, c.offset());
+            else consumer.seekToBeginning(Set.of(tp));
+        }
+
+        Map<TopicPartition, OffsetAndMetadata> done = new HashMap<>();
+        int replayed = 0;
+        try {
+            while (replayed < limit) {
+                ConsumerRecords<String, byte[]> records = consumer.poll(POLL_TIMEOUT);
+                if (records.isEmpty()) break;
+                for (ConsumerRecord<String, byte[]> record : records) {
+                    if (replayed >= limit) break;
+                    kafkaTemplate.send(toOriginal(record)).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+                    done.put(new TopicPartition(record.topic(), record.partition()), new OffsetAndMetadata(record.offset() + 1));
+                    replayed++;
+                }
+            }
+        } catch (Exception ex) {
+            log.error("Parking lot replay of {} stopped after {} records", topic, replayed, ex);
+        } finally {
+            // chỉ commit những record đã gửi xong
+            if (!done.isEmpty()) consumer.commitSync(done);
+        }
+
+        log.info("Replayed {} records from {}", replayed, topic);
+        return replayed;
+    }
+
+    private static ProducerRecord<String, byte[]> toOriginal(ConsumerRecord<String, byte[]> record) {
+        ProducerRecord<String, byte[]> out = new ProducerRecord<>(
+                SagaRetryRouter.originalTopic(record), null, record.key(), record.value());
+        for (Header h : record.headers()) {
+            if (!h.key().startsWith(SagaHeaders.RETRY_PREFIX)) out.headers().add(h);
+        }
+        return out;
+    }
+
+    private Consumer<String, byte[]> newConsumer() {
+        return consumerFactory.createConsumer(replayGroup, "parking-lot");
+    }
+
+    private static Set<TopicPartition> partitions(Consumer<String, byte[]> consumer, String topic) {
+        List<PartitionInfo> infos = consumer.partitionsFor(topic);
+        if (infos == null) return Set.of();
+        return infos.stream()
+                .map(p -> new TopicPartition(p.topic(), p.partition()))
+                .collect(Collectors.toSet());
+    }
+}
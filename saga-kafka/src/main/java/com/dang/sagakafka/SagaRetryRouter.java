@@ -0,0 +1,187 @@
+package com.dang.sagakafka;
+
+import com.dang.sagamessages.envelope.SagaHeaders;
+import com.dang.sagamessages.envelope.UnsupportedSchemaVersionException;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Retry không chặn partition: record lỗi được chuyển sang {@code <topic>.retry-N} (backoff tăng dần theo tier),
+ * hết tier thì vào {@code <topic>.parking-lot} chờ replay tay (actuator /parkinglot).
+ * Record gốc được ack ngay sau khi chuyển xong => các order khác cùng partition chạy tiếp.
+ */
+@Component
+public class SagaRetryRouter {
+
+    private static final Logger log = LoggerFactory.getLogger(SagaRetryRouter.class);
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final KafkaListenerEndpointRegistry listenerRegistry;
+    private final TaskScheduler taskScheduler;
+
+    // partition đang pause chờ record chưa tới hạn => offset của record đó
+    private final Map<TopicPartition, Long> waiting = new ConcurrentHashMap<>();
+
+    // backoff của từng tier, tier i => topic <topic>.retry-(i+1)
+    @Value("${app.kafka.retry.backoff-ms:1000,10000,60000}")
+    private long[] backoffMs;
+
+    @Value("${app.kafka.retry.send-timeout-ms:10000}")
+    private long sendTimeoutMs;
+
+    public SagaRetryRouter(KafkaTemplate<String, byte[]> kafkaTemplate,
+                           KafkaListenerEndpointRegistry listenerRegistry,
+                           TaskScheduler taskScheduler) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.listenerRegistry = listenerRegistry;
+        this.taskScheduler = taskScheduler;
+    }
+
+    public String retryTopic(String topic, int tier) {
+        return topic + ".retry-" + tier;
+    }
+
+    public String parkingLotTopic(String topic) {
+        return topic + ".parking-lot";
+    }
+
+    /** Dùng trong SpEL của @KafkaListener: tất cả retry topic của các topic gốc. */
+    public String[] retryTopics(String... topics) {
+        List<String> result = new ArrayList<>();
+        for (String topic : topics) {
+            for (int tier = 1; tier <= backoffMs.length; tier++) {
+                result.add(retryTopic(topic, tier));
+            }
+        }
+        return result.toArray(String[]::new);
+    }
+
+    /**
+     * Chuyển record lỗi sang tier kế tiếp (hoặc parking lot).
+     *
+     * @return true nếu đã gửi xong => được ack record gốc; false nếu Kafka lỗi => không ack, để redeliver
+     */
+    public boolean forward(ConsumerRecord<String, byte[]> record, Exception error) {
+        String original = originalTopic(record);
+        int attempt = attempt(record) + 1;
+        // schema mới hơn consumer: retry không giúp gì tới khi nâng cấp => park luôn, replay sau
+        boolean park = attempt > backoffMs.length || error instanceof UnsupportedSchemaVersionException;
+        String target = park ? parkingLotTopic(original) : retryTopic(original, attempt);
+
+        ProducerRecord<String, byte[]> out = new ProducerRecord<>(target, null, record.key(), record.value());
+        for (Header h : record.headers()) {
+            if (!h.key().startsWith(SagaHeaders.RETRY_PREFIX)) out.headers().add(h);
+        }
+        put(out, SagaHeaders.RETRY_ORIGINAL_TOPIC, original);
+        put(out, SagaHeaders.RETRY_ATTEMPT, String.valueOf(attempt));
+        put(out, SagaHeaders.RETRY_ERROR, abbreviate(String.valueOf(error)));
+        if (!park) {
+            put(out, SagaHeaders.RETRY_DUE_AT, String.valueOf(System.currentTimeMillis() + backoffMs[attempt - 1]));
+        }
+
+        try {
+            kafkaTemplate.send(out).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (Exception ex) {
+            log.error("Failed to forward record topic={} partition={} offset={} to {}",
+                    record.topic(), record.partition(), record.offset(), target, ex);
+            return false;
+        }
+
+        if (park) {
+            log.error("Parked record key={} from topic={} offset={} after {} retries",
+                    record.key(), original, record.offset(), attempt - 1, error);
+        } else {
+            log.warn("Record key={} from topic={} offset={} moved to {}: {}",
+                    record.key(), original, record.offset(), target, error.toString());
+        }
+        return true;
+    }
+
+    /**
+     * Listener của retry topic. Chưa tới hạn => seek về record và pause riêng partition đó tới hạn,
+     * các partition/tier khác của container vẫn chạy; record sau trong cùng partition (cùng tier)
+     * chắc chắn tới hạn muộn hơn nên chờ theo record đầu là đủ.
+     */
+    public void onRetry(String listenerId, ConsumerRecord<String, byte[]> record, Acknowledgment ack,
+                        Consumer<?, ?> consumer, KeyOrderedDispatcher.RecordHandler<byte[]> handler) {
+        TopicPartition tp = new TopicPartition(record.topic(), record.partition());
+        Long waitingOffset = waiting.get(tp);
+        if (waitingOffset != null && record.offset() >= waitingOffset) {
+            // phần còn lại của poll trên partition đang chờ: đã seek, bỏ qua không ack
+            return;
+        }
+
+        long wait = dueAt(record) - System.currentTimeMillis();
+        if (wait > 0) {
+            MessageListenerContainer container = listenerRegistry.getListenerContainer(listenerId);
+            if (container == null) {
+                ack.nack(Duration.ofMillis(Math.min(wait, backoffMs[0])));
+                return;
+            }
+            waiting.put(tp, record.offset());
+            consumer.seek(tp, record.offset());
+            container.pausePartition(tp);
+            taskScheduler.schedule(() -> {
+                waiting.remove(tp, record.offset());
+                container.resumePartition(tp);
+            }, Instant.now().plusMillis(wait));
+            return;
+        }
+
+        try {
+            handler.handle(record);
+        } catch (Exception ex) {
+            if (!forward(record, ex)) {
+                ack.nack(Duration.ofMillis(backoffMs[0]));
+                return;
+            }
+        }
+        ack.acknowledge();
+    }
+
+    public static String originalTopic(ConsumerRecord<String, byte[]> record) {
+        String original = SagaKafkaHeaders.lastValue(record.headers(), SagaHeaders.RETRY_ORIGINAL_TOPIC);
+        return original != null ? original : record.topic();
+    }
+
+    private static int attempt(ConsumerRecord<String, byte[]> record) {
+        String v = SagaKafkaHeaders.lastValue(record.headers(), SagaHeaders.RETRY_ATTEMPT);
+        return v == null ? 0 : Integer.parseInt(v);
+    }
+
+    private static long dueAt(ConsumerRecord<String, byte[]> record) {
+        String v = SagaKafkaHeaders.lastValue(record.headers(), SagaHeaders.RETRY_DUE_AT);
+        return v == null ? 0 : Long.parseLong(v);
+    }
+
+    private static void put(ProducerRecord<String, byte[]> record, String name, String value) {
+        record.headers().add(name, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String abbreviate(String s) {
+        return s.length() <= MAX_ERROR_LENGTH ? s : s.substring(0, MAX_ERROR_LENGTH);
+    }
+}
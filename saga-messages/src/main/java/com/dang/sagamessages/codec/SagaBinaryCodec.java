@@ -0,0 +1,377 @@
+package com.dang.sagamessages.codec;
+
+import com.dang.sagamessages.envelope.SagaMessageType;
+import com.dang.sagamessages.message.SagaMessage;
+import com.dang.sagamessages.message.inventory.InventoryCommands;
+import com.dang.sagamessages.message.inventory.InventoryEvents;
+import com.dang.sagamessages.message.payment.PaymentCommands;
+import com.dang.sagamessages.message.payment.PaymentEvents;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Codec nhị phân viết tay cho saga command/event (thay JSON trên đường Kafka).
+ *
+ * Layout: [MAGIC][FORMAT][type tag] rồi danh sách field, mỗi field = key varint ((fieldNo << 3) | wireType) + value.
+ * Field null không ghi. Decoder bỏ qua fieldNo lạ (producer mới hơn) và để null field thiếu (producer cũ hơn)
+ * => thêm field chỉ cần fieldNo mới; không bao giờ tái sử dụng/đổi wire type của fieldNo cũ.
+ */
+public final class SagaBinaryCodec {
+    private SagaBinaryCodec() {}
+
+    public static final String CONTENT_TYPE = "application/x-saga-binary";
+
+    // byte đầu không thể là JSON ('{', '[', khoảng trắng...) => phân biệt được payload cũ
+    public static final byte MAGIC = (byte) 0xB5;
+    static final byte FORMAT = 1;
+
+    // wire types
+    static final int VARINT = 0;    // zigzag varint
+    static final int BYTES = 1;     // varint length + bytes (UTF-8 string, nested message)
+    static final int TIMESTAMP = 2; // zigzag varint epochSecond + varint nano
+    static final int DECIMAL = 3;   // zigzag varint scale + varint length + unscaled (two's complement)
+
+    // field numbers dùng chung cho mọi message
+    static final int F_SAGA_ID = 1;
+    static final int F_ORDER_ID = 2;
+    static final int F_OCCURRED_AT = 3;
+    static final int F_REASON = 4;
+    static final int F_CUSTOMER_ID = 5;
+    static final int F_ITEMS = 6;
+    static final int F_AMOUNT = 7;
+    static final int F_CURRENCY = 8;
+
+    // ReserveInventoryCommand.Item
+    static final int F_ITEM_SKU = 1;
+    static final int F_ITEM_QUANTITY = 2;
+    static final int F_ITEM_UNIT_PRICE = 3;
+
+    public static boolean isBinary(byte[] value) {
+        return value != null && value.length >= 3 && value[0] == MAGIC;
+    }
+
+    public static byte[] encode(SagaMessage message) {
+        Sink out = new Sink(64);
+        out.writeByte(MAGIC);
+        out.writeByte(FORMAT);
+        out.writeByte(tagOf(SagaMessageType.of(message)));
+
+        out.writeString(F_SAGA_ID, message.sagaId());
+        out.writeString(F_ORDER_ID, message.orderId());
+        out.writeTimestamp(F_OCCURRED_AT, message.occurredAt());
+
+        switch (message) {
+            case InventoryCommands.ReserveInventoryCommand c -> {
+                out.writeString(F_CUSTOMER_ID, c.customerId());
+                if (c.items() != null) {
+                    Sink item = new Sink(32);
+                    for (InventoryCommands.ReserveInventoryCommand.Item i : c.items()) {
+                        item.reset();
+                        item.writeString(F_ITEM_SKU, i.sku());
+                        item.writeInt(F_ITEM_QUANTITY, i.quantity());
+                        item.writeDecimal(F_ITEM_UNIT_PRICE, i.unitPrice());
+                        out.writeBytes(F_ITEMS, item.buf, item.size);
+                    }
+                }
+            }
+            case PaymentCommands.CapturePaymentCommand c -> {
+                out.writeString(F_CUSTOMER_ID, c.customerId());
+                out.writeDecimal(F_AMOUNT, c.amount());
+                out.writeString(F_CURRENCY, c.currency());
+            }
+            case InventoryCommands.ReleaseInventoryCommand c -> out.writeString(F_REASON, c.reason());
+            case PaymentCommands.RefundPaymentCommand c -> out.writeString(F_REASON, c.reason());
+            case InventoryEvents.InventoryReserveFailedEvent e -> out.writeString(F_REASON, e.reason());
+            case InventoryEvents.InventoryReleaseFailedEvent e -> out.writeString(F_REASON, e.reason());
+            case PaymentEvents.PaymentCaptureFailedEvent e -> out.writeString(F_REASON, e.reason());
+            case PaymentEvents.PaymentRefundFailedEvent e -> out.writeString(F_REASON, e.reason());
+            default -> {
+                // event thành công: chỉ có field chung
+            }
+        }
+        return out.toByteArray();
+    }
+
+    public static SagaMessage decode(byte[] value) {
+        return decode(ByteBuffer.wrap(value));
+    }
+
+    public static SagaMessage decode(ByteBuffer in) {
+        if (in.remaining() < 3 || in.get() != MAGIC) {
+            throw new IllegalArgumentException("Not a saga binary payload");
+        }
+        byte format = in.get();
+        if (format != FORMAT) {
+            throw new IllegalArgumentException("Unsupported saga binary format " + format);
+        }
+        SagaMessageType type = typeOf(in.get());
+
+        String sagaId = null, orderId = null, reason = null, customerId = null, currency = null;
+        Instant occurredAt = null;
+        BigDecimal amount = null;
+        List<InventoryCommands.ReserveInventoryCommand.Item> items = null;
+
+        while (in.hasRemaining()) {
+            int key = (int) readVarint(in);
+            int field = key >>> 3;
+            int wire = key & 7;
+            switch (field) {
+                case F_SAGA_ID -> sagaId = wire == BYTES ? readString(in) : skip(in, wire);
+                case F_ORDER_ID -> orderId = wire == BYTES ? readString(in) : skip(in, wire);
+                case F_OCCURRED_AT -> occurredAt = wire == TIMESTAMP ? readTimestamp(in) : skip(in, wire);
+                case F_REASON -> reason = wire == BYTES ? readString(in) : skip(in, wire);
+                case F_CUSTOMER_ID -> customerId = wire == BYTES ? readString(in) : skip(in, wire);
+                case F_CURRENCY -> currency = wire == BYTES ? readString(in) : skip(in, wire);
+                case F_AMOUNT -> amount = wire == DECIMAL ? readDecimal(in) : skip(in, wire);
+                case F_ITEMS -> {
+                    if (wire != BYTES) {
+                        skip(in, wire);
+                        continue;
+                    }
+                    if (items == null) items = new ArrayList<>();
+                    items.add(readItem(in));
+                }
+                default -> skip(in, wire);
+            }
+        }
+
+        return switch (type) {
+            case RESERVE_INVENTORY -> new InventoryCommands.ReserveInventoryCommand(
+                    sagaId, orderId, customerId, items == null ? List.of() : items, occurredAt);
+            case RELEASE_INVENTORY -> new InventoryCommands.ReleaseInventoryCommand(sagaId, orderId, reason, occurredAt);
+            case INVENTORY_RESERVED -> new InventoryEvents.InventoryReservedEvent(sagaId, orderId, occurredAt);
+            case INVENTORY_RESERVE_FAILED -> new InventoryEvents.InventoryReserveFailedEvent(sagaId, orderId, reason, occurredAt);
+            case INVENTORY_RELEASED -> new InventoryEvents.InventoryReleasedEvent(sagaId, orderId, occurredAt);
+            case INVENTORY_RELEASE_FAILED -> new InventoryEvents.InventoryReleaseFailedEvent(sagaId, orderId, reason, occurredAt);
+            case CAPTURE_PAYMENT -> new PaymentCommands.CapturePaymentCommand(
+                    sagaId, orderId, customerId, amount, currency, occurredAt);
+            case REFUND_PAYMENT -> new PaymentCommands.RefundPaymentCommand(sagaId, orderId, reason, occurredAt);
+            case PAYMENT_CAPTURED -> new PaymentEvents.PaymentCapturedEvent(sagaId, orderId, occurredAt);
+            case PAYMENT_CAPTURE_FAILED -> new PaymentEvents.PaymentCaptureFailedEvent(sagaId, orderId, reason, occurredAt);
+            case PAYMENT_REFUNDED -> new PaymentEvents.PaymentRefundedEvent(sagaId, orderId, occurredAt);
+            case PAYMENT_REFUND_FAILED -> new PaymentEvents.PaymentRefundFailedEvent(sagaId, orderId, reason, occurredAt);
+        };
+    }
+
+    private static InventoryCommands.ReserveInventoryCommand.Item readItem(ByteBuffer in) {
+        int len = (int) readVarint(in);
+        int end = in.position() + len;
+
+        String sku = null;
+        int quantity = 0;
+        BigDecimal unitPrice = null;
+        while (in.position() < end) {
+            int key = (int) readVarint(in);
+            int wire = key & 7;
+            switch (key >>> 3) {
+                case F_ITEM_SKU -> sku = wire == BYTES ? readString(in) : skip(in, wire);
+                case F_ITEM_QUANTITY -> {
+                    if (wire == VARINT) quantity = (int) readZigZag(in);
+                    else skip(in, wire);
+                }
+                case F_ITEM_UNIT_PRICE -> unitPrice = wire == DECIMAL ? readDecimal(in) : skip(in, wire);
+                default -> skip(in, wire);
+            }
+        }
+        return new InventoryCommands.ReserveInventoryCommand.Item(sku, quantity, unitPrice);
+    }
+
+    // tag cố định trên wire, KHÔNG dùng ordinal (thêm/sắp xếp lại enum sẽ làm lệch)
+    private static byte tagOf(SagaMessageType type) {
+        return switch (type) {
+            case RESERVE_INVENTORY -> 1;
+            case RELEASE_INVENTORY -> 2;
+            case INVENTORY_RESERVED -> 3;
+            case INVENTORY_RESERVE_FAILED -> 4;
+            case INVENTORY_RELEASED -> 5;
+            case INVENTORY_RELEASE_FAILED -> 6;
+            case CAPTURE_PAYMENT -> 7;
+            case REFUND_PAYMENT -> 8;
+            case PAYMENT_CAPTURED -> 9;
+            case PAYMENT_CAPTURE_FAILED -> 10;
+            case PAYMENT_REFUNDED -> 11;
+            case PAYMENT_REFUND_FAILED -> 12;
+        };
+    }
+
+    private static SagaMessageType typeOf(byte tag) {
+        return switch (tag) {
+            case 1 -> SagaMessageType.RESERVE_INVENTORY;
+            case 2 -> SagaMessageType.RELEASE_INVENTORY;
+            case 3 -> SagaMessageType.INVENTORY_RESERVED;
+            case 4 -> SagaMessageType.INVENTORY_RESERVE_FAILED;
+            case 5 -> SagaMessageType.INVENTORY_RELEASED;
+            case 6 -> SagaMessageType.INVENTORY_RELEASE_FAILED;
+            case 7 -> SagaMessageType.CAPTURE_PAYMENT;
+            case 8 -> SagaMessageType.REFUND_PAYMENT;
+            case 9 -> SagaMessageType.PAYMENT_CAPTURED;
+            case 10 -> SagaMessageType.PAYMENT_CAPTURE_FAILED;
+            case 11 -> SagaMessageType.PAYMENT_REFUNDED;
+            case 12 -> SagaMessageType.PAYMENT_REFUND_FAILED;
+            default -> throw new IllegalArgumentException("Unknown saga binary type tag " + tag);
+        };
+    }
+
+    // ===================== read =====================
+
+    private static long readVarint(ByteBuffer in) {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return result;
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    private static long readZigZag(ByteBuffer in) {
+        long v = readVarint(in);
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int len = (int) readVarint(in);
+        String s;
+        if (in.hasArray()) {
+            s = new String(in.array(), in.arrayOffset() + in.position(), len, StandardCharsets.UTF_8);
+            in.position(in.position() + len);
+        } else {
+            byte[] tmp = new byte[len];
+            in.get(tmp);
+            s = new String(tmp, StandardCharsets.UTF_8);
+        }
+        return s;
+    }
+
+    private static Instant readTimestamp(ByteBuffer in) {
+        long seconds = readZigZag(in);
+        long nanos = readVarint(in);
+        return Instant.ofEpochSecond(seconds, nanos);
+    }
+
+    private static BigDecimal readDecimal(ByteBuffer in) {
+        int scale = (int) readZigZag(in);
+        int len = (int) readVarint(in);
+        byte[] unscaled = new byte[len];
+        in.get(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), scale);
+    }
+
+    /**
+     * Bỏ qua value của field lạ/sai wire type. Trả null để dùng gọn trong biểu thức gán.
+     */
+    private static <T> T skip(ByteBuffer in, int wire) {
+        switch (wire) {
+            case VARINT -> readVarint(in);
+            case BYTES -> {
+                int len = (int) readVarint(in);
+                in.position(in.position() + len);
+            }
+            case TIMESTAMP -> {
+                readVarint(in);
+                readVarint(in);
+            }
+            case DECIMAL -> {
+                readVarint(in);
+                int len = (int) readVarint(in);
+                in.position(in.position() + len);
+            }
+            default -> throw new IllegalArgumentException("Unknown wire type " + wire);
+        }
+        return null;
+    }
+
+    // ===================== write =====================
+
+    /**
+     * Buffer tự giãn, tránh ByteArrayOutputStream (synchronized) trên hot path.
+     */
+    private static final class Sink {
+        private byte[] buf;
+        private int size;
+
+        Sink(int initialCapacity) {
+            this.buf = new byte[initialCapacity];
+        }
+
+        void reset() {
+            size = 0;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, size);
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, size + extra));
+            }
+        }
+
+        void writeByte(byte b) {
+            ensure(1);
+            buf[size++] = b;
+        }
+
+        void writeVarint(long v) {
+            ensure(10);
+            while ((v & ~0x7FL) != 0) {
+                buf[size++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buf[size++] = (byte) v;
+        }
+
+        void writeZigZag(long v) {
+            writeVarint((v << 1) ^ (v >> 63));
+        }
+
+        void writeKey(int field, int wire) {
+            writeVarint(((long) field << 3) | wire);
+        }
+
+        void writeString(int field, String s) {
+            if (s == null) return;
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            writeBytes(field, bytes, bytes.length);
+        }
+
+        void writeBytes(int field, byte[] bytes, int len) {
+            writeKey(field, BYTES);
+            writeVarint(len);
+            ensure(len);
+            System.arraycopy(bytes, 0, buf, size, len);
+            size += len;
+        }
+
+        void writeInt(int field, int v) {
+            writeKey(field, VARINT);
+            writeZigZag(v);
+        }
+
+        void writeTimestamp(int field, Instant t) {
+            if (t == null) return;
+            writeKey(field, TIMESTAMP);
+            writeZigZag(t.getEpochSecond());
+            writeVarint(t.getNano());
+        }
+
+        void writeDecimal(int field, BigDecimal d) {
+            if (d == null) return;
+            byte[] unscaled = d.unscaledValue().toByteArray();
+            writeKey(field, DECIMAL);
+            writeZigZag(d.scale());
+            writeVarint(unscaled.length);
+            ensure(unscaled.length);
+            System.arraycopy(unscaled, 0, buf, size, unscaled.length);
+            size += unscaled.length;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.dang.sagamessages.envelope;
+
+import com.dang.sagamessages.id.TimeOrderedIds;
+import com.dang.sagamessages.message.SagaMessage;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Metadata đi kèm payload (qua header), để consumer dispatch theo type và deserialize thẳng ra record
+ * thay vì đoán type từ field. Payload vẫn là JSON của record => consumer cũ không bị ảnh hưởng.
+ */
+public record SagaEnvelope(
+        String messageId,
+        SagaMessageType type,
+        int schemaVersion,
+        String sagaId,
+        String orderId,
+        Instant occurredAt
+) {
+
+    public static SagaEnvelope of(SagaMessage message) {
+        return of(TimeOrderedIds.nextString(), message);
+    }
+
+    public static SagaEnvelope of(String messageId, SagaMessage message) {
+        SagaMessageType type = SagaMessageType.of(message);
+        return new SagaEnvelope(messageId, type, type.schemaVersion(),
+                message.sagaId(), message.orderId(), message.occurredAt());
+    }
+
+    public Map<String, String> toHeaders() {
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put(SagaHeaders.MESSAGE_ID, messageId);
+        headers.put(SagaHeaders.MESSAGE_TYPE, type.typeName());
+        headers.put(SagaHeaders.SCHEMA_VERSION, Integer.toString(schemaVersion));
+        if (sagaId != null) headers.put(SagaHeaders.SAGA_ID, sagaId);
+        if (orderId != null) headers.put(SagaHeaders.ORDER_ID, orderId);
+        if (occurredAt != null) headers.put(SagaHeaders.OCCURRED_AT, occurredAt.toString());
+        return headers;
+    }
+
+    /**
+     * Version cũ hơn vẫn đọc được (đổi tương thích không tăng version); mới hơn => throw.
+     */
+    public SagaEnvelope requireSupportedVersion() {
+        if (schemaVersion > type.schemaVersion()) {
+            throw new UnsupportedSchemaVersionException(type, schemaVersion);
+        }
+        return this;
+    }
+
+    /**
+     * @return empty nếu message không có header type hoặc type không biết (producer cũ/mới hơn)
+     */
+    public static Optional<SagaEnvelope> fromHeaders(Function<String, String> header) {
+        return SagaMessageType.fromTypeName(header.apply(SagaHeaders.MESSAGE_TYPE))
+                .map(type -> {
+                    String version = header.apply(SagaHeaders.SCHEMA_VERSION);
+                    String occurredAt = header.apply(SagaHeaders.OCCURRED_AT);
+                    return new SagaEnvelope(
+                            header.apply(SagaHeaders.MESSAGE_ID),
+                            type,
+                            version == null ? type.schemaVersion() : Integer.parseInt(version),
+                            header.apply(SagaHeaders.SAGA_ID),
+                            header.apply(SagaHeaders.ORDER_ID),
+                            occurredAt == null ? null : Instant.parse(occurredAt)
+                    );
+                });
+    }
+}
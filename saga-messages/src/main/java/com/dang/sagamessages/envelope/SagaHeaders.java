@@ -0,0 +1,26 @@
+package com.dang.sagamessages.envelope;
+
+/**
+ * Tên Kafka header mang metadata của {@link SagaEnvelope}. Value là UTF-8 string.
+ */
+public final class SagaHeaders {
+    private SagaHeaders() {}
+
+    public static final String MESSAGE_ID = "saga-message-id";
+    public static final String MESSAGE_TYPE = "saga-message-type";
+    public static final String SCHEMA_VERSION = "saga-schema-version";
+    public static final String SAGA_ID = "saga-id";
+    public static final String ORDER_ID = "saga-order-id";
+    public static final String OCCURRED_AT = "saga-occurred-at";
+
+    // encoding của value: JSON (mặc định) hoặc SagaBinaryCodec.CONTENT_TYPE
+    public static final String CONTENT_TYPE = "saga-content-type";
+    public static final String JSON_CONTENT_TYPE = "application/json";
+
+    // retry topic: topic gốc, số lần đã retry, thời điểm (epoch ms) được xử lý lại, lỗi lần cuối
+    public static final String RETRY_PREFIX = "saga-retry-";
+    public static final String RETRY_ORIGINAL_TOPIC = "saga-retry-original-topic";
+    public static final String RETRY_ATTEMPT = "saga-retry-attempt";
+    public static final String RETRY_DUE_AT = "saga-retry-due-at";
+    public static final String RETRY_ERROR = "saga-retry-error";
+}
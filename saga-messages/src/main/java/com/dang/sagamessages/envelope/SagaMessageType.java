@@ -0,0 +1,76 @@
+package com.dang.sagamessages.envelope;
+
+import com.dang.sagamessages.message.SagaMessage;
+import com.dang.sagamessages.message.inventory.InventoryCommands;
+import com.dang.sagamessages.message.inventory.InventoryEvents;
+import com.dang.sagamessages.message.payment.PaymentCommands;
+import com.dang.sagamessages.message.payment.PaymentEvents;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Discriminator của message trong saga. Tên type = simple class name của record
+ * (trùng với event_type đang lưu ở outbox inventory/payment).
+ * Đổi cấu trúc record theo kiểu không tương thích => tăng schemaVersion.
+ */
+public enum SagaMessageType {
+    RESERVE_INVENTORY(InventoryCommands.ReserveInventoryCommand.class, 1),
+    RELEASE_INVENTORY(InventoryCommands.ReleaseInventoryCommand.class, 1),
+
+    INVENTORY_RESERVED(InventoryEvents.InventoryReservedEvent.class, 1),
+    INVENTORY_RESERVE_FAILED(InventoryEvents.InventoryReserveFailedEvent.class, 1),
+    INVENTORY_RELEASED(InventoryEvents.InventoryReleasedEvent.class, 1),
+    INVENTORY_RELEASE_FAILED(InventoryEvents.InventoryReleaseFailedEvent.class, 1),
+
+    CAPTURE_PAYMENT(PaymentCommands.CapturePaymentCommand.class, 1),
+    REFUND_PAYMENT(PaymentCommands.RefundPaymentCommand.class, 1),
+
+    PAYMENT_CAPTURED(PaymentEvents.PaymentCapturedEvent.class, 1),
+    PAYMENT_CAPTURE_FAILED(PaymentEvents.PaymentCaptureFailedEvent.class, 1),
+    PAYMENT_REFUNDED(PaymentEvents.PaymentRefundedEvent.class, 1),
+    PAYMENT_REFUND_FAILED(PaymentEvents.PaymentRefundFailedEvent.class, 1);
+
+    private static final Map<String, SagaMessageType> BY_NAME = new HashMap<>();
+    private static final Map<Class<?>, SagaMessageType> BY_CLASS = new HashMap<>();
+
+    static {
+        for (SagaMessageType t : values()) {
+            BY_NAME.put(t.typeName(), t);
+            BY_CLASS.put(t.payloadType, t);
+        }
+    }
+
+    private final Class<? extends SagaMessage> payloadType;
+    private final int schemaVersion;
+
+    SagaMessageType(Class<? extends SagaMessage> payloadType, int schemaVersion) {
+        this.payloadType = payloadType;
+        this.schemaVersion = schemaVersion;
+    }
+
+    public Class<? extends SagaMessage> payloadType() {
+        return payloadType;
+    }
+
+    public int schemaVersion() {
+        return schemaVersion;
+    }
+
+    public String typeName() {
+        return payloadType.getSimpleName();
+    }
+
+    public static SagaMessageType of(SagaMessage message) {
+        SagaMessageType type = BY_CLASS.get(message.getClass());
+        if (type == null) {
+            throw new IllegalArgumentException("Unknown saga message class: " + message.getClass().getName());
+        }
+        return type;
+    }
+
+    public static Optional<SagaMessageType> fromTypeName(String typeName) {
+        return Optional.ofNullable(typeName == null ? null : BY_NAME.get(typeName));
+    }
+}
@@ -0,0 +1,13 @@
+package com.dang.sagamessages.envelope;
+
+/**
+ * Producer gửi schemaVersion mới hơn bản consumer biết: decode theo layout cũ có thể sai im lặng
+ * => không xử lý, để record vào parking lot và replay sau khi consumer được nâng cấp.
+ */
+public class UnsupportedSchemaVersionException extends IllegalStateException {
+
+    public UnsupportedSchemaVersionException(SagaMessageType type, int version) {
+        super("Unsupported schema version " + version + " for " + type.typeName()
+                + " (consumer supports up to " + type.schemaVersion() + ")");
+    }
+}
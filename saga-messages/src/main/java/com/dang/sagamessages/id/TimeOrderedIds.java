@@ -0,0 +1,62 @@
+package com.dang.sagamessages.id;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * UUIDv7 (RFC 9562): 48 bit unix ms + 12 bit counter + 62 bit random.
+ * Id sinh sau luôn lớn hơn id sinh trước (kể cả khi string hoá, vì hex lowercase cùng độ dài)
+ * => insert vào PK B-tree luôn dồn về trang bên phải thay vì rải ngẫu nhiên như v4.
+ *
+ * Monotonic trong cùng 1 ms nhờ counter 12 bit; hết counter thì "mượn" ms kế tiếp (RFC cho phép),
+ * đồng hồ lùi cũng không làm id đi lùi. Không lock: chỉ 1 CAS trên AtomicLong.
+ */
+public final class TimeOrderedIds {
+
+    private static final TimeOrderedIds DEFAULT = new TimeOrderedIds(System::currentTimeMillis);
+
+    private static final int COUNTER_BITS = 12;
+    private static final long VERSION_7 = 0x7000L;
+    private static final long VARIANT_RFC = 0x8000_0000_0000_0000L;
+    private static final long RANDOM_MASK = 0x3FFF_FFFF_FFFF_FFFFL;
+
+    private final LongSupplier clock;
+    // (ms << 12) | counter của id vừa sinh
+    private final AtomicLong last = new AtomicLong();
+
+    TimeOrderedIds(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    public static UUID next() {
+        return DEFAULT.nextUuid();
+    }
+
+    public static String nextString() {
+        return DEFAULT.nextUuid().toString();
+    }
+
+    /** Thời điểm (unix ms) nhúng trong id v7. */
+    public static long timestampMillis(UUID id) {
+        if (id.version() != 7) {
+            throw new IllegalArgumentException("Not a UUIDv7: " + id);
+        }
+        return id.getMostSignificantBits() >>> 16;
+    }
+
+    UUID nextUuid() {
+        long floor = clock.getAsLong() << COUNTER_BITS;
+        long prev;
+        long state;
+        do {
+            prev = last.get();
+            state = Math.max(floor, prev + 1);
+        } while (!last.compareAndSet(prev, state));
+
+        long msb = ((state >>> COUNTER_BITS) << 16) | VERSION_7 | (state & 0xFFFL);
+        long lsb = VARIANT_RFC | (ThreadLocalRandom.current().nextLong() & RANDOM_MASK);
+        return new UUID(msb, lsb);
+    }
+}
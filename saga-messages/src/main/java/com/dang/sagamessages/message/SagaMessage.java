@@ -0,0 +1,14 @@
+package com.dang.sagamessages.message;
+
+import java.time.Instant;
+
+/**
+ * Field chung của mọi command/event trong saga (record nào cũng có sẵn 3 accessor này).
+ */
+public interface SagaMessage {
+    String sagaId();
+
+    String orderId();
+
+    Instant occurredAt();
+}
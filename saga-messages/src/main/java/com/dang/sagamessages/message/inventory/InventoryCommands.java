@@ -1,5 +1,7 @@
 package com.dang.sagamessages.message.inventory;
 
+import com.dang.sagamessages.message.SagaMessage;
+
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.List;
@@ -13,7 +15,7 @@ public final class InventoryCommands {
             String customerId,
             List<Item> items,
             Instant occurredAt
-    ) {
+    ) implements SagaMessage {
         public record Item(String sku, int quantity, BigDecimal unitPrice) {}
     }
 
@@ -22,5 +24,5 @@ public final class InventoryCommands {
             String orderId,
             String reason,
             Instant occurredAt
-    ) {}
+    ) implements SagaMessage {}
 }
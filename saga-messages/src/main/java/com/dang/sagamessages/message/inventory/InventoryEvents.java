@@ -1,5 +1,7 @@
 package com.dang.sagamessages.message.inventory;
 
+import com.dang.sagamessages.message.SagaMessage;
+
 import java.time.Instant;
 
 public final class InventoryEvents {
@@ -9,25 +11,25 @@ public final class InventoryEvents {
             String sagaId,
             String orderId,
             Instant occurredAt
-    ) {}
+    ) implements SagaMessage {}
 
     public record InventoryReserveFailedEvent(
             String sagaId,
             String orderId,
             String reason,
             Instant occurredAt
-    ) {}
+    ) implements SagaMessage {}
 
     public record InventoryReleasedEvent(
             String sagaId,
             String orderId,
             Instant occurredAt
-    ) {}
+    ) implements SagaMessage {}
 
     public record InventoryReleaseFailedEvent(
             String sagaId,
             String orderId,
             String reason,
             Instant occurredAt
-    ) {}
+    ) implements SagaMessage {}
 }
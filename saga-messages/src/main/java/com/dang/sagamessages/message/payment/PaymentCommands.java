@@ -1,6 +1,8 @@
 package com.dang.sagamessages.message.payment;
 
 
+import com.dang.sagamessages.message.SagaMessage;
+
 import java.math.BigDecimal;
 import java.time.Instant;
 
@@ -14,13 +16,13 @@ public final class PaymentCommands {
             BigDecimal amount,
             String currency,
             Instant occurredAt
-    ) {}
+    ) implements SagaMessage {}
 
     public record RefundPaymentCommand(
             String sagaId,
             String orderId,
             String reason,
             Instant occurredAt
-    ) {}
+    ) implements SagaMessage {}
 }
 
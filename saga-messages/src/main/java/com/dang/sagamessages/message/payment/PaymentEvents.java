@@ -1,5 +1,7 @@
 package com.dang.sagamessages.message.payment;
 
+import com.dang.sagamessages.message.SagaMessage;
+
 import java.time.Instant;
 
 public final class PaymentEvents {
@@ -9,25 +11,25 @@ public final class PaymentEvents {
             String sagaId,
             String orderId,
             Instant occurredAt
-    ) {}
+    ) implements SagaMessage {}
 
     public record PaymentCaptureFailedEvent(
             String sagaId,
             String orderId,
             String reason,
             Instant occurredAt
-    ) {}
+    ) implements SagaMessage {}
 
     public record PaymentRefundedEvent(
             String sagaId,
             String orderId,
             Instant occurredAt
-    ) {}
+    ) implements SagaMessage {}
 
     public record PaymentRefundFailedEvent(
             String sagaId,
             String orderId,
             String reason,
             Instant occurredAt
-    ) {}
+    ) implements SagaMessage {}
 }
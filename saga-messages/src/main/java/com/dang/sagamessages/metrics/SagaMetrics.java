@@ -0,0 +1,72 @@
+package com.dang.sagamessages.metrics;
+
+import com.dang.sagamessages.envelope.SagaMessageType;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Locale;
+
+/**
+ * Tên metric, tag và SLO bucket dùng chung cho mọi service trong saga: cùng bucket => so được hop giữa các service
+ * và cộng lại ra end-to-end trên cùng 1 dashboard.
+ *
+ * Mốc thời gian lấy từ occurredAt của message (lúc bên gửi tạo command/event), nên hop = chờ outbox + broker + poll.
+ */
+public final class SagaMetrics {
+
+    /** occurredAt của message -> lúc consumer bắt đầu xử lý. */
+    public static final String HOP = "saga.hop";
+    /** Thời gian handler xử lý 1 message (không gồm commit của batch). */
+    public static final String HANDLER = "saga.handler";
+    /** Saga start -> saga kết thúc (order confirmed / cancelled / saga failed), đo ở order-service. */
+    public static final String END_TO_END = "saga.e2e";
+
+    public static final String TAG_STEP = "step";
+    public static final String TAG_FLOW = "flow";
+    public static final String TAG_OUTCOME = "outcome";
+
+    public static final String FLOW_CREATE = "create";
+    public static final String FLOW_CANCEL = "cancel";
+
+    public static final Duration[] HOP_SLO = {
+            Duration.ofMillis(10), Duration.ofMillis(25), Duration.ofMillis(50), Duration.ofMillis(100),
+            Duration.ofMillis(250), Duration.ofMillis(500), Duration.ofSeconds(1), Duration.ofMillis(2500),
+            Duration.ofSeconds(5), Duration.ofSeconds(10), Duration.ofSeconds(30)
+    };
+
+    public static final Duration[] HANDLER_SLO = {
+            Duration.ofMillis(1), Duration.ofMillis(2), Duration.ofMillis(5), Duration.ofMillis(10),
+            Duration.ofMillis(25), Duration.ofMillis(50), Duration.ofMillis(100), Duration.ofMillis(250),
+            Duration.ofMillis(500), Duration.ofSeconds(1), Duration.ofSeconds(5)
+    };
+
+    public static final Duration[] END_TO_END_SLO = {
+            Duration.ofMillis(100), Duration.ofMillis(250), Duration.ofMillis(500), Duration.ofSeconds(1),
+            Duration.ofSeconds(2), Duration.ofSeconds(5), Duration.ofSeconds(10), Duration.ofSeconds(30),
+            Duration.ofMinutes(1), Duration.ofMinutes(5)
+    };
+
+    private SagaMetrics() {
+    }
+
+    /** reserve/capture và kết quả của chúng thuộc create flow; release/refund thuộc cancel (bù trừ). */
+    public static String flow(SagaMessageType type) {
+        return switch (type) {
+            case RESERVE_INVENTORY, INVENTORY_RESERVED, INVENTORY_RESERVE_FAILED,
+                 CAPTURE_PAYMENT, PAYMENT_CAPTURED, PAYMENT_CAPTURE_FAILED -> FLOW_CREATE;
+            case RELEASE_INVENTORY, INVENTORY_RELEASED, INVENTORY_RELEASE_FAILED,
+                 REFUND_PAYMENT, PAYMENT_REFUNDED, PAYMENT_REFUND_FAILED -> FLOW_CANCEL;
+        };
+    }
+
+    /** Giá trị tag step: RESERVE_INVENTORY => reserve_inventory. */
+    public static String step(SagaMessageType type) {
+        return type.name().toLowerCase(Locale.ROOT);
+    }
+
+    /** Lệch đồng hồ giữa các máy có thể cho số âm => coi như 0. */
+    public static Duration since(Instant from, Instant now) {
+        Duration elapsed = Duration.between(from, now);
+        return elapsed.isNegative() ? Duration.ZERO : elapsed;
+    }
+}
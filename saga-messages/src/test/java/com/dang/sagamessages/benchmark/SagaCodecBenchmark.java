@@ -0,0 +1,123 @@
+package com.dang.sagamessages.benchmark;
+
+import com.dang.sagamessages.codec.SagaBinaryCodec;
+import com.dang.sagamessages.message.SagaMessage;
+import com.dang.sagamessages.message.inventory.InventoryCommands;
+import com.dang.sagamessages.message.payment.PaymentCommands;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode/decode: JSON hiện tại (ObjectMapper -> String -> StringSerializer; consumer String -> Map/JsonNode)
+ * so với {@link SagaBinaryCodec}. Kích thước payload in ra trước khi chạy.
+ *
+ * Chạy: main() trong IDE (classpath test).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SagaCodecBenchmark {
+
+    @Param({"reserve", "capture"})
+    public String message;
+
+    private ObjectMapper objectMapper;
+    private SagaMessage payload;
+    private Class<? extends SagaMessage> payloadType;
+    private byte[] json;
+    private byte[] binary;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        objectMapper = objectMapper();
+        payload = sample(message);
+        payloadType = payload.getClass();
+        json = objectMapper.writeValueAsString(payload).getBytes(StandardCharsets.UTF_8);
+        binary = SagaBinaryCodec.encode(payload);
+    }
+
+    @Benchmark
+    public byte[] jsonEncode() throws Exception {
+        // producer hiện tại: writeValueAsString + StringSerializer
+        return objectMapper.writeValueAsString(payload).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public Object jsonDecodeLegacy() throws Exception {
+        // consumer hiện tại: StringDeserializer -> readTree -> treeToValue (parse 2 lần)
+        JsonNode root = objectMapper.readTree(new String(json, StandardCharsets.UTF_8));
+        return objectMapper.treeToValue(root, payloadType);
+    }
+
+    @Benchmark
+    public Object jsonDecodeTyped() throws Exception {
+        return objectMapper.readValue(json, payloadType);
+    }
+
+    @Benchmark
+    public byte[] binaryEncode() {
+        return SagaBinaryCodec.encode(payload);
+    }
+
+    @Benchmark
+    public Object binaryDecode() {
+        return SagaBinaryCodec.decode(binary);
+    }
+
+    static ObjectMapper objectMapper() {
+        // giống JacksonConfig của các service
+        ObjectMapper om = new ObjectMapper();
+        om.registerModule(new JavaTimeModule());
+        om.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        return om;
+    }
+
+    static SagaMessage sample(String kind) {
+        String sagaId = UUID.randomUUID().toString();
+        String orderId = UUID.randomUUID().toString();
+        Instant now = Instant.now();
+        return switch (kind) {
+            case "reserve" -> new InventoryCommands.ReserveInventoryCommand(sagaId, orderId, UUID.randomUUID().toString(),
+                    List.of(
+                            new InventoryCommands.ReserveInventoryCommand.Item("SKU-IPHONE-15-128", 1, new BigDecimal("21990000.00")),
+                            new InventoryCommands.ReserveInventoryCommand.Item("SKU-CASE-01", 2, new BigDecimal("150000.00")),
+                            new InventoryCommands.ReserveInventoryCommand.Item("SKU-CABLE-USB-C", 3, new BigDecimal("99000.00"))),
+                    now);
+            case "capture" -> new PaymentCommands.CapturePaymentCommand(sagaId, orderId, UUID.randomUUID().toString(),
+                    new BigDecimal("22587000.00"), "VND", now);
+            default -> throw new IllegalArgumentException(kind);
+        };
+    }
+
+    public static void main(String[] args) throws Exception {
+        ObjectMapper om = objectMapper();
+        for (String kind : List.of("reserve", "capture")) {
+            SagaMessage m = sample(kind);
+            System.out.printf("%-8s json=%d bytes, binary=%d bytes%n", kind,
+                    om.writeValueAsBytes(m).length, SagaBinaryCodec.encode(m).length);
+        }
+        runBenchmarks();
+    }
+
+    private static void runBenchmarks() throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SagaCodecBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,50 @@
+package com.dang.sagamessages.envelope;
+
+import com.dang.sagamessages.message.inventory.InventoryEvents;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SagaEnvelopeTest {
+
+    @Test
+    void headersRoundTrip() {
+        var evt = new InventoryEvents.InventoryReserveFailedEvent("s-1", "o-1", "out of stock",
+                Instant.parse("2026-01-01T00:00:00Z"));
+
+        SagaEnvelope env = SagaEnvelope.of("m-1", evt);
+        Map<String, String> headers = env.toHeaders();
+
+        assertEquals("InventoryReserveFailedEvent", headers.get(SagaHeaders.MESSAGE_TYPE));
+        assertEquals(env, SagaEnvelope.fromHeaders(headers::get).orElseThrow());
+    }
+
+    @Test
+    void unknownOrMissingTypeIsEmpty() {
+        assertTrue(SagaEnvelope.fromHeaders(name -> null).isEmpty());
+        assertTrue(SagaEnvelope.fromHeaders(Map.of(SagaHeaders.MESSAGE_TYPE, "SomethingNew")::get).isEmpty());
+    }
+
+    @Test
+    void newerSchemaVersionIsRejected() {
+        var evt = new InventoryEvents.InventoryReservedEvent("s-1", "o-1", Instant.parse("2026-01-01T00:00:00Z"));
+        Map<String, String> headers = new HashMap<>(SagaEnvelope.of("m-1", evt).toHeaders());
+
+        assertDoesNotThrow(() -> SagaEnvelope.fromHeaders(headers::get).orElseThrow().requireSupportedVersion());
+
+        headers.put(SagaHeaders.SCHEMA_VERSION, Integer.toString(SagaMessageType.INVENTORY_RESERVED.schemaVersion() + 1));
+        SagaEnvelope newer = SagaEnvelope.fromHeaders(headers::get).orElseThrow();
+        assertThrows(UnsupportedSchemaVersionException.class, newer::requireSupportedVersion);
+    }
+
+    @Test
+    void everyTypeResolvesByName() {
+        for (SagaMessageType type : SagaMessageType.values()) {
+            assertEquals(type, SagaMessageType.fromTypeName(type.typeName()).orElseThrow());
+        }
+    }
+}
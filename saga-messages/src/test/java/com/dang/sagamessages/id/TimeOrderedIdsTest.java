@@ -0,0 +1,55 @@
+package com.dang.sagamessages.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeOrderedIdsTest {
+
+    @Test
+    void versionVariantAndTimestamp() {
+        var ids = new TimeOrderedIds(() -> 1_767_225_600_000L);
+        UUID id = ids.nextUuid();
+
+        assertEquals(7, id.version());
+        assertEquals(2, id.variant());
+        assertEquals(1_767_225_600_000L, TimeOrderedIds.timestampMillis(id));
+    }
+
+    @Test
+    void stringsStayOrderedWithinSameMillisAndWhenClockGoesBack() {
+        AtomicLong now = new AtomicLong(1_767_225_600_000L);
+        var ids = new TimeOrderedIds(now::get);
+
+        List<String> generated = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {      // > 4096 => counter tràn sang ms kế tiếp
+            generated.add(ids.nextUuid().toString());
+            if (i == 5_000) now.addAndGet(-1_000);
+        }
+
+        for (int i = 1; i < generated.size(); i++) {
+            assertTrue(generated.get(i - 1).compareTo(generated.get(i)) < 0, "not ordered at " + i);
+        }
+    }
+
+    @Test
+    void uniqueAcrossThreads() throws InterruptedException {
+        Set<UUID> seen = ConcurrentHashMap.newKeySet();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 20_000; i++) seen.add(TimeOrderedIds.next());
+            }));
+        }
+        for (Thread thread : threads) thread.join();
+
+        assertEquals(160_000, seen.size());
+    }
+}